@@ -0,0 +1,406 @@
+package btree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.BinaryOperator;
+
+// Write-optimized B-epsilon tree. Writes become messages in the root's buffer and move down one
+// level at a time, in batches to the child with the most pending messages, so each node visit
+// is paid for by many writes. Reads collect the messages for their key on the way to the leaf
+// and apply them newest-last on top of the leaf value.
+public class BEpsilonTree<K extends Comparable<K>, V> {
+    private static final int DEFAULT_FANOUT = 16;
+    private static final int DEFAULT_BUFFER_CAPACITY = 256;
+
+    private final int fanout;
+    private final int bufferCapacity;
+    private final int leafCapacity;
+    // Combines the current value, or null when absent, with an upsert delta.
+    private final BinaryOperator<V> merger;
+    private Node<K> root = new LeafNode<>();
+
+    public BEpsilonTree(BinaryOperator<V> merger) {
+        this(DEFAULT_FANOUT, DEFAULT_BUFFER_CAPACITY, merger);
+    }
+
+    public BEpsilonTree(int fanout, int bufferCapacity, BinaryOperator<V> merger) {
+        if (fanout < 3) {
+            throw new IllegalArgumentException("Fan-out must be at least 3");
+        }
+        if (bufferCapacity < 1) {
+            throw new IllegalArgumentException("Buffer capacity must be positive");
+        }
+        if (merger == null) {
+            throw new IllegalArgumentException();
+        }
+        this.fanout = fanout;
+        this.bufferCapacity = bufferCapacity;
+        this.leafCapacity = Math.max(fanout, bufferCapacity);
+        this.merger = merger;
+    }
+
+    enum Type {
+        INSERT,
+        DELETE,
+        UPSERT
+    }
+
+    // INSERT carries the value, UPSERT the deltas still to be merged, oldest first.
+    static final class Message<V> {
+        final Type type;
+        final V value;
+        final List<V> deltas;
+
+        Message(Type type, V value, List<V> deltas) {
+            this.type = type;
+            this.value = value;
+            this.deltas = deltas;
+        }
+    }
+
+    abstract static class Node<K> {
+        abstract boolean isLeaf();
+    }
+
+    static class LeafNode<K, V> extends Node<K> {
+        final List<K> keys = new ArrayList<>();
+        final List<V> values = new ArrayList<>();
+
+        @Override
+        boolean isLeaf() {
+            return true;
+        }
+    }
+
+    // Child i holds keys in [pivots[i - 1], pivots[i]).
+    static class InternalNode<K, V> extends Node<K> {
+        final List<K> pivots = new ArrayList<>();
+        final List<Node<K>> children = new ArrayList<>();
+        TreeMap<K, Message<V>> buffer = new TreeMap<>();
+
+        @Override
+        boolean isLeaf() {
+            return false;
+        }
+    }
+
+    private static class Split<K> {
+        private final K separator;
+        private final Node<K> right;
+
+        private Split(K separator, Node<K> right) {
+            this.separator = separator;
+            this.right = right;
+        }
+    }
+
+    public void put(K key, V value) {
+        submit(key, new Message<>(Type.INSERT, value, null));
+    }
+
+    public void remove(K key) {
+        submit(key, new Message<>(Type.DELETE, null, null));
+    }
+
+    public void upsert(K key, V delta) {
+        submit(key, new Message<>(Type.UPSERT, null, Collections.singletonList(delta)));
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        List<Message<V>> pending = new ArrayList<>();
+        Node<K> node = this.root;
+
+        while (!node.isLeaf()) {
+            InternalNode<K, V> internal = (InternalNode<K, V>) node;
+            Message<V> message = internal.buffer.get(key);
+
+            if (message != null) {
+                if (message.type != Type.UPSERT) {
+                    return resolve(message.type == Type.INSERT ? message.value : null, pending);
+                }
+                pending.add(message);
+            }
+            node = internal.children.get(childIndex(internal, key));
+        }
+
+        LeafNode<K, V> leaf = (LeafNode<K, V>) node;
+        int index = Collections.binarySearch(leaf.keys, key);
+        return resolve(index >= 0 ? leaf.values.get(index) : null, pending);
+    }
+
+    // Applies every buffered message, leaving all data in the leaves.
+    @SuppressWarnings("unchecked")
+    public void flushAll() {
+        if (this.root.isLeaf()) {
+            return;
+        }
+
+        List<Split<K>> splits = flushAll((InternalNode<K, V>) this.root);
+        growRoot(splits);
+    }
+
+    public int height() {
+        int height = 1;
+        for (Node<K> node = this.root; !node.isLeaf(); node = ((InternalNode<K, ?>) node).children.get(0)) {
+            height++;
+        }
+        return height;
+    }
+
+    // Messages collected top-down are newer first, so they apply in reverse.
+    private V resolve(V value, List<Message<V>> pending) {
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            for (V delta : pending.get(i).deltas) {
+                value = this.merger.apply(value, delta);
+            }
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void submit(K key, Message<V> message) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        List<Split<K>> splits;
+        if (this.root.isLeaf()) {
+            LeafNode<K, V> leaf = (LeafNode<K, V>) this.root;
+            apply(leaf, key, message);
+            splits = splitLeaf(leaf);
+        } else {
+            InternalNode<K, V> internal = (InternalNode<K, V>) this.root;
+            enqueue(internal.buffer, key, message);
+            splits = internal.buffer.size() > this.bufferCapacity ? flush(internal) : Collections.emptyList();
+        }
+
+        growRoot(splits);
+    }
+
+    private void growRoot(List<Split<K>> splits) {
+        while (!splits.isEmpty()) {
+            InternalNode<K, V> newRoot = new InternalNode<>();
+            newRoot.children.add(this.root);
+            for (Split<K> split : splits) {
+                newRoot.pivots.add(split.separator);
+                newRoot.children.add(split.right);
+            }
+            this.root = newRoot;
+            splits = splitInternal(newRoot);
+        }
+    }
+
+    // Moves the largest per-child batch down until the buffer fits again.
+    private List<Split<K>> flush(InternalNode<K, V> node) {
+        while (node.buffer.size() > this.bufferCapacity) {
+            int child = busiestChild(node);
+            pushDown(node, child, drain(node, child));
+        }
+        return splitInternal(node);
+    }
+
+    // Right to left, so siblings split off a child never shift the children still to visit.
+    @SuppressWarnings("unchecked")
+    private List<Split<K>> flushAll(InternalNode<K, V> node) {
+        for (int child = node.children.size() - 1; child >= 0; child--) {
+            pushDown(node, child, drain(node, child));
+        }
+
+        for (int child = node.children.size() - 1; child >= 0; child--) {
+            Node<K> current = node.children.get(child);
+            if (!current.isLeaf()) {
+                insertSplits(node, child, flushAll((InternalNode<K, V>) current));
+            }
+        }
+        return splitInternal(node);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void pushDown(InternalNode<K, V> node, int child, NavigableMap<K, Message<V>> batch) {
+        Node<K> target = node.children.get(child);
+        List<Split<K>> splits;
+
+        if (target.isLeaf()) {
+            LeafNode<K, V> leaf = (LeafNode<K, V>) target;
+            for (Map.Entry<K, Message<V>> entry : batch.entrySet()) {
+                apply(leaf, entry.getKey(), entry.getValue());
+            }
+            splits = splitLeaf(leaf);
+        } else {
+            InternalNode<K, V> internal = (InternalNode<K, V>) target;
+            for (Map.Entry<K, Message<V>> entry : batch.entrySet()) {
+                enqueue(internal.buffer, entry.getKey(), entry.getValue());
+            }
+            splits = internal.buffer.size() > this.bufferCapacity ? flush(internal) : Collections.emptyList();
+        }
+
+        insertSplits(node, child, splits);
+    }
+
+    private void insertSplits(InternalNode<K, V> node, int child, List<Split<K>> splits) {
+        for (int i = 0; i < splits.size(); i++) {
+            node.pivots.add(child + i, splits.get(i).separator);
+            node.children.add(child + i + 1, splits.get(i).right);
+        }
+    }
+
+    private int busiestChild(InternalNode<K, V> node) {
+        int best = 0;
+        int bestCount = -1;
+
+        for (int child = 0; child < node.children.size(); child++) {
+            int count = range(node, child).size();
+            if (count > bestCount) {
+                best = child;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    private NavigableMap<K, Message<V>> drain(InternalNode<K, V> node, int child) {
+        NavigableMap<K, Message<V>> range = range(node, child);
+        NavigableMap<K, Message<V>> batch = new TreeMap<>(range);
+        range.clear();
+        return batch;
+    }
+
+    private NavigableMap<K, Message<V>> range(InternalNode<K, V> node, int child) {
+        NavigableMap<K, Message<V>> range = node.buffer;
+        if (child > 0) {
+            range = range.tailMap(node.pivots.get(child - 1), true);
+        }
+        if (child < node.pivots.size()) {
+            range = range.headMap(node.pivots.get(child), false);
+        }
+        return range;
+    }
+
+    // A newer message for the same key absorbs the older one.
+    private void enqueue(TreeMap<K, Message<V>> buffer, K key, Message<V> message) {
+        Message<V> older = buffer.get(key);
+        buffer.put(key, older == null ? message : combine(older, message));
+    }
+
+    private Message<V> combine(Message<V> older, Message<V> newer) {
+        if (newer.type != Type.UPSERT) {
+            return newer;
+        }
+
+        if (older.type == Type.UPSERT) {
+            List<V> deltas = new ArrayList<>(older.deltas.size() + newer.deltas.size());
+            deltas.addAll(older.deltas);
+            deltas.addAll(newer.deltas);
+            return new Message<>(Type.UPSERT, null, deltas);
+        }
+
+        V value = older.type == Type.INSERT ? older.value : null;
+        for (V delta : newer.deltas) {
+            value = this.merger.apply(value, delta);
+        }
+        return new Message<>(Type.INSERT, value, null);
+    }
+
+    private void apply(LeafNode<K, V> leaf, K key, Message<V> message) {
+        int index = Collections.binarySearch(leaf.keys, key);
+
+        if (message.type == Type.DELETE) {
+            if (index >= 0) {
+                leaf.keys.remove(index);
+                leaf.values.remove(index);
+            }
+            return;
+        }
+
+        V value = message.value;
+        if (message.type == Type.UPSERT) {
+            value = index >= 0 ? leaf.values.get(index) : null;
+            for (V delta : message.deltas) {
+                value = this.merger.apply(value, delta);
+            }
+        }
+
+        if (index >= 0) {
+            leaf.values.set(index, value);
+        } else {
+            leaf.keys.add(-index - 1, key);
+            leaf.values.add(-index - 1, value);
+        }
+    }
+
+    // A batch can overfill a leaf several times over, so it is cut into as many even pieces as
+    // needed. Leaves emptied by deletes are left in place.
+    private List<Split<K>> splitLeaf(LeafNode<K, V> leaf) {
+        int count = leaf.keys.size();
+        if (count <= this.leafCapacity) {
+            return Collections.emptyList();
+        }
+
+        int pieces = (count + this.leafCapacity - 1) / this.leafCapacity;
+        List<Split<K>> splits = new ArrayList<>(pieces - 1);
+
+        for (int piece = 1; piece < pieces; piece++) {
+            int from = (int) ((long) count * piece / pieces);
+            int to = (int) ((long) count * (piece + 1) / pieces);
+            LeafNode<K, V> right = new LeafNode<>();
+            right.keys.addAll(leaf.keys.subList(from, to));
+            right.values.addAll(leaf.values.subList(from, to));
+            splits.add(new Split<>(right.keys.get(0), right));
+        }
+
+        int keep = count / pieces;
+        leaf.keys.subList(keep, count).clear();
+        leaf.values.subList(keep, count).clear();
+        return splits;
+    }
+
+    private List<Split<K>> splitInternal(InternalNode<K, V> node) {
+        int count = node.children.size();
+        if (count <= this.fanout) {
+            return Collections.emptyList();
+        }
+
+        int pieces = (count + this.fanout - 1) / this.fanout;
+        List<Split<K>> splits = new ArrayList<>(pieces - 1);
+
+        for (int piece = 1; piece < pieces; piece++) {
+            int from = count * piece / pieces;
+            int to = count * (piece + 1) / pieces;
+            InternalNode<K, V> right = new InternalNode<>();
+            right.children.addAll(node.children.subList(from, to));
+            right.pivots.addAll(node.pivots.subList(from, to - 1));
+
+            K separator = node.pivots.get(from - 1);
+            NavigableMap<K, Message<V>> messages = node.buffer.tailMap(separator, true);
+            if (to < count) {
+                messages = messages.headMap(node.pivots.get(to - 1), false);
+            }
+            right.buffer = new TreeMap<>(messages);
+            splits.add(new Split<>(separator, right));
+        }
+
+        int keep = count / pieces;
+        node.buffer = new TreeMap<>(node.buffer.headMap(node.pivots.get(keep - 1), false));
+        node.children.subList(keep, count).clear();
+        node.pivots.subList(keep - 1, count - 1).clear();
+        return splits;
+    }
+
+    private int childIndex(InternalNode<K, V> node, K key) {
+        int index = Collections.binarySearch(node.pivots, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+}
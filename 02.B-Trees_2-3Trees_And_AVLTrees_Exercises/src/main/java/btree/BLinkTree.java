@@ -0,0 +1,307 @@
+package btree;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+
+// Lehman-Yao B-link tree. Every node carries a high key and a link to its right sibling, so a
+// reader that lands on a node which split under it just follows the link. Node contents are
+// immutable and swapped through a volatile field, which makes readers lock-free. Writers lock
+// the node they change, plus its right sibling while moving right and its parent after a split.
+public class BLinkTree<K extends Comparable<K>, V> {
+
+    private static final int DEFAULT_ORDER = 64;
+
+    private final int order;
+    private final ReentrantLock rootLock = new ReentrantLock();
+    // Signalled whenever a new root is installed.
+    private final Condition rootGrown = this.rootLock.newCondition();
+    private final LongAdder size = new LongAdder();
+    private volatile Node root;
+
+    public BLinkTree() {
+        this(DEFAULT_ORDER);
+    }
+
+    public BLinkTree(int order) {
+        if (order < 3) {
+            throw new IllegalArgumentException("Order must be at least 3");
+        }
+        this.order = order;
+        this.root = new Node(0, new Contents(new Object[0], new Object[0], null, null));
+    }
+
+    private final class Node {
+        private final int level;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Contents contents;
+
+        private Node(int level, Contents contents) {
+            this.level = level;
+            this.contents = contents;
+        }
+
+        private boolean isLeaf() {
+            return this.level == 0;
+        }
+    }
+
+    // Leaves keep values in items; internal nodes keep keys.length + 1 children there.
+    private final class Contents {
+        private final Object[] keys;
+        private final Object[] items;
+        private final K highKey;
+        private final Node right;
+
+        private Contents(Object[] keys, Object[] items, K highKey, Node right) {
+            this.keys = keys;
+            this.items = items;
+            this.highKey = highKey;
+            this.right = right;
+        }
+
+        private boolean covers(K key) {
+            return this.highKey == null || key.compareTo(this.highKey) < 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Node child(int index) {
+            return (Node) this.items[index];
+        }
+    }
+
+    public int getOrder() {
+        return this.order;
+    }
+
+    public long size() {
+        return this.size.sum();
+    }
+
+    public boolean containsKey(K key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        Node node = this.root;
+
+        while (true) {
+            Contents contents = node.contents;
+
+            if (!contents.covers(key)) {
+                node = contents.right;
+            } else if (node.isLeaf()) {
+                int index = search(contents.keys, key);
+                return index >= 0 ? (V) contents.items[index] : null;
+            } else {
+                node = contents.child(childIndex(contents.keys, key));
+            }
+        }
+    }
+
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Deque<Node> path = new ArrayDeque<>();
+        Node node = this.root;
+
+        while (!node.isLeaf()) {
+            Contents contents = node.contents;
+            if (!contents.covers(key)) {
+                node = contents.right;
+            } else {
+                path.push(node);
+                node = contents.child(childIndex(contents.keys, key));
+            }
+        }
+
+        node.lock.lock();
+        node = moveRight(node, key);
+
+        Contents contents = node.contents;
+        int index = search(contents.keys, key);
+
+        if (index >= 0) {
+            Object[] items = contents.items.clone();
+            items[index] = value;
+            node.contents = new Contents(contents.keys, items, contents.highKey, contents.right);
+            node.lock.unlock();
+            return;
+        }
+
+        this.size.increment();
+        int insertAt = -index - 1;
+        Object[] keys = inserted(contents.keys, insertAt, key);
+        Object[] items = inserted(contents.items, insertAt, value);
+
+        if (keys.length <= this.order) {
+            node.contents = new Contents(keys, items, contents.highKey, contents.right);
+            node.lock.unlock();
+            return;
+        }
+
+        int middle = keys.length / 2;
+        @SuppressWarnings("unchecked")
+        K separator = (K) keys[middle];
+        Node right = new Node(0, new Contents(
+                Arrays.copyOfRange(keys, middle, keys.length),
+                Arrays.copyOfRange(items, middle, items.length),
+                contents.highKey, contents.right));
+        node.contents = new Contents(
+                Arrays.copyOf(keys, middle), Arrays.copyOf(items, middle), separator, right);
+
+        insertIntoParent(path, node, separator, right);
+    }
+
+    // Called with the split node locked; unlocks it once the parent is locked.
+    private void insertIntoParent(Deque<Node> path, Node left, K separator, Node right) {
+        while (true) {
+            Node parent = path.isEmpty() ? null : path.pop();
+
+            if (parent == null) {
+                this.rootLock.lock();
+                try {
+                    // left was reached through a right link from the root, whose own split
+                    // has not installed the level above yet.
+                    while (this.root != left && this.root.level <= left.level) {
+                        this.rootGrown.awaitUninterruptibly();
+                    }
+                    if (this.root == left) {
+                        Contents contents = new Contents(new Object[]{separator}, new Object[]{left, right}, null, null);
+                        this.root = new Node(left.level + 1, contents);
+                        this.rootGrown.signalAll();
+                        left.lock.unlock();
+                        return;
+                    }
+                } finally {
+                    this.rootLock.unlock();
+                }
+
+                // The tree grew since we descended; find the parent level from the new root.
+                parent = findNodeAtLevel(left.level + 1, separator);
+            }
+
+            parent.lock.lock();
+            left.lock.unlock();
+            parent = moveRight(parent, separator);
+
+            Contents contents = parent.contents;
+            int childIndex = childIndex(contents.keys, separator);
+            Object[] keys = inserted(contents.keys, childIndex, separator);
+            Object[] children = inserted(contents.items, childIndex + 1, right);
+
+            if (keys.length <= this.order) {
+                parent.contents = new Contents(keys, children, contents.highKey, contents.right);
+                parent.lock.unlock();
+                return;
+            }
+
+            int middle = keys.length / 2;
+            @SuppressWarnings("unchecked")
+            K pushedUp = (K) keys[middle];
+            Node newRight = new Node(parent.level, new Contents(
+                    Arrays.copyOfRange(keys, middle + 1, keys.length),
+                    Arrays.copyOfRange(children, middle + 1, children.length),
+                    contents.highKey, contents.right));
+            parent.contents = new Contents(
+                    Arrays.copyOf(keys, middle), Arrays.copyOf(children, middle + 1), pushedUp, newRight);
+
+            left = parent;
+            separator = pushedUp;
+            right = newRight;
+        }
+    }
+
+    // Lock coupling to the right: the next node is locked before the current one is released.
+    private Node moveRight(Node node, K key) {
+        while (true) {
+            Contents contents = node.contents;
+            if (contents.covers(key)) {
+                return node;
+            }
+
+            Node right = contents.right;
+            right.lock.lock();
+            node.lock.unlock();
+            node = right;
+        }
+    }
+
+    private Node findNodeAtLevel(int level, K key) {
+        Node node = this.root;
+
+        while (true) {
+            if (node.level < level) {
+                throw new IllegalStateException("No node at level " + level);
+            }
+
+            Contents contents = node.contents;
+            if (!contents.covers(key)) {
+                node = contents.right;
+            } else if (node.level == level) {
+                return node;
+            } else {
+                node = contents.child(childIndex(contents.keys, key));
+            }
+        }
+    }
+
+    // Weakly consistent: sees every key present before the call and possibly some added during it.
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        Node node = this.root;
+        while (!node.isLeaf()) {
+            node = node.contents.child(0);
+        }
+
+        while (node != null) {
+            Contents contents = node.contents;
+            for (int i = 0; i < contents.keys.length; i++) {
+                action.accept((K) contents.keys[i], (V) contents.items[i]);
+            }
+            node = contents.right;
+        }
+    }
+
+    private static Object[] inserted(Object[] array, int index, Object element) {
+        Object[] result = new Object[array.length + 1];
+        System.arraycopy(array, 0, result, 0, index);
+        result[index] = element;
+        System.arraycopy(array, index, result, index + 1, array.length - index);
+        return result;
+    }
+
+    // Keys equal to a separator live in the right subtree.
+    private int childIndex(Object[] keys, K key) {
+        int index = search(keys, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int search(Object[] keys, K key) {
+        int low = 0;
+        int high = keys.length - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compare = ((K) keys[middle]).compareTo(key);
+
+            if (compare < 0) {
+                low = middle + 1;
+            } else if (compare > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -(low + 1);
+    }
+}
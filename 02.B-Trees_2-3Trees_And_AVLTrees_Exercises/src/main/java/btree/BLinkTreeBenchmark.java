@@ -0,0 +1,98 @@
+package btree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compares the B-link tree against the same workload on a BPlusTree behind one global lock.
+// Run main to sweep the thread count; JMH's -t option runs a single count.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BLinkTreeBenchmark {
+
+    private static final int KEYS = 1_000_000;
+    private static final int WRITE_PERCENT = 10;
+
+    private BLinkTree<Integer, Integer> bLinkTree;
+    private BPlusTree<Integer, Integer> lockedTree;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.bLinkTree = new BLinkTree<>();
+        this.lockedTree = new BPlusTree<>(64);
+
+        for (int i = 0; i < KEYS; i += 2) {
+            this.bLinkTree.put(i, i);
+            this.lockedTree.put(i, i);
+        }
+    }
+
+    @Benchmark
+    public Integer readBLink() {
+        return this.bLinkTree.get(ThreadLocalRandom.current().nextInt(KEYS));
+    }
+
+    @Benchmark
+    public Integer readGlobalLock() {
+        int key = ThreadLocalRandom.current().nextInt(KEYS);
+        synchronized (this.lockedTree) {
+            return this.lockedTree.get(key);
+        }
+    }
+
+    @Benchmark
+    public Integer mixedBLink() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int key = random.nextInt(KEYS);
+
+        if (random.nextInt(100) < WRITE_PERCENT) {
+            this.bLinkTree.put(key, key);
+            return key;
+        }
+        return this.bLinkTree.get(key);
+    }
+
+    @Benchmark
+    public Integer mixedGlobalLock() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int key = random.nextInt(KEYS);
+
+        synchronized (this.lockedTree) {
+            if (random.nextInt(100) < WRITE_PERCENT) {
+                this.lockedTree.put(key, key);
+                return key;
+            }
+            return this.lockedTree.get(key);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            new Runner(new OptionsBuilder()
+                    .include(BLinkTreeBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build())
+                    .run();
+        }
+    }
+}
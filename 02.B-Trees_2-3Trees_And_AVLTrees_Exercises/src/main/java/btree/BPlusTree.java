@@ -0,0 +1,400 @@
+package btree;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+public class BPlusTree<K extends Comparable<K>, V> {
+    // Same fan-out as TwoThreeTree: at most two keys and three children per node.
+    private static final int DEFAULT_ORDER = 3;
+
+    private final int order;
+    private Node<K> root;
+    private LeafNode<K, V> head;
+    private LeafNode<K, V> tail;
+    private int size;
+
+    public BPlusTree() {
+        this(DEFAULT_ORDER);
+    }
+
+    public BPlusTree(int order) {
+        if (order < 3) {
+            throw new IllegalArgumentException("Order must be at least 3");
+        }
+        this.order = order;
+    }
+
+    abstract static class Node<K> {
+        final List<K> keys = new ArrayList<>();
+
+        abstract boolean isLeaf();
+    }
+
+    static class LeafNode<K, V> extends Node<K> {
+        final List<V> values = new ArrayList<>();
+        LeafNode<K, V> prev;
+        LeafNode<K, V> next;
+
+        @Override
+        boolean isLeaf() {
+            return true;
+        }
+    }
+
+    static class InternalNode<K> extends Node<K> {
+        final List<Node<K>> children = new ArrayList<>();
+
+        @Override
+        boolean isLeaf() {
+            return false;
+        }
+    }
+
+    private static class Split<K> {
+        private final K separator;
+        private final Node<K> right;
+
+        private Split(K separator, Node<K> right) {
+            this.separator = separator;
+            this.right = right;
+        }
+    }
+
+    public int getOrder() {
+        return this.order;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public boolean containsKey(K key) {
+        LeafNode<K, V> leaf = findLeaf(key);
+        return leaf != null && Collections.binarySearch(leaf.keys, key) >= 0;
+    }
+
+    public V get(K key) {
+        LeafNode<K, V> leaf = findLeaf(key);
+        if (leaf == null) {
+            return null;
+        }
+
+        int index = Collections.binarySearch(leaf.keys, key);
+        return index >= 0 ? leaf.values.get(index) : null;
+    }
+
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        if (this.root == null) {
+            LeafNode<K, V> leaf = new LeafNode<>();
+            leaf.keys.add(key);
+            leaf.values.add(value);
+            this.root = leaf;
+            this.head = leaf;
+            this.tail = leaf;
+            this.size = 1;
+            return;
+        }
+
+        Split<K> split = insert(this.root, key, value);
+
+        if (split != null) {
+            InternalNode<K> newRoot = new InternalNode<>();
+            newRoot.keys.add(split.separator);
+            newRoot.children.add(this.root);
+            newRoot.children.add(split.right);
+            this.root = newRoot;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Split<K> insert(Node<K> node, K key, V value) {
+        if (node.isLeaf()) {
+            LeafNode<K, V> leaf = (LeafNode<K, V>) node;
+            int index = Collections.binarySearch(leaf.keys, key);
+
+            if (index >= 0) {
+                leaf.values.set(index, value);
+                return null;
+            }
+
+            int insertAt = -index - 1;
+            leaf.keys.add(insertAt, key);
+            leaf.values.add(insertAt, value);
+            this.size++;
+
+            return leaf.keys.size() < this.order ? null : splitLeaf(leaf);
+        }
+
+        InternalNode<K> internal = (InternalNode<K>) node;
+        int childIndex = childIndex(internal, key);
+        Split<K> toFix = insert(internal.children.get(childIndex), key, value);
+
+        if (toFix == null) {
+            return null;
+        }
+
+        internal.keys.add(childIndex, toFix.separator);
+        internal.children.add(childIndex + 1, toFix.right);
+
+        return internal.keys.size() < this.order ? null : splitInternal(internal);
+    }
+
+    private Split<K> splitLeaf(LeafNode<K, V> leaf) {
+        int middle = leaf.keys.size() / 2;
+        LeafNode<K, V> right = new LeafNode<>();
+
+        List<K> movedKeys = leaf.keys.subList(middle, leaf.keys.size());
+        List<V> movedValues = leaf.values.subList(middle, leaf.values.size());
+        right.keys.addAll(movedKeys);
+        right.values.addAll(movedValues);
+        movedKeys.clear();
+        movedValues.clear();
+
+        right.prev = leaf;
+        right.next = leaf.next;
+        if (leaf.next != null) {
+            leaf.next.prev = right;
+        } else {
+            this.tail = right;
+        }
+        leaf.next = right;
+
+        return new Split<>(right.keys.get(0), right);
+    }
+
+    private Split<K> splitInternal(InternalNode<K> node) {
+        int middle = node.keys.size() / 2;
+        K separator = node.keys.get(middle);
+        InternalNode<K> right = new InternalNode<>();
+
+        List<K> movedKeys = node.keys.subList(middle + 1, node.keys.size());
+        List<Node<K>> movedChildren = node.children.subList(middle + 1, node.children.size());
+        right.keys.addAll(movedKeys);
+        right.children.addAll(movedChildren);
+        movedKeys.clear();
+        movedChildren.clear();
+        node.keys.remove(middle);
+
+        return new Split<>(separator, right);
+    }
+
+    // Keys equal to a separator live in the right subtree.
+    private int childIndex(InternalNode<K> node, K key) {
+        int index = Collections.binarySearch(node.keys, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private LeafNode<K, V> findLeaf(K key) {
+        Node<K> node = this.root;
+        if (node == null) {
+            return null;
+        }
+
+        while (!node.isLeaf()) {
+            InternalNode<K> internal = (InternalNode<K>) node;
+            node = internal.children.get(childIndex(internal, key));
+        }
+
+        return (LeafNode<K, V>) node;
+    }
+
+    public Cursor scan(K lo, K hi) {
+        if (lo != null && hi != null && lo.compareTo(hi) > 0) {
+            throw new IllegalArgumentException();
+        }
+
+        if (lo == null) {
+            return new Cursor(this.head, 0, hi, true);
+        }
+
+        LeafNode<K, V> leaf = findLeaf(lo);
+        if (leaf == null) {
+            return new Cursor(null, 0, hi, true);
+        }
+
+        int index = Collections.binarySearch(leaf.keys, lo);
+        return new Cursor(leaf, index >= 0 ? index : -index - 1, hi, true);
+    }
+
+    public Cursor scanDescending(K hi, K lo) {
+        if (lo != null && hi != null && lo.compareTo(hi) > 0) {
+            throw new IllegalArgumentException();
+        }
+
+        if (hi == null) {
+            return new Cursor(this.tail, this.tail == null ? -1 : this.tail.keys.size() - 1, lo, false);
+        }
+
+        LeafNode<K, V> leaf = findLeaf(hi);
+        if (leaf == null) {
+            return new Cursor(null, -1, lo, false);
+        }
+
+        int index = Collections.binarySearch(leaf.keys, hi);
+        return new Cursor(leaf, index >= 0 ? index : -index - 2, lo, false);
+    }
+
+    public Iterable<K> keys() {
+        return () -> new Iterator<>() {
+            private final Cursor cursor = scan(null, null);
+
+            @Override
+            public boolean hasNext() {
+                return this.cursor.hasNext();
+            }
+
+            @Override
+            public K next() {
+                return this.cursor.next().getKey();
+            }
+        };
+    }
+
+    // Walks the leaf chain only; the tree is descended once, when the cursor is created.
+    public class Cursor implements Iterator<Map.Entry<K, V>> {
+        private LeafNode<K, V> leaf;
+        private int index;
+        private final K bound;
+        private final boolean ascending;
+
+        private Cursor(LeafNode<K, V> leaf, int index, K bound, boolean ascending) {
+            this.leaf = leaf;
+            this.index = index;
+            this.bound = bound;
+            this.ascending = ascending;
+            settle();
+        }
+
+        private void settle() {
+            if (this.ascending) {
+                while (this.leaf != null && this.index >= this.leaf.keys.size()) {
+                    this.leaf = this.leaf.next;
+                    this.index = 0;
+                }
+            } else {
+                while (this.leaf != null && this.index < 0) {
+                    this.leaf = this.leaf.prev;
+                    this.index = this.leaf == null ? -1 : this.leaf.keys.size() - 1;
+                }
+            }
+
+            if (this.leaf != null && this.bound != null) {
+                int compare = this.leaf.keys.get(this.index).compareTo(this.bound);
+                if (this.ascending ? compare > 0 : compare < 0) {
+                    this.leaf = null;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.leaf != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (this.leaf == null) {
+                throw new NoSuchElementException();
+            }
+
+            Map.Entry<K, V> entry = new AbstractMap.SimpleImmutableEntry<>(
+                    this.leaf.keys.get(this.index), this.leaf.values.get(this.index));
+
+            this.index += this.ascending ? 1 : -1;
+            settle();
+
+            return entry;
+        }
+    }
+
+    Node<K> getRoot() {
+        return this.root;
+    }
+
+    BPlusTreeBulkLoader.Target<K, V, Node<K>> bulkTarget() {
+        if (this.root != null) {
+            throw new IllegalStateException("Bulk loading needs an empty tree");
+        }
+
+        return new BPlusTreeBulkLoader.Target<>() {
+            @Override
+            public Node<K> leaf(List<K> keys, List<V> values) {
+                LeafNode<K, V> leaf = new LeafNode<>();
+                leaf.keys.addAll(keys);
+                leaf.values.addAll(values);
+                if (head == null) {
+                    head = leaf;
+                }
+                tail = leaf;
+                return leaf;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void link(Node<K> left, Node<K> right) {
+                ((LeafNode<K, V>) left).next = (LeafNode<K, V>) right;
+                ((LeafNode<K, V>) right).prev = (LeafNode<K, V>) left;
+            }
+
+            @Override
+            public Node<K> internal(List<K> separators, List<Node<K>> children) {
+                InternalNode<K> node = new InternalNode<>();
+                node.keys.addAll(separators);
+                node.children.addAll(children);
+                return node;
+            }
+
+            @Override
+            public void finish(Node<K> root, int height, long size) {
+                if (size == 0) {
+                    head = null;
+                    tail = null;
+                    return;
+                }
+                BPlusTree.this.root = root;
+                BPlusTree.this.size = (int) size;
+            }
+        };
+    }
+
+    public String getAsString() {
+        StringBuilder out = new StringBuilder();
+        recursivePrint(this.root, out);
+        return out.toString().trim();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void recursivePrint(Node<K> node, StringBuilder out) {
+        if (node == null) {
+            return;
+        }
+
+        for (int i = 0; i < node.keys.size(); i++) {
+            if (i > 0) {
+                out.append(" ");
+            }
+            out.append(node.keys.get(i));
+        }
+        out.append(System.lineSeparator());
+
+        if (!node.isLeaf()) {
+            for (Node<K> child : ((InternalNode<K>) node).children) {
+                recursivePrint(child, out);
+            }
+        }
+    }
+}
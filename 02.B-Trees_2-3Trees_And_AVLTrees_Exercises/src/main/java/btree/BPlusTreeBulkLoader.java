@@ -0,0 +1,195 @@
+package btree;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Builds a B+ tree bottom-up from entries sorted by strictly increasing key, in a single pass
+// and without a single split. Only the rightmost two nodes of each level are kept in memory, so
+// the two last nodes of a level can be evened out before they are written.
+public final class BPlusTreeBulkLoader {
+
+    public static final double DEFAULT_FILL_FACTOR = 0.9;
+
+    private BPlusTreeBulkLoader() {
+    }
+
+    interface Target<K, V, N> {
+        N leaf(List<K> keys, List<V> values);
+
+        void link(N left, N right);
+
+        N internal(List<K> separators, List<N> children);
+
+        void finish(N root, int height, long size);
+    }
+
+    public static <K extends Comparable<K>, V> BPlusTree<K, V> load(
+            Iterator<? extends Map.Entry<K, V>> sorted, int order, double fillFactor) {
+        BPlusTree<K, V> tree = new BPlusTree<>(order);
+        int leafSize = scaled(order - 1, fillFactor, 1);
+        int fanout = scaled(order, fillFactor, 2);
+        build(sorted, tree.bulkTarget(), leafSize, fanout);
+        return tree;
+    }
+
+    public static <K extends Comparable<K>, V> BPlusTree<K, V> load(
+            Stream<? extends Map.Entry<K, V>> sorted, int order, double fillFactor) {
+        return load(sorted.iterator(), order, fillFactor);
+    }
+
+    // The tree must be empty. Pages are written straight to the page file and the tree is
+    // checkpointed once at the end, so a crash in between leaves the tree empty.
+    public static void load(Iterator<? extends Map.Entry<Long, Long>> sorted, DiskBPlusTree tree, double fillFactor) {
+        int leafSize = scaled(tree.getLeafCapacity(), fillFactor, 1);
+        int fanout = scaled(tree.getInternalCapacity() + 1, fillFactor, 2);
+        build(sorted, tree.bulkTarget(), leafSize, fanout);
+    }
+
+    private static int scaled(int capacity, double fillFactor, int minimum) {
+        if (!(fillFactor > 0 && fillFactor <= 1)) {
+            throw new IllegalArgumentException("Fill factor must be in (0, 1]");
+        }
+        return Math.max(minimum, (int) (capacity * fillFactor));
+    }
+
+    private static final class Run {
+        private final List<Object> keys = new ArrayList<>();
+        private final List<Object> items = new ArrayList<>();
+        private Object min;
+    }
+
+    private static final class Level {
+        private Run previous;
+        private Run current = new Run();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final class Builder<K extends Comparable<K>> {
+        private final Target target;
+        private final int leafSize;
+        private final int fanout;
+        private final List<Level> levels = new ArrayList<>();
+        private Object lastLeaf;
+
+        private Builder(Target target, int leafSize, int fanout) {
+            this.target = target;
+            this.leafSize = leafSize;
+            this.fanout = fanout;
+            this.levels.add(new Level());
+        }
+
+        private void addEntry(K key, Object value) {
+            Level leaves = this.levels.get(0);
+            if (leaves.current.items.size() == this.leafSize) {
+                roll(leaves, 0);
+            }
+
+            Run run = leaves.current;
+            if (run.items.isEmpty()) {
+                run.min = key;
+            }
+            run.keys.add(key);
+            run.items.add(value);
+        }
+
+        private void addChild(int level, Object child, Object min) {
+            if (level == this.levels.size()) {
+                this.levels.add(new Level());
+            }
+
+            Level nodes = this.levels.get(level);
+            if (nodes.current.items.size() == this.fanout) {
+                roll(nodes, level);
+            }
+
+            Run run = nodes.current;
+            if (run.items.isEmpty()) {
+                run.min = min;
+            } else {
+                run.keys.add(min);
+            }
+            run.items.add(child);
+        }
+
+        private void roll(Level nodes, int level) {
+            if (nodes.previous != null) {
+                addChild(level + 1, create(nodes.previous, level), nodes.previous.min);
+            }
+            nodes.previous = nodes.current;
+            nodes.current = new Run();
+        }
+
+        private Object create(Run run, int level) {
+            if (level > 0) {
+                return this.target.internal(run.keys, run.items);
+            }
+
+            Object leaf = this.target.leaf(run.keys, run.items);
+            if (this.lastLeaf != null) {
+                this.target.link(this.lastLeaf, leaf);
+            }
+            this.lastLeaf = leaf;
+            return leaf;
+        }
+
+        private void finish(long size) {
+            for (int level = 0; ; level++) {
+                Level nodes = this.levels.get(level);
+
+                if (nodes.previous == null && level + 1 == this.levels.size()) {
+                    this.target.finish(create(nodes.current, level), level + 1, size);
+                    return;
+                }
+
+                if (nodes.previous != null) {
+                    balance(nodes.previous, nodes.current, level);
+                    addChild(level + 1, create(nodes.previous, level), nodes.previous.min);
+                }
+                addChild(level + 1, create(nodes.current, level), nodes.current.min);
+            }
+        }
+
+        // Moves items from the tail of the previous run so the last run is at least half full.
+        private void balance(Run previous, Run current, int level) {
+            int target = (previous.items.size() + current.items.size()) / 2;
+
+            while (current.items.size() < target) {
+                Object item = previous.items.remove(previous.items.size() - 1);
+                current.items.add(0, item);
+
+                if (level == 0) {
+                    current.keys.add(0, previous.keys.remove(previous.keys.size() - 1));
+                    current.min = current.keys.get(0);
+                } else {
+                    current.keys.add(0, current.min);
+                    current.min = previous.keys.remove(previous.keys.size() - 1);
+                }
+            }
+        }
+    }
+
+    private static <K extends Comparable<K>, V, N> void build(
+            Iterator<? extends Map.Entry<K, V>> sorted, Target<K, V, N> target, int leafSize, int fanout) {
+        Builder<K> builder = new Builder<>(target, leafSize, fanout);
+        K previous = null;
+        long size = 0;
+
+        while (sorted.hasNext()) {
+            Map.Entry<K, V> entry = sorted.next();
+            K key = entry.getKey();
+
+            if (key == null || (previous != null && previous.compareTo(key) >= 0)) {
+                throw new IllegalArgumentException("Entries must be sorted by strictly increasing key");
+            }
+
+            builder.addEntry(key, entry.getValue());
+            previous = key;
+            size++;
+        }
+
+        builder.finish(size);
+    }
+}
@@ -0,0 +1,214 @@
+package btree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BufferPool {
+
+    private final PageFile file;
+    private final Frame[] frames;
+    private final Map<Long, Frame> pageTable;
+    private int clockHand;
+    private int dirtyCount;
+    private boolean noSteal;
+
+    private long hits;
+    private long misses;
+    private long writes;
+
+    public BufferPool(PageFile file, int capacity) {
+        if (capacity < 4) {
+            throw new IllegalArgumentException("Capacity must be at least 4 pages");
+        }
+
+        this.file = file;
+        this.frames = new Frame[capacity];
+        this.pageTable = new HashMap<>(capacity * 2);
+
+        for (int i = 0; i < capacity; i++) {
+            this.frames[i] = new Frame(ByteBuffer.allocateDirect(file.getPageSize()));
+        }
+    }
+
+    public class Frame {
+        private final ByteBuffer data;
+        private long pageId = -1;
+        private int pinCount;
+        private boolean dirty;
+        private boolean referenced;
+
+        private Frame(ByteBuffer data) {
+            this.data = data;
+        }
+
+        public ByteBuffer data() {
+            return this.data;
+        }
+
+        public long getPageId() {
+            return this.pageId;
+        }
+
+        public void markDirty() {
+            if (!this.dirty) {
+                this.dirty = true;
+                dirtyCount++;
+            }
+        }
+
+        public void unpin() {
+            if (this.pinCount == 0) {
+                throw new IllegalStateException("Page " + this.pageId + " is not pinned");
+            }
+            this.pinCount--;
+        }
+    }
+
+    public PageFile getFile() {
+        return this.file;
+    }
+
+    public int getCapacity() {
+        return this.frames.length;
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public long getWrites() {
+        return this.writes;
+    }
+
+    public int getDirtyCount() {
+        return this.dirtyCount;
+    }
+
+    // With no-steal, dirty pages only leave the pool through flush, never through eviction.
+    public void setNoSteal(boolean noSteal) {
+        this.noSteal = noSteal;
+    }
+
+    public List<Frame> getDirtyFrames() {
+        List<Frame> dirtyFrames = new ArrayList<>(this.dirtyCount);
+        for (Frame frame : this.frames) {
+            if (frame.dirty) {
+                dirtyFrames.add(frame);
+            }
+        }
+        return dirtyFrames;
+    }
+
+    public Frame fetch(long pageId) {
+        Frame frame = this.pageTable.get(pageId);
+
+        if (frame != null) {
+            this.hits++;
+        } else {
+            this.misses++;
+            frame = victim();
+            try {
+                this.file.read(pageId, frame.data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            assign(frame, pageId);
+        }
+
+        frame.pinCount++;
+        frame.referenced = true;
+        return frame;
+    }
+
+    // New pages start zeroed and dirty, so they reach the file on eviction or flush.
+    public Frame allocate() {
+        Frame frame = victim();
+        long pageId = this.file.allocate();
+
+        frame.data.clear();
+        while (frame.data.hasRemaining()) {
+            frame.data.putLong(0L);
+        }
+        frame.data.clear();
+
+        assign(frame, pageId);
+        frame.pinCount = 1;
+        frame.referenced = true;
+        frame.markDirty();
+        return frame;
+    }
+
+    public void flush() {
+        for (Frame frame : this.frames) {
+            if (frame.dirty) {
+                writeBack(frame);
+            }
+        }
+
+        try {
+            this.file.sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void assign(Frame frame, long pageId) {
+        frame.pageId = pageId;
+        frame.dirty = false;
+        this.pageTable.put(pageId, frame);
+    }
+
+    // CLOCK: a referenced frame gets a second chance, pinned frames are never evicted.
+    private Frame victim() {
+        for (int step = 0; step < this.frames.length * 2; step++) {
+            Frame frame = this.frames[this.clockHand];
+            this.clockHand = (this.clockHand + 1) % this.frames.length;
+
+            if (frame.pinCount > 0) {
+                continue;
+            }
+
+            if (frame.referenced) {
+                frame.referenced = false;
+                continue;
+            }
+
+            if (frame.dirty && this.noSteal) {
+                continue;
+            }
+
+            if (frame.pageId >= 0) {
+                if (frame.dirty) {
+                    writeBack(frame);
+                }
+                this.pageTable.remove(frame.pageId);
+                frame.pageId = -1;
+            }
+
+            return frame;
+        }
+
+        throw new IllegalStateException("All " + this.frames.length + " buffer pool frames are pinned"
+                + (this.noSteal ? " or dirty" : ""));
+    }
+
+    private void writeBack(Frame frame) {
+        try {
+            this.file.write(frame.pageId, frame.data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        frame.dirty = false;
+        this.dirtyCount--;
+        this.writes++;
+    }
+}
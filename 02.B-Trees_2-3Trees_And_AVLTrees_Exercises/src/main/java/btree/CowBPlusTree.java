@@ -0,0 +1,662 @@
+package btree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Copy-on-write B+ tree over a memory-mapped file, in the style of LMDB. Pages are never changed
+// once a transaction that wrote them has committed: a write transaction copies the path it
+// modifies and commits by writing a new meta page into whichever of the two meta slots is older.
+// A reader pins the meta it started from and walks immutable pages without locks or copies, and
+// a crash at any point leaves at least one intact meta pointing to a complete tree.
+public class CowBPlusTree implements Closeable {
+
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    public static final int DEFAULT_SEGMENT_PAGES = 4096;
+
+    private static final int MAGIC = 0xC0B7EE01;
+    private static final long FIRST_DATA_PAGE = 2;
+
+    private static final int META_MAGIC = 0;
+    private static final int META_PAGE_SIZE = 4;
+    private static final int META_TXN = 8;
+    private static final int META_ROOT = 16;
+    private static final int META_SIZE = 24;
+    private static final int META_PAGE_COUNT = 32;
+    private static final int META_HEIGHT = 40;
+    private static final int META_CHECKSUM = 44;
+
+    private static final byte LEAF = 0;
+    private static final byte INTERNAL = 1;
+
+    private static final int NODE_TYPE = 0;
+    private static final int NODE_COUNT = 4;
+    private static final int NODE_DATA = 8;
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final int segmentPages;
+    private final int leafCapacity;
+    private final int internalCapacity;
+    private final ReentrantLock writerLock = new ReentrantLock();
+    private final Set<Snapshot> readers = ConcurrentHashMap.newKeySet();
+
+    // Writer-only state, guarded by writerLock.
+    private MappedByteBuffer[] segments;
+    private long pageCount;
+    private final Deque<Long> freePages = new ArrayDeque<>();
+    private final TreeMap<Long, List<Long>> pendingFree = new TreeMap<>();
+
+    private volatile State current;
+
+    public CowBPlusTree(Path path) throws IOException {
+        this(path, DEFAULT_PAGE_SIZE, DEFAULT_SEGMENT_PAGES);
+    }
+
+    public CowBPlusTree(Path path, int pageSize, int segmentPages) throws IOException {
+        if (pageSize < 64 || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Page size must be a power of two of at least 64 bytes");
+        }
+        if (segmentPages < FIRST_DATA_PAGE + 1 || (long) pageSize * segmentPages > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment must hold the meta pages and fit one mapping");
+        }
+
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.pageSize = pageSize;
+        this.segmentPages = segmentPages;
+        this.leafCapacity = (pageSize - NODE_DATA) / 16;
+        this.internalCapacity = (pageSize - NODE_DATA - 8) / 16;
+        this.segments = new MappedByteBuffer[0];
+
+        if (this.channel.size() == 0) {
+            this.pageCount = FIRST_DATA_PAGE + 1;
+            ensureMapped(this.pageCount);
+            this.segments[0].put(pageOffset(FIRST_DATA_PAGE) + NODE_TYPE, LEAF);
+            State initial = new State(0, FIRST_DATA_PAGE, 0, 1, this.segments);
+            writeMeta(initial);
+            this.current = initial;
+        } else {
+            ensureMapped((this.channel.size() + pageSize - 1) / pageSize);
+            this.current = readMeta(path);
+            rebuildFreeList();
+        }
+    }
+
+    private static final class State {
+        private final long txnId;
+        private final long root;
+        private final long size;
+        private final int height;
+        private final MappedByteBuffer[] segments;
+
+        private State(long txnId, long root, long size, int height, MappedByteBuffer[] segments) {
+            this.txnId = txnId;
+            this.root = root;
+            this.size = size;
+            this.height = height;
+            this.segments = segments;
+        }
+    }
+
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    public long size() {
+        return this.current.size;
+    }
+
+    public long get(long key, long defaultValue) {
+        try (Snapshot snapshot = snapshot()) {
+            return snapshot.get(key, defaultValue);
+        }
+    }
+
+    public void put(long key, long value) {
+        try (WriteTransaction txn = beginWrite()) {
+            txn.put(key, value);
+            txn.commit();
+        }
+    }
+
+    // Registers before re-reading the current meta, so the writer either sees this reader when
+    // it decides which pages to reuse, or the reader retries against a newer meta.
+    public Snapshot snapshot() {
+        while (true) {
+            State state = this.current;
+            Snapshot snapshot = new Snapshot(state);
+            this.readers.add(snapshot);
+
+            if (this.current == state) {
+                return snapshot;
+            }
+            this.readers.remove(snapshot);
+        }
+    }
+
+    public WriteTransaction beginWrite() {
+        this.writerLock.lock();
+        reclaimFreedPages();
+        return new WriteTransaction(this.current);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writerLock.lock();
+        try {
+            this.channel.close();
+        } finally {
+            this.writerLock.unlock();
+        }
+    }
+
+    public class Snapshot implements AutoCloseable {
+        private final State state;
+
+        private Snapshot(State state) {
+            this.state = state;
+        }
+
+        public long getTxnId() {
+            return this.state.txnId;
+        }
+
+        public long size() {
+            return this.state.size;
+        }
+
+        public long get(long key, long defaultValue) {
+            MappedByteBuffer[] segments = this.state.segments;
+            long page = this.state.root;
+
+            while (type(segments, page) == INTERNAL) {
+                page = child(segments, page, childIndex(segments, page, key));
+            }
+
+            int index = search(segments, page, key);
+            return index >= 0 ? leafValue(segments, page, index) : defaultValue;
+        }
+
+        public Cursor scan(long lo, long hi) {
+            if (lo > hi) {
+                throw new IllegalArgumentException();
+            }
+            return new Cursor(this.state, lo, hi);
+        }
+
+        @Override
+        public void close() {
+            readers.remove(this);
+        }
+    }
+
+    // Iterates one snapshot; leaves have no sibling links, so the cursor keeps its path.
+    public class Cursor {
+        private final MappedByteBuffer[] segments;
+        private final long hi;
+        private final Deque<long[]> path = new ArrayDeque<>();
+        private long leaf;
+        private int index;
+        private boolean positioned;
+
+        private Cursor(State state, long lo, long hi) {
+            this.segments = state.segments;
+            this.hi = hi;
+
+            long page = state.root;
+            while (type(this.segments, page) == INTERNAL) {
+                int childIndex = childIndex(this.segments, page, lo);
+                this.path.push(new long[]{page, childIndex});
+                page = child(this.segments, page, childIndex);
+            }
+
+            int position = search(this.segments, page, lo);
+            this.leaf = page;
+            this.index = (position >= 0 ? position : -position - 1) - 1;
+        }
+
+        public boolean next() {
+            this.index++;
+
+            while (this.leaf >= 0 && this.index >= count(this.segments, this.leaf)) {
+                this.leaf = nextLeaf();
+                this.index = 0;
+            }
+
+            this.positioned = this.leaf >= 0 && keyAt(this.segments, this.leaf, this.index) <= this.hi;
+            if (!this.positioned) {
+                this.leaf = -1;
+            }
+            return this.positioned;
+        }
+
+        public long key() {
+            checkPositioned();
+            return keyAt(this.segments, this.leaf, this.index);
+        }
+
+        public long value() {
+            checkPositioned();
+            return leafValue(this.segments, this.leaf, this.index);
+        }
+
+        private void checkPositioned() {
+            if (!this.positioned) {
+                throw new NoSuchElementException();
+            }
+        }
+
+        private long nextLeaf() {
+            while (!this.path.isEmpty()) {
+                long[] top = this.path.peek();
+                if (top[1] < count(this.segments, top[0])) {
+                    top[1]++;
+                    long page = child(this.segments, top[0], (int) top[1]);
+                    while (type(this.segments, page) == INTERNAL) {
+                        this.path.push(new long[]{page, 0});
+                        page = child(this.segments, page, 0);
+                    }
+                    return page;
+                }
+                this.path.pop();
+            }
+            return -1;
+        }
+    }
+
+    // Single writer: holds the writer lock from beginWrite until commit or close. Pages written
+    // by this transaction are changed in place; every other page is copied first.
+    public class WriteTransaction implements AutoCloseable {
+        private final State base;
+        private final Set<Long> fresh = new HashSet<>();
+        private final List<Long> freed = new ArrayList<>();
+        private final BitSet touchedSegments = new BitSet();
+        private long root;
+        private long size;
+        private int height;
+        private boolean finished;
+
+        private WriteTransaction(State base) {
+            this.base = base;
+            this.root = base.root;
+            this.size = base.size;
+            this.height = base.height;
+        }
+
+        public long get(long key, long defaultValue) {
+            checkOpen();
+            long page = this.root;
+
+            while (type(segments, page) == INTERNAL) {
+                page = child(segments, page, childIndex(segments, page, key));
+            }
+
+            int index = search(segments, page, key);
+            return index >= 0 ? leafValue(segments, page, index) : defaultValue;
+        }
+
+        public void put(long key, long value) {
+            checkOpen();
+            long[] result = insert(this.root, key, value);
+            this.root = result[0];
+
+            if (result.length > 1) {
+                long newRoot = allocate();
+                setType(newRoot, INTERNAL);
+                setCount(newRoot, 1);
+                setKey(newRoot, 0, result[1]);
+                setChild(newRoot, 0, this.root);
+                setChild(newRoot, 1, result[2]);
+                this.root = newRoot;
+                this.height++;
+            }
+        }
+
+        public void commit() {
+            checkOpen();
+            this.finished = true;
+
+            try {
+                for (int i = this.touchedSegments.nextSetBit(0); i >= 0; i = this.touchedSegments.nextSetBit(i + 1)) {
+                    segments[i].force();
+                }
+
+                State committed = new State(this.base.txnId + 1, this.root, this.size, this.height, segments);
+                writeMeta(committed);
+                current = committed;
+
+                if (!this.freed.isEmpty()) {
+                    pendingFree.put(committed.txnId, this.freed);
+                }
+            } finally {
+                writerLock.unlock();
+            }
+        }
+
+        // Rolls back unless committed; pages written so far were never visible to anyone.
+        @Override
+        public void close() {
+            if (this.finished) {
+                return;
+            }
+
+            this.finished = true;
+            freePages.addAll(this.fresh);
+            writerLock.unlock();
+        }
+
+        private void checkOpen() {
+            if (this.finished) {
+                throw new IllegalStateException("Transaction already finished");
+            }
+        }
+
+        // Returns {page} or, after a split, {page, separator, right page}. Nodes split as soon as
+        // they fill up, so an insert always has room before the split.
+        private long[] insert(long page, long key, long value) {
+            if (type(segments, page) == LEAF) {
+                int count = count(segments, page);
+                int index = search(segments, page, key);
+
+                page = writable(page);
+                if (index >= 0) {
+                    setLeafValue(page, index, value);
+                    return new long[]{page};
+                }
+
+                this.size++;
+                int insertAt = -index - 1;
+                for (int i = count; i > insertAt; i--) {
+                    setKey(page, i, keyAt(segments, page, i - 1));
+                    setLeafValue(page, i, leafValue(segments, page, i - 1));
+                }
+                setKey(page, insertAt, key);
+                setLeafValue(page, insertAt, value);
+                setCount(page, count + 1);
+
+                if (count + 1 < leafCapacity) {
+                    return new long[]{page};
+                }
+
+                int leftCount = (count + 1) / 2;
+                long right = allocate();
+                setType(right, LEAF);
+                setCount(right, count + 1 - leftCount);
+                for (int i = leftCount; i <= count; i++) {
+                    setKey(right, i - leftCount, keyAt(segments, page, i));
+                    setLeafValue(right, i - leftCount, leafValue(segments, page, i));
+                }
+                setCount(page, leftCount);
+                return new long[]{page, keyAt(segments, right, 0), right};
+            }
+
+            int childIndex = childIndex(segments, page, key);
+            long[] result = insert(child(segments, page, childIndex), key, value);
+
+            page = writable(page);
+            setChild(page, childIndex, result[0]);
+            if (result.length == 1) {
+                return new long[]{page};
+            }
+
+            int count = count(segments, page);
+            for (int i = count; i > childIndex; i--) {
+                setKey(page, i, keyAt(segments, page, i - 1));
+                setChild(page, i + 1, child(segments, page, i));
+            }
+            setKey(page, childIndex, result[1]);
+            setChild(page, childIndex + 1, result[2]);
+            setCount(page, ++count);
+
+            if (count < internalCapacity) {
+                return new long[]{page};
+            }
+
+            int middle = count / 2;
+            long right = allocate();
+            setType(right, INTERNAL);
+            setCount(right, count - middle - 1);
+            setChild(right, 0, child(segments, page, middle + 1));
+            for (int i = middle + 1; i < count; i++) {
+                setKey(right, i - middle - 1, keyAt(segments, page, i));
+                setChild(right, i - middle, child(segments, page, i + 1));
+            }
+            setCount(page, middle);
+            return new long[]{page, keyAt(segments, page, middle), right};
+        }
+
+        private long writable(long page) {
+            if (this.fresh.contains(page)) {
+                return page;
+            }
+
+            long copy = allocate();
+            byte[] bytes = new byte[pageSize];
+            segment(segments, page).get(pageOffset(page), bytes);
+            segment(segments, copy).put(pageOffset(copy), bytes);
+            this.freed.add(page);
+            return copy;
+        }
+
+        private long allocate() {
+            Long reused = freePages.poll();
+            long page = reused != null ? reused : pageCount++;
+            ensureMapped(pageCount);
+
+            MappedByteBuffer segment = segment(segments, page);
+            int offset = pageOffset(page);
+            for (int i = 0; i < pageSize; i += 8) {
+                segment.putLong(offset + i, 0L);
+            }
+
+            this.fresh.add(page);
+            this.touchedSegments.set((int) (page / segmentPages));
+            return page;
+        }
+    }
+
+    private void setType(long page, byte type) {
+        segment(this.segments, page).put(pageOffset(page) + NODE_TYPE, type);
+    }
+
+    private void setCount(long page, int count) {
+        segment(this.segments, page).putInt(pageOffset(page) + NODE_COUNT, count);
+    }
+
+    private void setKey(long page, int index, long key) {
+        segment(this.segments, page).putLong(pageOffset(page) + NODE_DATA + index * 8, key);
+    }
+
+    private void setLeafValue(long page, int index, long value) {
+        segment(this.segments, page).putLong(pageOffset(page) + NODE_DATA + (this.leafCapacity + index) * 8, value);
+    }
+
+    private void setChild(long page, int index, long child) {
+        segment(this.segments, page).putLong(pageOffset(page) + NODE_DATA + (this.internalCapacity + index) * 8, child);
+    }
+
+    private byte type(MappedByteBuffer[] segments, long page) {
+        return segment(segments, page).get(pageOffset(page) + NODE_TYPE);
+    }
+
+    private int count(MappedByteBuffer[] segments, long page) {
+        return segment(segments, page).getInt(pageOffset(page) + NODE_COUNT);
+    }
+
+    private long keyAt(MappedByteBuffer[] segments, long page, int index) {
+        return segment(segments, page).getLong(pageOffset(page) + NODE_DATA + index * 8);
+    }
+
+    private long leafValue(MappedByteBuffer[] segments, long page, int index) {
+        return segment(segments, page).getLong(pageOffset(page) + NODE_DATA + (this.leafCapacity + index) * 8);
+    }
+
+    private long child(MappedByteBuffer[] segments, long page, int index) {
+        return segment(segments, page).getLong(pageOffset(page) + NODE_DATA + (this.internalCapacity + index) * 8);
+    }
+
+    private int search(MappedByteBuffer[] segments, long page, long key) {
+        int low = 0;
+        int high = count(segments, page) - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long current = keyAt(segments, page, middle);
+
+            if (current < key) {
+                low = middle + 1;
+            } else if (current > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -(low + 1);
+    }
+
+    // Keys equal to a separator live in the right subtree.
+    private int childIndex(MappedByteBuffer[] segments, long page, long key) {
+        int index = search(segments, page, key);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private MappedByteBuffer segment(MappedByteBuffer[] segments, long page) {
+        return segments[(int) (page / this.segmentPages)];
+    }
+
+    private int pageOffset(long page) {
+        return (int) (page % this.segmentPages) * this.pageSize;
+    }
+
+    // Existing mappings are never replaced, so snapshots holding an older array stay valid.
+    private void ensureMapped(long pages) {
+        int needed = (int) ((pages + this.segmentPages - 1) / this.segmentPages);
+        if (needed <= this.segments.length) {
+            return;
+        }
+
+        MappedByteBuffer[] grown = Arrays.copyOf(this.segments, needed);
+        long segmentBytes = (long) this.segmentPages * this.pageSize;
+        try {
+            for (int i = this.segments.length; i < needed; i++) {
+                grown[i] = this.channel.map(FileChannel.MapMode.READ_WRITE, i * segmentBytes, segmentBytes);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.segments = grown;
+    }
+
+    // Pages freed by transaction T belong to the version before T, so they can be reused once
+    // no reader is older than T.
+    private void reclaimFreedPages() {
+        long oldest = this.current.txnId;
+        for (Snapshot reader : this.readers) {
+            oldest = Math.min(oldest, reader.getTxnId());
+        }
+
+        Iterator<Map.Entry<Long, List<Long>>> iterator = this.pendingFree.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, List<Long>> entry = iterator.next();
+            if (entry.getKey() > oldest) {
+                break;
+            }
+            this.freePages.addAll(entry.getValue());
+            iterator.remove();
+        }
+    }
+
+    private void writeMeta(State state) {
+        MappedByteBuffer segment = this.segments[0];
+        int offset = (int) (state.txnId % 2) * this.pageSize;
+
+        segment.putInt(offset + META_MAGIC, MAGIC)
+                .putInt(offset + META_PAGE_SIZE, this.pageSize)
+                .putLong(offset + META_TXN, state.txnId)
+                .putLong(offset + META_ROOT, state.root)
+                .putLong(offset + META_SIZE, state.size)
+                .putLong(offset + META_PAGE_COUNT, this.pageCount)
+                .putInt(offset + META_HEIGHT, state.height);
+        segment.putLong(offset + META_CHECKSUM, metaChecksum(segment, offset));
+        segment.force(offset, this.pageSize);
+    }
+
+    private State readMeta(Path path) throws IOException {
+        MappedByteBuffer segment = this.segments[0];
+        int best = -1;
+        long bestTxn = -1;
+
+        for (int slot = 0; slot < 2; slot++) {
+            int offset = slot * this.pageSize;
+            boolean valid = segment.getInt(offset + META_MAGIC) == MAGIC
+                    && segment.getInt(offset + META_PAGE_SIZE) == this.pageSize
+                    && segment.getLong(offset + META_CHECKSUM) == metaChecksum(segment, offset);
+
+            if (valid && segment.getLong(offset + META_TXN) > bestTxn) {
+                best = offset;
+                bestTxn = segment.getLong(offset + META_TXN);
+            }
+        }
+
+        if (best < 0) {
+            throw new IOException(path + " has no valid meta page for " + this.pageSize + " byte pages");
+        }
+
+        this.pageCount = segment.getLong(best + META_PAGE_COUNT);
+        ensureMapped(this.pageCount);
+        return new State(bestTxn, segment.getLong(best + META_ROOT), segment.getLong(best + META_SIZE),
+                segment.getInt(best + META_HEIGHT), this.segments);
+    }
+
+    private static long metaChecksum(MappedByteBuffer segment, int offset) {
+        byte[] bytes = new byte[META_CHECKSUM];
+        segment.get(offset, bytes);
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    // The free list is not persisted: every page the committed tree cannot reach is free.
+    private void rebuildFreeList() {
+        BitSet reachable = new BitSet();
+        Deque<Long> stack = new ArrayDeque<>();
+        stack.push(this.current.root);
+
+        while (!stack.isEmpty()) {
+            long page = stack.pop();
+            reachable.set((int) page);
+            if (type(this.segments, page) == INTERNAL) {
+                for (int i = 0; i <= count(this.segments, page); i++) {
+                    stack.push(child(this.segments, page, i));
+                }
+            }
+        }
+
+        for (long page = FIRST_DATA_PAGE; page < this.pageCount; page++) {
+            if (!reachable.get((int) page)) {
+                this.freePages.add(page);
+            }
+        }
+    }
+}
@@ -0,0 +1,636 @@
+package btree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+public class DiskBPlusTree implements Closeable {
+
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+    public static final int DEFAULT_POOL_CAPACITY = 256;
+    public static final long CHECKPOINT_LOG_BYTES = 64L * 1024 * 1024;
+
+    private static final int MAGIC = 0xB7EE0001;
+    private static final long META_PAGE = 0;
+    // Page 0 is always the meta page, so 0 doubles as "no sibling" in the leaf links.
+    private static final long NO_PAGE = 0;
+
+    private static final int META_MAGIC = 0;
+    private static final int META_PAGE_SIZE = 4;
+    private static final int META_ROOT = 8;
+    private static final int META_SIZE = 16;
+    private static final int META_HEIGHT = 24;
+
+    private static final byte LEAF = 0;
+    private static final byte INTERNAL = 1;
+
+    private static final int NODE_TYPE = 0;
+    private static final int NODE_COUNT = 4;
+    private static final int NODE_NEXT = 8;
+    private static final int NODE_PREV = 16;
+    private static final int NODE_DATA = 24;
+
+    private final PageFile file;
+    private final BufferPool pool;
+    private final WriteAheadLog wal;
+    private final int leafCapacity;
+    private final int internalCapacity;
+
+    private long root;
+    private long size;
+    private int height;
+
+    public DiskBPlusTree(Path path) throws IOException {
+        this(path, DEFAULT_PAGE_SIZE, DEFAULT_POOL_CAPACITY);
+    }
+
+    public DiskBPlusTree(Path path, int pageSize, int poolCapacity) throws IOException {
+        this(path, pageSize, poolCapacity, null);
+    }
+
+    // With a log the tree owns it: pages only reach the file at checkpoints, every put is
+    // logged first, and opening the tree replays whatever the last checkpoint missed.
+    public DiskBPlusTree(Path path, int pageSize, int poolCapacity, WriteAheadLog wal) throws IOException {
+        this.file = new PageFile(path, pageSize);
+        this.pool = new BufferPool(this.file, poolCapacity);
+        this.wal = wal;
+        this.leafCapacity = (pageSize - NODE_DATA) / 16;
+        this.internalCapacity = (pageSize - NODE_DATA - 8) / 16;
+
+        if (wal != null) {
+            wal.restorePages(this.file);
+            this.pool.setNoSteal(true);
+        }
+
+        if (this.file.getPageCount() == 0) {
+            BufferPool.Frame meta = this.pool.allocate();
+            BufferPool.Frame leaf = this.pool.allocate();
+            leaf.data().put(NODE_TYPE, LEAF);
+            leaf.unpin();
+
+            this.root = leaf.getPageId();
+            this.height = 1;
+            meta.data().putInt(META_MAGIC, MAGIC).putInt(META_PAGE_SIZE, pageSize);
+            meta.unpin();
+            writeMeta();
+        } else {
+            BufferPool.Frame meta = this.pool.fetch(META_PAGE);
+            ByteBuffer data = meta.data();
+            try {
+                if (data.getInt(META_MAGIC) != MAGIC || data.getInt(META_PAGE_SIZE) != pageSize) {
+                    throw new IOException(path + " is not a B+ tree file with " + pageSize + " byte pages");
+                }
+                this.root = data.getLong(META_ROOT);
+                this.size = data.getLong(META_SIZE);
+                this.height = data.getInt(META_HEIGHT);
+            } finally {
+                meta.unpin();
+            }
+        }
+
+        if (wal != null) {
+            wal.redo(this::redo);
+            checkpoint();
+        }
+    }
+
+    public long size() {
+        return this.size;
+    }
+
+    public int height() {
+        return this.height;
+    }
+
+    public BufferPool getBufferPool() {
+        return this.pool;
+    }
+
+    public int getLeafCapacity() {
+        return this.leafCapacity;
+    }
+
+    public int getInternalCapacity() {
+        return this.internalCapacity;
+    }
+
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    public long get(long key, long defaultValue) {
+        long leafId = findLeaf(key);
+        BufferPool.Frame frame = this.pool.fetch(leafId);
+        try {
+            ByteBuffer data = frame.data();
+            int index = search(data, key, count(data));
+            return index >= 0 ? leafValue(data, index) : defaultValue;
+        } finally {
+            frame.unpin();
+        }
+    }
+
+    public void put(long key, long value) {
+        if (this.wal == null) {
+            apply(key, value);
+            return;
+        }
+
+        try {
+            reserveFrames();
+            this.wal.logPut(key, value);
+            apply(key, value);
+            this.wal.commit();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void redo(long key, long value) {
+        reserveFrames();
+        apply(key, value);
+    }
+
+    private void apply(long key, long value) {
+        long[] split = insert(this.root, key, value);
+
+        if (split != null) {
+            BufferPool.Frame newRoot = this.pool.allocate();
+            ByteBuffer data = newRoot.data();
+            data.put(NODE_TYPE, INTERNAL);
+            data.putInt(NODE_COUNT, 1);
+            setKey(data, 0, split[0]);
+            setChild(data, 0, this.root);
+            setChild(data, 1, split[1]);
+            newRoot.unpin();
+
+            this.root = newRoot.getPageId();
+            this.height++;
+        }
+
+        writeMeta();
+    }
+
+    public Cursor scan(long lo, long hi) {
+        if (lo > hi) {
+            throw new IllegalArgumentException();
+        }
+
+        return new Cursor(findLeaf(lo), lo, hi);
+    }
+
+    // Forces logged puts to disk without writing any pages; a no-op without a log.
+    public void sync() {
+        if (this.wal == null) {
+            return;
+        }
+
+        try {
+            this.wal.sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() {
+        checkpoint();
+    }
+
+    public void checkpoint() {
+        writeMeta();
+
+        if (this.wal == null) {
+            this.pool.flush();
+            return;
+        }
+
+        try {
+            this.wal.checkpoint(this.pool.getDirtyFrames());
+            this.pool.flush();
+            this.wal.checkpointComplete();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        checkpoint();
+        if (this.wal != null) {
+            this.wal.close();
+        }
+        this.file.close();
+    }
+
+    // Bulk loading writes fresh pages only, so it can steal: the meta page keeps pointing at the
+    // old empty root until the final checkpoint.
+    BPlusTreeBulkLoader.Target<Long, Long, Long> bulkTarget() {
+        if (this.size != 0) {
+            throw new IllegalStateException("Bulk loading needs an empty tree");
+        }
+
+        this.pool.setNoSteal(false);
+
+        return new BPlusTreeBulkLoader.Target<>() {
+            @Override
+            public Long leaf(List<Long> keys, List<Long> values) {
+                BufferPool.Frame frame = pool.allocate();
+                ByteBuffer data = frame.data();
+                data.put(NODE_TYPE, LEAF);
+                data.putInt(NODE_COUNT, keys.size());
+                for (int i = 0; i < keys.size(); i++) {
+                    setKey(data, i, keys.get(i));
+                    setLeafValue(data, i, values.get(i));
+                }
+                frame.unpin();
+                return frame.getPageId();
+            }
+
+            @Override
+            public void link(Long left, Long right) {
+                BufferPool.Frame frame = pool.fetch(left);
+                frame.data().putLong(NODE_NEXT, right);
+                frame.markDirty();
+                frame.unpin();
+
+                frame = pool.fetch(right);
+                frame.data().putLong(NODE_PREV, left);
+                frame.markDirty();
+                frame.unpin();
+            }
+
+            @Override
+            public Long internal(List<Long> separators, List<Long> children) {
+                BufferPool.Frame frame = pool.allocate();
+                ByteBuffer data = frame.data();
+                data.put(NODE_TYPE, INTERNAL);
+                data.putInt(NODE_COUNT, separators.size());
+                for (int i = 0; i < separators.size(); i++) {
+                    setKey(data, i, separators.get(i));
+                }
+                for (int i = 0; i < children.size(); i++) {
+                    setChild(data, i, children.get(i));
+                }
+                frame.unpin();
+                return frame.getPageId();
+            }
+
+            @Override
+            public void finish(Long root, int height, long size) {
+                DiskBPlusTree.this.root = root;
+                DiskBPlusTree.this.height = height;
+                DiskBPlusTree.this.size = size;
+                checkpoint();
+                pool.setNoSteal(wal != null);
+            }
+        };
+    }
+
+    // Without steal every page a put dirties must fit in the pool, so checkpoint while there is
+    // still room for a split along the whole path.
+    private void reserveFrames() {
+        int reserve = 2 * this.height + 4;
+        if (this.pool.getDirtyCount() + reserve > this.pool.getCapacity()
+                || this.wal.getSize() > CHECKPOINT_LOG_BYTES) {
+            checkpoint();
+        }
+    }
+
+    // Returns {separator, right page} when the node split, null otherwise.
+    private long[] insert(long pageId, long key, long value) {
+        BufferPool.Frame frame = this.pool.fetch(pageId);
+        ByteBuffer data = frame.data();
+
+        try {
+            int count = count(data);
+
+            if (data.get(NODE_TYPE) == LEAF) {
+                int index = search(data, key, count);
+                if (index >= 0) {
+                    setLeafValue(data, index, value);
+                    frame.markDirty();
+                    return null;
+                }
+
+                this.size++;
+                int insertAt = -index - 1;
+                if (count < this.leafCapacity) {
+                    insertIntoLeaf(data, count, insertAt, key, value);
+                    frame.markDirty();
+                    return null;
+                }
+
+                return splitLeaf(frame, insertAt, key, value);
+            }
+
+            int childIndex = childIndex(data, key, count);
+            long child = child(data, childIndex);
+            frame.unpin();
+            frame = null;
+
+            long[] toFix = insert(child, key, value);
+            if (toFix == null) {
+                return null;
+            }
+
+            frame = this.pool.fetch(pageId);
+            data = frame.data();
+            if (count < this.internalCapacity) {
+                insertIntoInternal(data, count, childIndex, toFix[0], toFix[1]);
+                frame.markDirty();
+                return null;
+            }
+
+            return splitInternal(frame, childIndex, toFix[0], toFix[1]);
+        } finally {
+            if (frame != null) {
+                frame.unpin();
+            }
+        }
+    }
+
+    private void insertIntoLeaf(ByteBuffer data, int count, int index, long key, long value) {
+        for (int i = count; i > index; i--) {
+            setKey(data, i, key(data, i - 1));
+            setLeafValue(data, i, leafValue(data, i - 1));
+        }
+        setKey(data, index, key);
+        setLeafValue(data, index, value);
+        data.putInt(NODE_COUNT, count + 1);
+    }
+
+    private void insertIntoInternal(ByteBuffer data, int count, int index, long key, long rightChild) {
+        for (int i = count; i > index; i--) {
+            setKey(data, i, key(data, i - 1));
+            setChild(data, i + 1, child(data, i));
+        }
+        setKey(data, index, key);
+        setChild(data, index + 1, rightChild);
+        data.putInt(NODE_COUNT, count + 1);
+    }
+
+    private long[] splitLeaf(BufferPool.Frame frame, int insertAt, long key, long value) {
+        ByteBuffer data = frame.data();
+        int total = this.leafCapacity + 1;
+        long[] keys = new long[total];
+        long[] values = new long[total];
+
+        for (int i = 0, j = 0; i < total; i++) {
+            if (i == insertAt) {
+                keys[i] = key;
+                values[i] = value;
+            } else {
+                keys[i] = key(data, j);
+                values[i] = leafValue(data, j);
+                j++;
+            }
+        }
+
+        int leftCount = total / 2;
+        BufferPool.Frame rightFrame = this.pool.allocate();
+        ByteBuffer right = rightFrame.data();
+        long rightId = rightFrame.getPageId();
+        long nextId = data.getLong(NODE_NEXT);
+
+        try {
+            right.put(NODE_TYPE, LEAF);
+            right.putInt(NODE_COUNT, total - leftCount);
+            for (int i = leftCount; i < total; i++) {
+                setKey(right, i - leftCount, keys[i]);
+                setLeafValue(right, i - leftCount, values[i]);
+            }
+            right.putLong(NODE_NEXT, nextId);
+            right.putLong(NODE_PREV, frame.getPageId());
+        } finally {
+            rightFrame.unpin();
+        }
+
+        data.putInt(NODE_COUNT, leftCount);
+        for (int i = 0; i < leftCount; i++) {
+            setKey(data, i, keys[i]);
+            setLeafValue(data, i, values[i]);
+        }
+        data.putLong(NODE_NEXT, rightId);
+        frame.markDirty();
+
+        if (nextId != NO_PAGE) {
+            BufferPool.Frame next = this.pool.fetch(nextId);
+            next.data().putLong(NODE_PREV, rightId);
+            next.markDirty();
+            next.unpin();
+        }
+
+        return new long[]{keys[leftCount], rightId};
+    }
+
+    private long[] splitInternal(BufferPool.Frame frame, int insertAt, long key, long rightChild) {
+        ByteBuffer data = frame.data();
+        int totalKeys = this.internalCapacity + 1;
+        long[] keys = new long[totalKeys];
+        long[] children = new long[totalKeys + 1];
+
+        children[0] = child(data, 0);
+        for (int i = 0, j = 0; i < totalKeys; i++) {
+            if (i == insertAt) {
+                keys[i] = key;
+                children[i + 1] = rightChild;
+            } else {
+                keys[i] = key(data, j);
+                children[i + 1] = child(data, j + 1);
+                j++;
+            }
+        }
+
+        int middle = totalKeys / 2;
+        BufferPool.Frame rightFrame = this.pool.allocate();
+        ByteBuffer right = rightFrame.data();
+
+        try {
+            right.put(NODE_TYPE, INTERNAL);
+            right.putInt(NODE_COUNT, totalKeys - middle - 1);
+            setChild(right, 0, children[middle + 1]);
+            for (int i = middle + 1; i < totalKeys; i++) {
+                setKey(right, i - middle - 1, keys[i]);
+                setChild(right, i - middle, children[i + 1]);
+            }
+        } finally {
+            rightFrame.unpin();
+        }
+
+        data.putInt(NODE_COUNT, middle);
+        for (int i = 0; i < middle; i++) {
+            setKey(data, i, keys[i]);
+            setChild(data, i + 1, children[i + 1]);
+        }
+        frame.markDirty();
+
+        return new long[]{keys[middle], rightFrame.getPageId()};
+    }
+
+    private int find(long key) {
+        long leafId = findLeaf(key);
+        BufferPool.Frame frame = this.pool.fetch(leafId);
+        try {
+            ByteBuffer data = frame.data();
+            return search(data, key, count(data));
+        } finally {
+            frame.unpin();
+        }
+    }
+
+    private long findLeaf(long key) {
+        long pageId = this.root;
+
+        while (true) {
+            BufferPool.Frame frame = this.pool.fetch(pageId);
+            try {
+                ByteBuffer data = frame.data();
+                if (data.get(NODE_TYPE) == LEAF) {
+                    return pageId;
+                }
+                pageId = child(data, childIndex(data, key, count(data)));
+            } finally {
+                frame.unpin();
+            }
+        }
+    }
+
+    private void writeMeta() {
+        BufferPool.Frame meta = this.pool.fetch(META_PAGE);
+        meta.data()
+                .putLong(META_ROOT, this.root)
+                .putLong(META_SIZE, this.size)
+                .putInt(META_HEIGHT, this.height);
+        meta.markDirty();
+        meta.unpin();
+    }
+
+    // Keys equal to a separator live in the right subtree.
+    private int childIndex(ByteBuffer data, long key, int count) {
+        int index = search(data, key, count);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private static int search(ByteBuffer data, long key, int count) {
+        int low = 0;
+        int high = count - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long current = key(data, middle);
+
+            if (current < key) {
+                low = middle + 1;
+            } else if (current > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -(low + 1);
+    }
+
+    private static int count(ByteBuffer data) {
+        return data.getInt(NODE_COUNT);
+    }
+
+    private static long key(ByteBuffer data, int index) {
+        return data.getLong(NODE_DATA + index * 8);
+    }
+
+    private static void setKey(ByteBuffer data, int index, long key) {
+        data.putLong(NODE_DATA + index * 8, key);
+    }
+
+    private long leafValue(ByteBuffer data, int index) {
+        return data.getLong(NODE_DATA + (this.leafCapacity + index) * 8);
+    }
+
+    private void setLeafValue(ByteBuffer data, int index, long value) {
+        data.putLong(NODE_DATA + (this.leafCapacity + index) * 8, value);
+    }
+
+    private long child(ByteBuffer data, int index) {
+        return data.getLong(NODE_DATA + (this.internalCapacity + index) * 8);
+    }
+
+    private void setChild(ByteBuffer data, int index, long child) {
+        data.putLong(NODE_DATA + (this.internalCapacity + index) * 8, child);
+    }
+
+    // Copies one leaf at a time out of the pool, so no page stays pinned between calls.
+    public class Cursor {
+        private final long hi;
+        private long[] keys = new long[0];
+        private long[] values = new long[0];
+        private int count;
+        private int index;
+        private long nextLeaf;
+        private boolean positioned;
+
+        private Cursor(long leafId, long lo, long hi) {
+            this.hi = hi;
+            load(leafId);
+
+            while (this.index < this.count && this.keys[this.index] < lo) {
+                this.index++;
+            }
+            this.index--;
+        }
+
+        public boolean next() {
+            this.index++;
+            while (this.index >= this.count && this.nextLeaf != NO_PAGE) {
+                load(this.nextLeaf);
+            }
+
+            this.positioned = this.index < this.count && this.keys[this.index] <= this.hi;
+            if (!this.positioned) {
+                this.count = 0;
+                this.nextLeaf = NO_PAGE;
+            }
+            return this.positioned;
+        }
+
+        public long key() {
+            checkPositioned();
+            return this.keys[this.index];
+        }
+
+        public long value() {
+            checkPositioned();
+            return this.values[this.index];
+        }
+
+        private void checkPositioned() {
+            if (!this.positioned) {
+                throw new NoSuchElementException();
+            }
+        }
+
+        private void load(long leafId) {
+            BufferPool.Frame frame = pool.fetch(leafId);
+            try {
+                ByteBuffer data = frame.data();
+                this.count = DiskBPlusTree.count(data);
+                if (this.keys.length < this.count) {
+                    this.keys = new long[leafCapacity];
+                    this.values = new long[leafCapacity];
+                }
+                for (int i = 0; i < this.count; i++) {
+                    this.keys[i] = DiskBPlusTree.key(data, i);
+                    this.values[i] = leafValue(data, i);
+                }
+                this.nextLeaf = data.getLong(NODE_NEXT);
+                this.index = 0;
+            } finally {
+                frame.unpin();
+            }
+        }
+    }
+}
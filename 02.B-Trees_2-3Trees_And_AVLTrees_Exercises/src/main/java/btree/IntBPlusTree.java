@@ -0,0 +1,368 @@
+package btree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+// B+ tree set of ints. Internal nodes hold primitive separators searched with NodeSearch. With
+// packing enabled, key i of a leaf is stored as key - base - i: keys are distinct, so these
+// deltas never decrease, and they only count the gaps in the leaf's range. Each takes just
+// enough bits for the largest, so a run of consecutive ids packs into one bit per id and every
+// key stays randomly accessible. Without packing each key takes 32 bits. Leaves have a fixed
+// bit budget and split when it runs out.
+public class IntBPlusTree {
+    private static final int DEFAULT_ORDER = 64;
+    private static final int DEFAULT_LEAF_BYTES = 512;
+
+    private final int order;
+    private final int leafBits;
+    private final boolean packed;
+    private final NodeSearch search = NodeSearch.preferred();
+    private Node root;
+    private Leaf head;
+    private int size;
+
+    public IntBPlusTree() {
+        this(DEFAULT_ORDER, DEFAULT_LEAF_BYTES, true);
+    }
+
+    public IntBPlusTree(int order, int leafBytes, boolean packed) {
+        if (order < 3) {
+            throw new IllegalArgumentException("Order must be at least 3");
+        }
+        if (leafBytes < 16 || leafBytes % 8 != 0) {
+            throw new IllegalArgumentException("Leaf size must be a multiple of 8 bytes, at least 16");
+        }
+        this.order = order;
+        this.leafBits = leafBytes * 8;
+        this.packed = packed;
+        this.head = new Leaf();
+        this.root = this.head;
+    }
+
+    abstract static class Node {
+    }
+
+    static final class Internal extends Node {
+        int[] keys;
+        Node[] children;
+        int count;
+
+        Internal(int[] keys, Node[] children, int count) {
+            this.keys = keys;
+            this.children = children;
+            this.count = count;
+        }
+    }
+
+    final class Leaf extends Node {
+        final long[] words = new long[leafBits / 64];
+        long base;
+        int step;
+        int width;
+        int count;
+        Leaf next;
+
+        Leaf() {
+            encode(new int[0], 0, 0);
+        }
+
+        int get(int index) {
+            return (int) (this.base + (long) index * this.step + offset(index));
+        }
+
+        // Unsigned offsets in long arithmetic, so the full int range fits in 32 bits.
+        long offset(int index) {
+            long bit = (long) index * this.width;
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            long value = this.words[word] >>> shift;
+            if (shift + this.width > 64) {
+                value |= this.words[word + 1] << (64 - shift);
+            }
+            return value & ((1L << this.width) - 1);
+        }
+
+        void setOffset(int index, long offset) {
+            long bit = (long) index * this.width;
+            int word = (int) (bit >>> 6);
+            int shift = (int) (bit & 63);
+            long mask = (1L << this.width) - 1;
+
+            this.words[word] = (this.words[word] & ~(mask << shift)) | (offset << shift);
+            if (shift + this.width > 64) {
+                int spill = 64 - shift;
+                this.words[word + 1] = (this.words[word + 1] & ~(mask >>> spill)) | (offset >>> spill);
+            }
+        }
+
+        // Number of keys <= key, by binary search over the packed offsets.
+        int rank(int key) {
+            int low = 0;
+            int high = this.count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (get(middle) <= key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        int[] decode(int extra) {
+            int[] keys = new int[this.count + extra];
+            for (int i = 0; i < this.count; i++) {
+                keys[i] = get(i);
+            }
+            return keys;
+        }
+
+        void encode(int[] keys, int from, int to) {
+            Arrays.fill(this.words, 0L);
+            this.count = to - from;
+            if (!packed) {
+                this.base = Integer.MIN_VALUE;
+                this.step = 0;
+                this.width = 32;
+            } else {
+                this.base = this.count == 0 ? 0 : keys[from];
+                this.step = 1;
+                this.width = this.count == 0 ? 1 : widthFor(keys[to - 1] - this.base - (this.count - 1));
+            }
+            for (int i = 0; i < this.count; i++) {
+                setOffset(i, keys[from + i] - this.base - (long) i * this.step);
+            }
+        }
+
+        boolean fits(int count, int width) {
+            return (long) count * width <= leafBits;
+        }
+    }
+
+    private static int widthFor(long maxOffset) {
+        return Math.max(1, 64 - Long.numberOfLeadingZeros(maxOffset));
+    }
+
+    private static final class Split {
+        private final int separator;
+        private final Node right;
+
+        private Split(int separator, Node right) {
+            this.separator = separator;
+            this.right = right;
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public boolean contains(int key) {
+        Leaf leaf = findLeaf(key);
+        int rank = leaf.rank(key);
+        return rank > 0 && leaf.get(rank - 1) == key;
+    }
+
+    public boolean add(int key) {
+        int before = this.size;
+        List<Split> splits = insert(this.root, key);
+
+        while (!splits.isEmpty()) {
+            int[] keys = new int[this.order];
+            Node[] children = new Node[this.order + 1];
+            children[0] = this.root;
+            Internal newRoot = new Internal(keys, children, 0);
+            addSplits(newRoot, 0, splits);
+            this.root = newRoot;
+            splits = splitInternal(newRoot);
+        }
+
+        return this.size > before;
+    }
+
+    // Ascending keys in [lo, hi]; each key is decoded only when the iterator reaches it.
+    public PrimitiveIterator.OfInt scan(int lo, int hi) {
+        if (lo > hi) {
+            throw new IllegalArgumentException();
+        }
+
+        Leaf start = findLeaf(lo);
+        int rank = start.rank(lo);
+        int first = rank > 0 && start.get(rank - 1) == lo ? rank - 1 : rank;
+
+        return new PrimitiveIterator.OfInt() {
+            private Leaf leaf = start;
+            private int index = first;
+
+            @Override
+            public boolean hasNext() {
+                while (this.leaf != null && this.index >= this.leaf.count) {
+                    this.leaf = this.leaf.next;
+                    this.index = 0;
+                }
+                return this.leaf != null && this.leaf.get(this.index) <= hi;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return this.leaf.get(this.index++);
+            }
+        };
+    }
+
+    public PrimitiveIterator.OfInt iterator() {
+        return scan(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    // Bytes held in key, offset and child arrays, not counting object headers.
+    public long footprintBytes() {
+        return footprint(this.root);
+    }
+
+    private long footprint(Node node) {
+        if (node instanceof Leaf) {
+            return ((Leaf) node).words.length * 8L;
+        }
+
+        Internal internal = (Internal) node;
+        long bytes = internal.keys.length * 4L + internal.children.length * 4L;
+        for (int i = 0; i <= internal.count; i++) {
+            bytes += footprint(internal.children[i]);
+        }
+        return bytes;
+    }
+
+    private Leaf findLeaf(int key) {
+        Node node = this.root;
+        while (node instanceof Internal) {
+            Internal internal = (Internal) node;
+            node = internal.children[this.search.rank(internal.keys, internal.count, key)];
+        }
+        return (Leaf) node;
+    }
+
+    private List<Split> insert(Node node, int key) {
+        if (node instanceof Leaf) {
+            return insertIntoLeaf((Leaf) node, key);
+        }
+
+        Internal internal = (Internal) node;
+        int child = this.search.rank(internal.keys, internal.count, key);
+        List<Split> splits = insert(internal.children[child], key);
+        if (splits.isEmpty()) {
+            return splits;
+        }
+
+        addSplits(internal, child, splits);
+        return splitInternal(internal);
+    }
+
+    // Shifts the packed offsets in place when the new key fits the current base and width,
+    // re-encodes the leaf when only the width or base has to change, and splits it otherwise.
+    // A shifted key moves up one index, so its delta drops by step.
+    private List<Split> insertIntoLeaf(Leaf leaf, int key) {
+        int rank = leaf.rank(key);
+        if (rank > 0 && leaf.get(rank - 1) == key) {
+            return Collections.emptyList();
+        }
+        this.size++;
+
+        int count = leaf.count;
+        long offset = key - leaf.base - (long) rank * leaf.step;
+        if (count > 0 && offset >= 0 && offset >>> leaf.width == 0 && leaf.fits(count + 1, leaf.width)) {
+            for (int i = count; i > rank; i--) {
+                leaf.setOffset(i, leaf.offset(i - 1) - leaf.step);
+            }
+            leaf.setOffset(rank, offset);
+            leaf.count++;
+            return Collections.emptyList();
+        }
+
+        int[] keys = leaf.decode(1);
+        System.arraycopy(keys, rank, keys, rank + 1, count - rank);
+        keys[rank] = key;
+
+        List<Split> splits = new ArrayList<>();
+        encodePieces(leaf, keys, 0, keys.length, splits);
+        return splits;
+    }
+
+    // Halves the run until each piece fits its leaf; one far-away key can make a dense run
+    // need several leaves. Returns the rightmost leaf written.
+    private Leaf encodePieces(Leaf leaf, int[] keys, int from, int to, List<Split> splits) {
+        int width = this.packed ? widthFor((long) keys[to - 1] - keys[from] - (to - from - 1)) : 32;
+        if (leaf.fits(to - from, width)) {
+            leaf.encode(keys, from, to);
+            return leaf;
+        }
+
+        int middle = (from + to) >>> 1;
+        Leaf left = encodePieces(leaf, keys, from, middle, splits);
+
+        Leaf right = new Leaf();
+        right.next = left.next;
+        left.next = right;
+        splits.add(new Split(keys[middle], right));
+        return encodePieces(right, keys, middle, to, splits);
+    }
+
+    private void addSplits(Internal node, int child, List<Split> splits) {
+        int needed = node.count + splits.size();
+        if (needed > node.keys.length) {
+            node.keys = Arrays.copyOf(node.keys, needed);
+            node.children = Arrays.copyOf(node.children, needed + 1);
+        }
+
+        int moved = node.count - child;
+        System.arraycopy(node.keys, child, node.keys, child + splits.size(), moved);
+        System.arraycopy(node.children, child + 1, node.children, child + 1 + splits.size(), moved);
+        for (int i = 0; i < splits.size(); i++) {
+            node.keys[child + i] = splits.get(i).separator;
+            node.children[child + 1 + i] = splits.get(i).right;
+        }
+        node.count = needed;
+    }
+
+    // Cuts a node with more than order children into even pieces.
+    private List<Split> splitInternal(Internal node) {
+        int children = node.count + 1;
+        if (children <= this.order) {
+            return Collections.emptyList();
+        }
+
+        int pieces = (children + this.order - 1) / this.order;
+        List<Split> splits = new ArrayList<>(pieces - 1);
+
+        for (int piece = 1; piece < pieces; piece++) {
+            int from = children * piece / pieces;
+            int to = children * (piece + 1) / pieces;
+            int[] keys = new int[this.order];
+            Node[] rightChildren = new Node[this.order + 1];
+            System.arraycopy(node.keys, from, keys, 0, to - from - 1);
+            System.arraycopy(node.children, from, rightChildren, 0, to - from);
+            splits.add(new Split(node.keys[from - 1], new Internal(keys, rightChildren, to - from - 1)));
+        }
+
+        int keep = children / pieces;
+        int[] keys = new int[this.order];
+        Node[] leftChildren = new Node[this.order + 1];
+        System.arraycopy(node.keys, 0, keys, 0, keep - 1);
+        System.arraycopy(node.children, 0, leftChildren, 0, keep);
+        node.keys = keys;
+        node.children = leftChildren;
+        node.count = keep - 1;
+        return splits;
+    }
+}
@@ -0,0 +1,26 @@
+package btree;
+
+// Finds the child slot for a key inside one node of sorted primitive keys. The rank is the
+// number of keys in keys[0, count) that are <= key, so keys equal to a separator go right and a
+// leaf holds the key at rank - 1 when it is present.
+public interface NodeSearch {
+
+    int rank(int[] keys, int count, int key);
+
+    int rank(long[] keys, int count, long key);
+
+    // The Vector API implementation when jdk.incubator.vector is resolved at run time (start
+    // the JVM with --add-modules jdk.incubator.vector), the branch-free binary search otherwise.
+    static NodeSearch preferred() {
+        NodeSearch vector = vector();
+        return vector != null ? vector : ScalarNodeSearch.BRANCHLESS;
+    }
+
+    static NodeSearch vector() {
+        try {
+            return (NodeSearch) Class.forName("btree.VectorNodeSearch").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
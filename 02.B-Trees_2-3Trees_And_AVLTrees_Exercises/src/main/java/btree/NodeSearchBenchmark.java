@@ -0,0 +1,70 @@
+package btree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Rank of random probes in one sorted node. Probes come from a precomputed array so every
+// strategy sees the same, unpredictable sequence of outcomes.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Thread)
+public class NodeSearchBenchmark {
+
+    private static final int PROBES = 4096;
+
+    @Param({"8", "16", "32", "64", "128", "256"})
+    public int nodeSize;
+
+    @Param({"BINARY", "BRANCHLESS", "LINEAR", "VECTOR"})
+    public String strategy;
+
+    private NodeSearch search;
+    private int[] intKeys;
+    private long[] longKeys;
+    private int[] intProbes;
+    private long[] longProbes;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.search = this.strategy.equals("VECTOR") ? NodeSearch.vector() : ScalarNodeSearch.valueOf(this.strategy);
+        if (this.search == null) {
+            throw new IllegalStateException("jdk.incubator.vector is not available");
+        }
+
+        Random random = new Random(42);
+        this.intKeys = random.ints(this.nodeSize, 0, this.nodeSize * 4).sorted().toArray();
+        this.longKeys = Arrays.stream(this.intKeys).asLongStream().map(k -> k * 1_000_003L).toArray();
+        this.intProbes = random.ints(PROBES, -1, this.nodeSize * 4 + 1).toArray();
+        this.longProbes = Arrays.stream(this.intProbes).asLongStream().map(k -> k * 1_000_003L).toArray();
+    }
+
+    @Benchmark
+    public int intRank() {
+        int probe = this.intProbes[this.next++ & (PROBES - 1)];
+        return this.search.rank(this.intKeys, this.nodeSize, probe);
+    }
+
+    @Benchmark
+    public int longRank() {
+        long probe = this.longProbes[this.next++ & (PROBES - 1)];
+        return this.search.rank(this.longKeys, this.nodeSize, probe);
+    }
+}
@@ -0,0 +1,88 @@
+package btree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class PageFile implements Closeable {
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private long pageCount;
+
+    public PageFile(Path path, int pageSize) throws IOException {
+        if (pageSize < 64 || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Page size must be a power of two of at least 64 bytes");
+        }
+
+        this.pageSize = pageSize;
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.pageCount = (this.channel.size() + pageSize - 1) / pageSize;
+    }
+
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    public long getPageCount() {
+        return this.pageCount;
+    }
+
+    // The page only reaches the disk once it is written; until then reads return zeroes.
+    public long allocate() {
+        return this.pageCount++;
+    }
+
+    public void read(long pageId, ByteBuffer destination) throws IOException {
+        checkPageId(pageId);
+        destination.clear();
+
+        long position = pageId * this.pageSize;
+        while (destination.hasRemaining()) {
+            int read = this.channel.read(destination, position + destination.position());
+            if (read < 0) {
+                break;
+            }
+        }
+
+        while (destination.hasRemaining()) {
+            destination.put((byte) 0);
+        }
+        destination.clear();
+    }
+
+    // Writing past the end grows the file, which recovery relies on when it restores page images.
+    public void write(long pageId, ByteBuffer source) throws IOException {
+        if (pageId < 0) {
+            throw new IllegalArgumentException("Page " + pageId + " is out of range");
+        }
+        this.pageCount = Math.max(this.pageCount, pageId + 1);
+
+        ByteBuffer view = source.duplicate();
+        view.clear();
+
+        long position = pageId * this.pageSize;
+        while (view.hasRemaining()) {
+            this.channel.write(view, position + view.position());
+        }
+    }
+
+    public void sync() throws IOException {
+        this.channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private void checkPageId(long pageId) {
+        if (pageId < 0 || pageId >= this.pageCount) {
+            throw new IllegalArgumentException("Page " + pageId + " is out of range");
+        }
+    }
+}
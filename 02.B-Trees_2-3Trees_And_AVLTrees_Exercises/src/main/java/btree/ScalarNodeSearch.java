@@ -0,0 +1,93 @@
+package btree;
+
+public enum ScalarNodeSearch implements NodeSearch {
+    BINARY {
+        @Override
+        public int rank(int[] keys, int count, int key) {
+            int low = 0;
+            int high = count;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle] <= key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        @Override
+        public int rank(long[] keys, int count, long key) {
+            int low = 0;
+            int high = count;
+
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle] <= key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    },
+
+    // Halves a window of fixed length each step; the comparison only feeds a conditional
+    // move, so nothing depends on a predicted branch.
+    BRANCHLESS {
+        @Override
+        public int rank(int[] keys, int count, int key) {
+            if (count == 0) {
+                return 0;
+            }
+
+            int base = 0;
+            int length = count;
+            while (length > 1) {
+                int half = length >>> 1;
+                base = keys[base + half - 1] <= key ? base + half : base;
+                length -= half;
+            }
+            return keys[base] <= key ? base + 1 : base;
+        }
+
+        @Override
+        public int rank(long[] keys, int count, long key) {
+            if (count == 0) {
+                return 0;
+            }
+
+            int base = 0;
+            int length = count;
+            while (length > 1) {
+                int half = length >>> 1;
+                base = keys[base + half - 1] <= key ? base + half : base;
+                length -= half;
+            }
+            return keys[base] <= key ? base + 1 : base;
+        }
+    },
+
+    LINEAR {
+        @Override
+        public int rank(int[] keys, int count, int key) {
+            int index = 0;
+            while (index < count && keys[index] <= key) {
+                index++;
+            }
+            return index;
+        }
+
+        @Override
+        public int rank(long[] keys, int count, long key) {
+            int index = 0;
+            while (index < count && keys[index] <= key) {
+                index++;
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package btree;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+// B+ tree for String keys. Keys are normalized to byte strings whose unsigned order matches
+// String.compareTo, each node stores the prefix shared by all its keys once, and separators are
+// cut to the shortest prefix that still splits their two neighbours. Nodes split on encoded
+// size rather than key count, so the shorter the stored keys, the more of them fit in a node.
+public class StringBPlusTree<V> {
+
+    public static final int DEFAULT_NODE_SIZE = 4096;
+
+    // Two length bytes plus an eight byte value or child pointer per key.
+    private static final int SLOT_OVERHEAD = 10;
+    private static final int MIN_SPLIT_KEYS = 4;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int nodeSize;
+    private Node root;
+    private Leaf head;
+    private int size;
+
+    public StringBPlusTree() {
+        this(DEFAULT_NODE_SIZE);
+    }
+
+    public StringBPlusTree(int nodeSize) {
+        if (nodeSize < 64) {
+            throw new IllegalArgumentException("Node size must be at least 64 bytes");
+        }
+        this.nodeSize = nodeSize;
+        this.root = new Leaf();
+        this.head = (Leaf) this.root;
+    }
+
+    private abstract static class Node {
+        byte[] prefix = EMPTY;
+        byte[][] suffixes = new byte[4][];
+        int count;
+
+        abstract boolean isLeaf();
+
+        int encodedSize() {
+            int size = this.prefix.length;
+            for (int i = 0; i < this.count; i++) {
+                size += this.suffixes[i].length + SLOT_OVERHEAD;
+            }
+            return size;
+        }
+
+        // Same contract as Arrays.binarySearch, but the shared prefix is compared only once.
+        int search(byte[] key) {
+            int prefixLength = this.prefix.length;
+            int common = Math.min(prefixLength, key.length);
+            int compare = Arrays.compareUnsigned(key, 0, common, this.prefix, 0, common);
+
+            if (compare < 0 || (compare == 0 && key.length < prefixLength)) {
+                return -1;
+            }
+            if (compare > 0) {
+                return -(this.count + 1);
+            }
+
+            int low = 0;
+            int high = this.count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                byte[] suffix = this.suffixes[middle];
+                int result = Arrays.compareUnsigned(suffix, 0, suffix.length, key, prefixLength, key.length);
+
+                if (result < 0) {
+                    low = middle + 1;
+                } else if (result > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+
+            return -(low + 1);
+        }
+
+        byte[] keyAt(int index) {
+            byte[] suffix = this.suffixes[index];
+            byte[] key = Arrays.copyOf(this.prefix, this.prefix.length + suffix.length);
+            System.arraycopy(suffix, 0, key, this.prefix.length, suffix.length);
+            return key;
+        }
+
+        byte[][] fullKeys() {
+            byte[][] keys = new byte[this.count][];
+            for (int i = 0; i < this.count; i++) {
+                keys[i] = keyAt(i);
+            }
+            return keys;
+        }
+
+        // Keys are sorted, so the prefix shared by the first and the last is shared by all.
+        void setKeys(byte[][] keys, int from, int to) {
+            this.count = to - from;
+            this.suffixes = new byte[Math.max(4, this.count * 2)][];
+
+            if (this.count == 0) {
+                this.prefix = EMPTY;
+                return;
+            }
+
+            int prefixLength = commonPrefix(keys[from], keys[to - 1]);
+            this.prefix = Arrays.copyOf(keys[from], prefixLength);
+            for (int i = from; i < to; i++) {
+                this.suffixes[i - from] = Arrays.copyOfRange(keys[i], prefixLength, keys[i].length);
+            }
+        }
+
+        void insertKey(int index, byte[] key) {
+            if (this.count > 0 && !startsWith(key, this.prefix)) {
+                byte[][] keys = new byte[this.count + 1][];
+                byte[][] current = fullKeys();
+                System.arraycopy(current, 0, keys, 0, index);
+                keys[index] = key;
+                System.arraycopy(current, index, keys, index + 1, this.count - index);
+                setKeys(keys, 0, keys.length);
+                return;
+            }
+
+            if (this.count == 0) {
+                this.prefix = key;
+            }
+
+            if (this.count == this.suffixes.length) {
+                this.suffixes = Arrays.copyOf(this.suffixes, this.count * 2);
+            }
+            System.arraycopy(this.suffixes, index, this.suffixes, index + 1, this.count - index);
+            this.suffixes[index] = Arrays.copyOfRange(key, this.prefix.length, key.length);
+            this.count++;
+        }
+    }
+
+    private static final class Leaf extends Node {
+        Object[] values = new Object[4];
+        Leaf next;
+
+        @Override
+        boolean isLeaf() {
+            return true;
+        }
+    }
+
+    private static final class Internal extends Node {
+        Node[] children = new Node[5];
+
+        @Override
+        boolean isLeaf() {
+            return false;
+        }
+    }
+
+    private static final class Split {
+        private final byte[] separator;
+        private final Node right;
+
+        private Split(byte[] separator, Node right) {
+            this.separator = separator;
+            this.right = right;
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean containsKey(String key) {
+        byte[] encoded = encode(key);
+        return findLeaf(encoded).search(encoded) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(String key) {
+        byte[] encoded = encode(key);
+        Leaf leaf = findLeaf(encoded);
+        int index = leaf.search(encoded);
+        return index >= 0 ? (V) leaf.values[index] : null;
+    }
+
+    public void put(String key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Split split = insert(this.root, encode(key), value);
+
+        if (split != null) {
+            Internal newRoot = new Internal();
+            newRoot.insertKey(0, split.separator);
+            newRoot.children[0] = this.root;
+            newRoot.children[1] = split.right;
+            this.root = newRoot;
+        }
+    }
+
+    public Iterator<Map.Entry<String, V>> scan(String lo, String hi) {
+        byte[] low = lo == null ? null : encode(lo);
+        byte[] high = hi == null ? null : encode(hi);
+
+        Leaf leaf = low == null ? this.head : findLeaf(low);
+        int index = 0;
+        if (low != null) {
+            int position = leaf.search(low);
+            index = position >= 0 ? position : -position - 1;
+        }
+
+        Leaf startLeaf = leaf;
+        int startIndex = index;
+
+        return new Iterator<>() {
+            private Leaf leaf = startLeaf;
+            private int index = startIndex;
+
+            @Override
+            public boolean hasNext() {
+                while (this.leaf != null && this.index >= this.leaf.count) {
+                    this.leaf = this.leaf.next;
+                    this.index = 0;
+                }
+
+                if (this.leaf != null && high != null
+                        && Arrays.compareUnsigned(this.leaf.keyAt(this.index), high) > 0) {
+                    this.leaf = null;
+                }
+
+                return this.leaf != null;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Map.Entry<String, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                Map.Entry<String, V> entry = new AbstractMap.SimpleImmutableEntry<>(
+                        decode(this.leaf.keyAt(this.index)), (V) this.leaf.values[this.index]);
+                this.index++;
+                return entry;
+            }
+        };
+    }
+
+    long storedKeyBytes() {
+        return storedKeyBytes(this.root);
+    }
+
+    private long storedKeyBytes(Node node) {
+        long bytes = node.prefix.length;
+        for (int i = 0; i < node.count; i++) {
+            bytes += node.suffixes[i].length;
+        }
+
+        if (!node.isLeaf()) {
+            Internal internal = (Internal) node;
+            for (int i = 0; i <= internal.count; i++) {
+                bytes += storedKeyBytes(internal.children[i]);
+            }
+        }
+
+        return bytes;
+    }
+
+    private Split insert(Node node, byte[] key, V value) {
+        if (node.isLeaf()) {
+            Leaf leaf = (Leaf) node;
+            int index = leaf.search(key);
+
+            if (index >= 0) {
+                leaf.values[index] = value;
+                return null;
+            }
+
+            int insertAt = -index - 1;
+            leaf.insertKey(insertAt, key);
+            if (leaf.values.length < leaf.suffixes.length) {
+                leaf.values = Arrays.copyOf(leaf.values, leaf.suffixes.length);
+            }
+            System.arraycopy(leaf.values, insertAt, leaf.values, insertAt + 1, leaf.count - 1 - insertAt);
+            leaf.values[insertAt] = value;
+            this.size++;
+
+            return needsSplit(leaf) ? splitLeaf(leaf) : null;
+        }
+
+        Internal internal = (Internal) node;
+        int index = internal.search(key);
+        int childIndex = index >= 0 ? index + 1 : -index - 1;
+        Split toFix = insert(internal.children[childIndex], key, value);
+
+        if (toFix == null) {
+            return null;
+        }
+
+        internal.insertKey(childIndex, toFix.separator);
+        if (internal.children.length < internal.suffixes.length + 1) {
+            internal.children = Arrays.copyOf(internal.children, internal.suffixes.length + 1);
+        }
+        System.arraycopy(internal.children, childIndex + 1, internal.children, childIndex + 2,
+                internal.count - 1 - childIndex);
+        internal.children[childIndex + 1] = toFix.right;
+
+        return needsSplit(internal) ? splitInternal(internal) : null;
+    }
+
+    private boolean needsSplit(Node node) {
+        return node.count >= MIN_SPLIT_KEYS && node.encodedSize() > this.nodeSize;
+    }
+
+    // Splits near the middle, at the position whose truncated separator is shortest.
+    private Split splitLeaf(Leaf leaf) {
+        byte[][] keys = leaf.fullKeys();
+        int count = leaf.count;
+        int window = Math.max(1, count / 8);
+        int best = count / 2;
+        byte[] separator = shortestSeparator(keys[best - 1], keys[best]);
+
+        for (int i = Math.max(1, count / 2 - window); i <= Math.min(count - 1, count / 2 + window); i++) {
+            byte[] candidate = shortestSeparator(keys[i - 1], keys[i]);
+            if (candidate.length < separator.length) {
+                separator = candidate;
+                best = i;
+            }
+        }
+
+        Leaf right = new Leaf();
+        right.setKeys(keys, best, count);
+        right.values = Arrays.copyOf(Arrays.copyOfRange(leaf.values, best, count), right.suffixes.length);
+        right.next = leaf.next;
+
+        Object[] leftValues = Arrays.copyOf(leaf.values, best);
+        leaf.setKeys(keys, 0, best);
+        leaf.values = Arrays.copyOf(leftValues, leaf.suffixes.length);
+        leaf.next = right;
+
+        return new Split(separator, right);
+    }
+
+    private Split splitInternal(Internal node) {
+        byte[][] keys = node.fullKeys();
+        int count = node.count;
+        int window = Math.max(1, count / 8);
+        int best = count / 2;
+
+        for (int i = Math.max(1, count / 2 - window); i <= Math.min(count - 2, count / 2 + window); i++) {
+            if (keys[i].length < keys[best].length) {
+                best = i;
+            }
+        }
+
+        Internal right = new Internal();
+        right.setKeys(keys, best + 1, count);
+        right.children = Arrays.copyOf(Arrays.copyOfRange(node.children, best + 1, count + 1),
+                right.suffixes.length + 1);
+
+        Node[] leftChildren = Arrays.copyOf(node.children, best + 1);
+        node.setKeys(keys, 0, best);
+        node.children = Arrays.copyOf(leftChildren, node.suffixes.length + 1);
+
+        return new Split(keys[best], right);
+    }
+
+    private Leaf findLeaf(byte[] key) {
+        Node node = this.root;
+
+        while (!node.isLeaf()) {
+            Internal internal = (Internal) node;
+            int index = internal.search(key);
+            node = internal.children[index >= 0 ? index + 1 : -index - 1];
+        }
+
+        return (Leaf) node;
+    }
+
+    // The shortest prefix of right that still sorts after left.
+    static byte[] shortestSeparator(byte[] left, byte[] right) {
+        return Arrays.copyOf(right, Math.min(right.length, commonPrefix(left, right) + 1));
+    }
+
+    private static int commonPrefix(byte[] a, byte[] b) {
+        int mismatch = Arrays.mismatch(a, b);
+        return mismatch < 0 ? a.length : mismatch;
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        return key.length >= prefix.length
+                && Arrays.equals(key, 0, prefix.length, prefix, 0, prefix.length);
+    }
+
+    // Each UTF-16 unit is written the way UTF-8 writes a code point of that value. That keeps
+    // ASCII at one byte and makes unsigned byte order equal to String.compareTo, which plain
+    // UTF-8 does not for surrogate pairs.
+    static byte[] encode(String key) {
+        byte[] out = new byte[key.length() * 3];
+        int length = 0;
+
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c < 0x80) {
+                out[length++] = (byte) c;
+            } else if (c < 0x800) {
+                out[length++] = (byte) (0xC0 | (c >> 6));
+                out[length++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                out[length++] = (byte) (0xE0 | (c >> 12));
+                out[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+
+        return Arrays.copyOf(out, length);
+    }
+
+    static String decode(byte[] key) {
+        StringBuilder out = new StringBuilder(key.length);
+
+        for (int i = 0; i < key.length; ) {
+            int b = key[i] & 0xFF;
+            if (b < 0x80) {
+                out.append((char) b);
+                i++;
+            } else if (b < 0xE0) {
+                out.append((char) (((b & 0x1F) << 6) | (key[i + 1] & 0x3F)));
+                i += 2;
+            } else {
+                out.append((char) (((b & 0x0F) << 12) | ((key[i + 1] & 0x3F) << 6) | (key[i + 2] & 0x3F)));
+                i += 3;
+            }
+        }
+
+        return out.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package btree;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Compares a full vector of keys per step and counts the lanes <= key. Keys are sorted, so the
+// first step with a false lane ends the search. Only loaded through NodeSearch.vector(), which
+// keeps the rest of the tree usable when the incubator module is not resolved.
+final class VectorNodeSearch implements NodeSearch {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    // Vectors per final scan; larger nodes are first narrowed to this by branch-free halving.
+    private static final int WINDOW = 2;
+
+    @Override
+    public int rank(int[] keys, int count, int key) {
+        int base = 0;
+        int length = count;
+        while (length > WINDOW * INTS.length()) {
+            int half = length >>> 1;
+            base = keys[base + half - 1] <= key ? base + half : base;
+            length -= half;
+        }
+
+        int index = base;
+        int bound = base + INTS.loopBound(length);
+        for (; index < bound; index += INTS.length()) {
+            int matches = IntVector.fromArray(INTS, keys, index).compare(VectorOperators.LE, key).trueCount();
+            if (matches < INTS.length()) {
+                return index + matches;
+            }
+        }
+
+        int end = base + length;
+        while (index < end && keys[index] <= key) {
+            index++;
+        }
+        return index;
+    }
+
+    @Override
+    public int rank(long[] keys, int count, long key) {
+        int base = 0;
+        int length = count;
+        while (length > WINDOW * LONGS.length()) {
+            int half = length >>> 1;
+            base = keys[base + half - 1] <= key ? base + half : base;
+            length -= half;
+        }
+
+        int index = base;
+        int bound = base + LONGS.loopBound(length);
+        for (; index < bound; index += LONGS.length()) {
+            int matches = LongVector.fromArray(LONGS, keys, index).compare(VectorOperators.LE, key).trueCount();
+            if (matches < LONGS.length()) {
+                return index + matches;
+            }
+        }
+
+        int end = base + length;
+        while (index < end && keys[index] <= key) {
+            index++;
+        }
+        return index;
+    }
+}
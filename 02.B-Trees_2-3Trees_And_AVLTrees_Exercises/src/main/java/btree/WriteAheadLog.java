@@ -0,0 +1,289 @@
+package btree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+public class WriteAheadLog implements Closeable {
+
+    public static final int DEFAULT_GROUP_SIZE = 1024;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte PUT = 1;
+    private static final byte CHECKPOINT_BEGIN = 2;
+    private static final byte PAGE_IMAGE = 3;
+    private static final byte CHECKPOINT_END = 4;
+
+    // Every record is [int body length][body][int crc32 of body]; the body starts with its type.
+    private static final int RECORD_OVERHEAD = 8;
+
+    public enum SyncPolicy {
+        // fsync before every commit returns
+        EVERY_COMMIT,
+        // one fsync per groupSize commits, or on an explicit sync
+        GROUP_COMMIT,
+        // fsync only at checkpoints and on close
+        NO_SYNC
+    }
+
+    public interface RedoHandler {
+        void put(long key, long value);
+    }
+
+    private final FileChannel channel;
+    private final SyncPolicy policy;
+    private final int groupSize;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private long size;
+    private int pendingCommits;
+    private long syncs;
+    private long redoStart = -1;
+    private long replayPosition = -1;
+
+    public WriteAheadLog(Path path) throws IOException {
+        this(path, SyncPolicy.GROUP_COMMIT, DEFAULT_GROUP_SIZE);
+    }
+
+    public WriteAheadLog(Path path, SyncPolicy policy, int groupSize) throws IOException {
+        if (groupSize < 1) {
+            throw new IllegalArgumentException("Group size must be positive");
+        }
+
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.policy = policy;
+        this.groupSize = groupSize;
+        this.size = this.channel.size();
+    }
+
+    public SyncPolicy getPolicy() {
+        return this.policy;
+    }
+
+    public long getSize() {
+        return this.size + this.buffer.position();
+    }
+
+    public long getSyncCount() {
+        return this.syncs;
+    }
+
+    public void logPut(long key, long value) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(17);
+        body.put(PUT).putLong(key).putLong(value).flip();
+        append(body);
+    }
+
+    public void commit() throws IOException {
+        this.pendingCommits++;
+
+        if (this.policy == SyncPolicy.EVERY_COMMIT
+                || (this.policy == SyncPolicy.GROUP_COMMIT && this.pendingCommits >= this.groupSize)) {
+            sync();
+        }
+    }
+
+    public void sync() throws IOException {
+        writeBuffer();
+        this.channel.force(false);
+        this.pendingCommits = 0;
+        this.syncs++;
+    }
+
+    // Page images are forced to the log before any of them is written in place, so a crash
+    // while the page file is being updated can always be repaired from the log. The end record
+    // names the position logical redo restarts from, which is the next unreplayed put when the
+    // checkpoint is taken in the middle of recovery.
+    public void checkpoint(List<BufferPool.Frame> dirtyPages) throws IOException {
+        append(ByteBuffer.wrap(new byte[]{CHECKPOINT_BEGIN}));
+
+        for (BufferPool.Frame frame : dirtyPages) {
+            ByteBuffer page = frame.data().duplicate();
+            page.clear();
+            ByteBuffer body = ByteBuffer.allocate(9 + page.capacity());
+            body.put(PAGE_IMAGE).putLong(frame.getPageId()).put(page).flip();
+            append(body);
+        }
+
+        ByteBuffer end = ByteBuffer.allocate(9);
+        long redoFrom = this.replayPosition >= 0
+                ? this.replayPosition
+                : getSize() + RECORD_OVERHEAD + end.capacity();
+        end.put(CHECKPOINT_END).putLong(redoFrom).flip();
+        append(end);
+        sync();
+    }
+
+    // Called once the checkpointed pages are durable in the page file. During recovery the
+    // log is still being replayed, so it is kept until the final checkpoint.
+    public void checkpointComplete() throws IOException {
+        if (this.replayPosition >= 0) {
+            return;
+        }
+
+        this.buffer.clear();
+        this.channel.truncate(0);
+        this.channel.force(false);
+        this.size = 0;
+        this.pendingCommits = 0;
+    }
+
+    // First recovery pass: truncates the log after its last valid record, restores the pages
+    // of the last complete checkpoint, if any, and remembers where logical redo has to start.
+    public void restorePages(PageFile file) throws IOException {
+        long position = 0;
+        long checkpointStart = -1;
+        long checkpointEnd = -1;
+        long redoFrom = 0;
+        long candidate = -1;
+
+        ByteBuffer body;
+        while ((body = readRecord(position)) != null) {
+            byte type = body.get(0);
+            if (type == CHECKPOINT_BEGIN) {
+                candidate = position;
+            } else if (type == CHECKPOINT_END && candidate >= 0) {
+                checkpointStart = candidate;
+                checkpointEnd = position + RECORD_OVERHEAD + body.capacity();
+                redoFrom = body.getLong(1);
+                candidate = -1;
+            }
+            position += RECORD_OVERHEAD + body.capacity();
+        }
+
+        // Cut off a torn or corrupt tail, so that records appended from here on, such as
+        // checkpoints taken during redo, follow the last valid record and a later recovery
+        // reads them.
+        if (position < this.size) {
+            this.channel.truncate(position);
+            this.channel.force(false);
+            this.size = position;
+        }
+
+        if (checkpointStart < 0) {
+            this.redoStart = 0;
+            return;
+        }
+
+        position = checkpointStart;
+        while (position < checkpointEnd) {
+            body = readRecord(position);
+            if (body.get(0) == PAGE_IMAGE) {
+                long pageId = body.getLong(1);
+                file.write(pageId, body.position(9).slice());
+            }
+            position += RECORD_OVERHEAD + body.capacity();
+        }
+        file.sync();
+
+        this.redoStart = redoFrom;
+    }
+
+    // Second recovery pass: replays the puts logged after the restored checkpoint. A torn or
+    // corrupt tail ends the log.
+    public void redo(RedoHandler handler) throws IOException {
+        if (this.redoStart < 0) {
+            throw new IllegalStateException("restorePages must run before redo");
+        }
+
+        long position = this.redoStart;
+        ByteBuffer body;
+        try {
+            while ((body = readRecord(position)) != null) {
+                if (body.get(0) == PUT) {
+                    this.replayPosition = position;
+                    handler.put(body.getLong(1), body.getLong(9));
+                }
+                position += RECORD_OVERHEAD + body.capacity();
+            }
+        } finally {
+            this.replayPosition = -1;
+            this.redoStart = -1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sync();
+        this.channel.close();
+    }
+
+    private void append(ByteBuffer body) throws IOException {
+        int length = body.remaining();
+        this.crc.reset();
+        this.crc.update(body.duplicate());
+
+        if (this.buffer.remaining() < length + RECORD_OVERHEAD) {
+            writeBuffer();
+        }
+
+        if (this.buffer.remaining() < length + RECORD_OVERHEAD) {
+            List<ByteBuffer> parts = new ArrayList<>();
+            parts.add(ByteBuffer.allocate(4).putInt(0, length));
+            parts.add(body);
+            parts.add(ByteBuffer.allocate(4).putInt(0, (int) this.crc.getValue()));
+            for (ByteBuffer part : parts) {
+                while (part.hasRemaining()) {
+                    this.size += this.channel.write(part, this.size);
+                }
+            }
+            return;
+        }
+
+        this.buffer.putInt(length).put(body).putInt((int) this.crc.getValue());
+    }
+
+    private void writeBuffer() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.size += this.channel.write(this.buffer, this.size);
+        }
+        this.buffer.clear();
+    }
+
+    private ByteBuffer readRecord(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        if (!readFully(header, position)) {
+            return null;
+        }
+
+        int length = header.getInt(0);
+        if (length <= 0 || position + RECORD_OVERHEAD + length > this.size) {
+            return null;
+        }
+
+        ByteBuffer body = ByteBuffer.allocate(length);
+        ByteBuffer checksum = ByteBuffer.allocate(4);
+        if (!readFully(body, position + 4) || !readFully(checksum, position + 4 + length)) {
+            return null;
+        }
+
+        this.crc.reset();
+        this.crc.update(body.array());
+        if ((int) this.crc.getValue() != checksum.getInt(0)) {
+            return null;
+        }
+
+        return body;
+    }
+
+    private boolean readFully(ByteBuffer destination, long position) throws IOException {
+        destination.clear();
+        while (destination.hasRemaining()) {
+            if (this.channel.read(destination, position + destination.position()) < 0) {
+                return false;
+            }
+        }
+        destination.flip();
+        return true;
+    }
+}
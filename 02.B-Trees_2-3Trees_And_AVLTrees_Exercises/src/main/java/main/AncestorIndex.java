@@ -0,0 +1,115 @@
+package main;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// Binary lifting over the hierarchy: each node keeps its depth and its 2^j-th ancestors for
+// every 2^j up to its depth, so ancestor, depth and LCA queries take O(log n). The parent link
+// stands in for the 2^0-th entry, so a child of the root needs no table at all. A new leaf's
+// table is built from its parent's in O(log n); a removal shifts whole subtrees up a level,
+// so it only marks the index stale and the next query rebuilds it top-down.
+final class AncestorIndex<T> {
+
+    @SuppressWarnings("rawtypes")
+    private static final MyNode[] NONE = new MyNode[0];
+
+    private boolean valid = true;
+
+    void linked(MyNode<T> node) {
+        if (this.valid) {
+            fill(node);
+        }
+    }
+
+    void invalidate() {
+        this.valid = false;
+    }
+
+    int depth(MyNode<T> root, MyNode<T> node) {
+        ensure(root);
+        return node.liftDepth;
+    }
+
+    // The k-th ancestor, or null above the root.
+    MyNode<T> ancestor(MyNode<T> root, MyNode<T> node, int k) {
+        ensure(root);
+        if (k > node.liftDepth) {
+            return null;
+        }
+        return climb(node, k);
+    }
+
+    MyNode<T> lowestCommonAncestor(MyNode<T> root, MyNode<T> a, MyNode<T> b) {
+        ensure(root);
+        if (a.liftDepth < b.liftDepth) {
+            MyNode<T> swap = a;
+            a = b;
+            b = swap;
+        }
+
+        a = climb(a, a.liftDepth - b.liftDepth);
+        if (a == b) {
+            return a;
+        }
+
+        for (int j = a.jumps.length; j >= 0; j--) {
+            if (j <= a.jumps.length && jump(a, j) != jump(b, j)) {
+                a = jump(a, j);
+                b = jump(b, j);
+            }
+        }
+        return a.getParent();
+    }
+
+    private MyNode<T> climb(MyNode<T> node, int k) {
+        for (int j = 0; k != 0; j++, k >>>= 1) {
+            if ((k & 1) != 0) {
+                node = jump(node, j);
+            }
+        }
+        return node;
+    }
+
+    private static <T> MyNode<T> jump(MyNode<T> node, int j) {
+        return j == 0 ? node.getParent() : node.jumps[j - 1];
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static <T> MyNode<T>[] table(int length) {
+        return length == 0 ? NONE : new MyNode[length];
+    }
+
+    private void fill(MyNode<T> node) {
+        MyNode<T> parent = node.getParent();
+        if (parent == null) {
+            node.liftDepth = 0;
+            node.jumps = table(0);
+            return;
+        }
+
+        int depth = parent.liftDepth + 1;
+        int levels = 32 - Integer.numberOfLeadingZeros(depth);
+        node.liftDepth = depth;
+        node.jumps = table(levels - 1);
+        for (int j = 1; j < levels; j++) {
+            node.jumps[j - 1] = jump(jump(node, j - 1), j - 1);
+        }
+    }
+
+    private void ensure(MyNode<T> root) {
+        if (this.valid) {
+            return;
+        }
+
+        Deque<MyNode<T>> queue = new ArrayDeque<>();
+        queue.offer(root);
+        while (!queue.isEmpty()) {
+            MyNode<T> node = queue.poll();
+            fill(node);
+            for (MyNode<T> child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                queue.offer(child);
+            }
+        }
+        this.valid = true;
+    }
+}
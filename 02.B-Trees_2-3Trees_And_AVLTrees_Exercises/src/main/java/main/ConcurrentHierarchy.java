@@ -0,0 +1,274 @@
+package main;
+
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Hierarchy that many threads may read and write at once. Reads take no locks: the element
+// index is a ConcurrentHashMap, parents are volatile, and each node publishes its children as
+// an immutable (array, size) snapshot. Appending writes one slot past the published size and
+// publishes a longer snapshot over the same array, so no reader ever sees that slot change;
+// any other change copies the array.
+//
+// Writers lock the stripes of the nodes whose links they change: add locks the parent, remove
+// locks the element and its parent, always in stripe order. Writes under different parents
+// therefore run in parallel. Traversals and getChildren are weakly consistent: they see each
+// node's children as of the moment they reach it.
+public class ConcurrentHierarchy<T> implements IHierarchy<T> {
+
+    private static final int STRIPES = 64;
+
+    private final Node<T> root;
+    private final Map<T, Node<T>> nodes = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    private static final class Node<T> {
+        final T value;
+        final int stripe;
+        volatile Node<T> parent;
+        volatile Children<T> children = Children.empty();
+        volatile boolean removed;
+
+        Node(T value, Node<T> parent) {
+            this.value = value;
+            this.parent = parent;
+            this.stripe = ThreadLocalRandom.current().nextInt(STRIPES);
+        }
+    }
+
+    private static final class Children<T> {
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        private static final Children<?> EMPTY = new Children(new Node[0], 0);
+
+        final Node<T>[] items;
+        final int size;
+
+        Children(Node<T>[] items, int size) {
+            this.items = items;
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        static <T> Children<T> empty() {
+            return (Children<T>) EMPTY;
+        }
+
+        // Only the node's writer calls this, and it only ever appends to the latest snapshot.
+        Children<T> append(Node<T> child) {
+            Node<T>[] target = this.items;
+            if (this.size == target.length) {
+                target = Arrays.copyOf(target, Math.max(4, this.size * 2));
+            }
+            target[this.size] = child;
+            return new Children<>(target, this.size + 1);
+        }
+
+        int indexOf(Node<T> child) {
+            for (int i = 0; i < this.size; i++) {
+                if (this.items[i] == child) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    public ConcurrentHierarchy(T value) {
+        for (int i = 0; i < STRIPES; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+
+        this.root = new Node<>(value, null);
+        this.nodes.put(value, this.root);
+    }
+
+    @Override
+    public int getCount() {
+        return this.nodes.size();
+    }
+
+    @Override
+    public void add(T element, T child) {
+        if (element == null || child == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Node<T> parent = getNodeByElement(element);
+        ReentrantLock lock = this.locks[parent.stripe];
+        lock.lock();
+        try {
+            if (parent.removed) {
+                throw new IllegalArgumentException();
+            }
+
+            Node<T> node = new Node<>(child, parent);
+            if (this.nodes.putIfAbsent(child, node) != null) {
+                throw new IllegalArgumentException();
+            }
+            parent.children = parent.children.append(node);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Like Hierarchy.remove, the element's children move to the end of its parent's children.
+    @Override
+    public void remove(T element) {
+        Node<T> node = getNodeByElement(element);
+
+        while (true) {
+            Node<T> parent = node.parent;
+            if (parent == null) {
+                throw new IllegalStateException();
+            }
+
+            ReentrantLock first = this.locks[Math.min(node.stripe, parent.stripe)];
+            ReentrantLock second = this.locks[Math.max(node.stripe, parent.stripe)];
+            first.lock();
+            second.lock();
+            try {
+                if (node.removed) {
+                    throw new IllegalArgumentException();
+                }
+                // The parent was removed in the meantime and node moved up; lock the new one.
+                if (node.parent != parent) {
+                    continue;
+                }
+
+                unlink(node, parent);
+                return;
+            } finally {
+                second.unlock();
+                first.unlock();
+            }
+        }
+    }
+
+    private void unlink(Node<T> node, Node<T> parent) {
+        Children<T> siblings = parent.children;
+        Children<T> promoted = node.children;
+        int index = siblings.indexOf(node);
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        Node<T>[] items = new Node[siblings.size - 1 + promoted.size];
+        System.arraycopy(siblings.items, 0, items, 0, index);
+        System.arraycopy(siblings.items, index + 1, items, index, siblings.size - index - 1);
+        System.arraycopy(promoted.items, 0, items, siblings.size - 1, promoted.size);
+
+        for (int i = 0; i < promoted.size; i++) {
+            promoted.items[i].parent = parent;
+        }
+        parent.children = new Children<>(items, items.length);
+
+        node.removed = true;
+        node.children = Children.empty();
+        this.nodes.remove(node.value, node);
+    }
+
+    @Override
+    public Iterable<T> getChildren(T element) {
+        Children<T> children = getNodeByElement(element).children;
+
+        return new AbstractList<T>() {
+            @Override
+            public T get(int index) {
+                if (index < 0 || index >= children.size) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return children.items[index].value;
+            }
+
+            @Override
+            public int size() {
+                return children.size;
+            }
+        };
+    }
+
+    @Override
+    public T getParent(T element) {
+        Node<T> parent = getNodeByElement(element).parent;
+        return parent == null ? null : parent.value;
+    }
+
+    @Override
+    public boolean contains(T element) {
+        return element != null && this.nodes.containsKey(element);
+    }
+
+    // Probes the smaller side's elements against the larger side. Order is unspecified.
+    @Override
+    public Iterable<T> getCommonElements(IHierarchy<T> other) {
+        List<T> common = new ArrayList<>();
+        if (other.getCount() < getCount()) {
+            for (T element : other) {
+                if (contains(element)) {
+                    common.add(element);
+                }
+            }
+            return common;
+        }
+
+        for (T element : this.nodes.keySet()) {
+            if (other.contains(element)) {
+                common.add(element);
+            }
+        }
+        return common;
+    }
+
+    // Breadth-first, like Hierarchy.
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private final Deque<Children<T>> pending = new ArrayDeque<>();
+            private Node<T> next = root;
+            private Children<T> current = Children.empty();
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public T next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException();
+                }
+
+                Node<T> node = this.next;
+                Children<T> children = node.children;
+                if (children.size > 0) {
+                    this.pending.offer(children);
+                }
+
+                while (this.index == this.current.size && !this.pending.isEmpty()) {
+                    this.current = this.pending.poll();
+                    this.index = 0;
+                }
+                this.next = this.index < this.current.size ? this.current.items[this.index++] : null;
+                return node.value;
+            }
+        };
+    }
+
+    private Node<T> getNodeByElement(T element) {
+        Node<T> node = element == null ? null : this.nodes.get(element);
+
+        if (node == null) {
+            throw new IllegalArgumentException();
+        }
+
+        return node;
+    }
+}
@@ -0,0 +1,126 @@
+package main;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Compares ConcurrentHierarchy against a Hierarchy behind one global lock on a read-mostly
+// workload. Run main to sweep 1 to 64 threads; JMH's -t option runs a single count.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentHierarchyBenchmark {
+
+    private static final int ELEMENTS = 1_000_000;
+    private static final int WRITE_PERCENT = 5;
+
+    private ConcurrentHierarchy<Integer> concurrent;
+    private Hierarchy<Integer> locked;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.concurrent = new ConcurrentHierarchy<>(0);
+        this.locked = new Hierarchy<>(0);
+
+        for (int i = 1; i < ELEMENTS; i++) {
+            int parent = (i - 1) / 8;
+            this.concurrent.add(parent, i);
+            this.locked.add(parent, i);
+        }
+    }
+
+    @Benchmark
+    public Integer readConcurrent() {
+        return this.concurrent.getParent(ThreadLocalRandom.current().nextInt(ELEMENTS));
+    }
+
+    @Benchmark
+    public Integer readGlobalLock() {
+        int key = ThreadLocalRandom.current().nextInt(ELEMENTS);
+        synchronized (this.locked) {
+            return this.locked.getParent(key);
+        }
+    }
+
+    // A write removes a random element other than the root, which promotes its children and
+    // so takes both stripe locks and copies the parent's children, and then adds it back as a
+    // leaf under another random element. The hierarchy therefore keeps its size however long
+    // the run.
+    @Benchmark
+    public Object mixedConcurrent() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int key = random.nextInt(ELEMENTS);
+
+        if (random.nextInt(100) < WRITE_PERCENT) {
+            if (key != 0) {
+                write(key, random.nextInt(ELEMENTS));
+            }
+            return key;
+        }
+        try {
+            return random.nextBoolean() ? this.concurrent.getParent(key) : this.concurrent.getChildren(key);
+        } catch (IllegalArgumentException removedForNow) {
+            return null;
+        }
+    }
+
+    // Racing writers may find key already removed, or parent gone; a key left out is added
+    // back by the next write that picks it.
+    private void write(int key, int parent) {
+        try {
+            this.concurrent.remove(key);
+        } catch (IllegalArgumentException alreadyRemoved) {
+            // Re-add it below.
+        }
+        try {
+            this.concurrent.add(parent, key);
+        } catch (IllegalArgumentException raced) {
+            // parent is missing, or another writer re-added key first.
+        }
+    }
+
+    @Benchmark
+    public Object mixedGlobalLock() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int key = random.nextInt(ELEMENTS);
+
+        synchronized (this.locked) {
+            if (random.nextInt(100) < WRITE_PERCENT) {
+                int parent = random.nextInt(ELEMENTS);
+                if (key != 0 && key != parent) {
+                    this.locked.remove(key);
+                    this.locked.add(parent, key);
+                }
+                return key;
+            }
+            return random.nextBoolean() ? this.locked.getParent(key) : this.locked.getChildren(key);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads = 1; threads <= 64; threads *= 2) {
+            new Runner(new OptionsBuilder()
+                    .include(ConcurrentHierarchyBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build())
+                    .run();
+        }
+    }
+}
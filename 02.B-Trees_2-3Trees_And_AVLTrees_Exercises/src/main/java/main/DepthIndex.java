@@ -0,0 +1,196 @@
+package main;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Depth of every node plus, per depth, an intrusive doubly linked list of the nodes at that
+// depth. Adding a leaf is O(1). Anything that changes the depth of a whole subtree relinks
+// each node of that subtree: a move always does, in time proportional to the subtree's size.
+// A remove promotes the removed node's descendants one level; when there are more of them than
+// PROMOTION_BUDGET it marks the index stale instead, like AncestorIndex, and the next query
+// rebuilds it top-down. Order within a level is unspecified.
+final class DepthIndex<T> {
+
+    private static final int PROMOTION_BUDGET = 256;
+
+    private static final class Level<T> {
+        MyNode<T> first;
+        MyNode<T> last;
+        int count;
+    }
+
+    private final List<Level<T>> levels = new ArrayList<>();
+    private boolean valid;
+
+    // Indexes the existing subtree of root.
+    DepthIndex(MyNode<T> root) {
+        ensure(root);
+    }
+
+    void linked(MyNode<T> child) {
+        if (this.valid) {
+            child.depth = child.getParent().depth + 1;
+            append(child);
+        }
+    }
+
+    // Called before node's children are handed to its parent.
+    void removed(MyNode<T> node) {
+        if (!this.valid) {
+            return;
+        }
+
+        unlinked(node);
+        int promoted = 0;
+        for (MyNode<T> current = HierarchyIterators.preOrderSuccessor(node, node);
+                current != null && promoted <= PROMOTION_BUDGET;
+                current = HierarchyIterators.preOrderSuccessor(current, node)) {
+            promoted++;
+        }
+
+        if (promoted > PROMOTION_BUDGET) {
+            invalidate();
+            return;
+        }
+        for (MyNode<T> child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            shifted(child, -1);
+        }
+    }
+
+    void invalidate() {
+        this.valid = false;
+        this.levels.clear();
+    }
+
+    int depth(MyNode<T> root, MyNode<T> node) {
+        ensure(root);
+        return node.depth;
+    }
+
+    int height(MyNode<T> root) {
+        ensure(root);
+        return this.levels.size() - 1;
+    }
+
+    void unlinked(MyNode<T> node) {
+        if (!this.valid) {
+            return;
+        }
+
+        Level<T> level = this.levels.get(node.depth);
+        if (node.levelPrevious == null) {
+            level.first = node.levelNext;
+        } else {
+            node.levelPrevious.levelNext = node.levelNext;
+        }
+        if (node.levelNext == null) {
+            level.last = node.levelPrevious;
+        } else {
+            node.levelNext.levelPrevious = node.levelPrevious;
+        }
+        node.levelPrevious = null;
+        node.levelNext = null;
+        level.count--;
+
+        while (!this.levels.isEmpty() && this.levels.get(this.levels.size() - 1).count == 0) {
+            this.levels.remove(this.levels.size() - 1);
+        }
+    }
+
+    // Called after node has been linked under its new parent.
+    void moved(MyNode<T> node) {
+        if (this.valid) {
+            shifted(node, node.getParent().depth + 1 - node.depth);
+        }
+    }
+
+    // The subtree of node now hangs delta levels lower (or higher, for a negative delta).
+    private void shifted(MyNode<T> node, int delta) {
+        if (!this.valid || delta == 0) {
+            return;
+        }
+
+        for (MyNode<T> current = node; current != null; current = HierarchyIterators.preOrderSuccessor(current, node)) {
+            unlinked(current);
+        }
+        for (MyNode<T> current = node; current != null; current = HierarchyIterators.preOrderSuccessor(current, node)) {
+            current.depth += delta;
+            append(current);
+        }
+    }
+
+    // Live view of the nodes' values at depth.
+    Collection<T> atDepth(MyNode<T> root, int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                ensure(root);
+                return new Iterator<T>() {
+                    private MyNode<T> next = depth < levels.size() ? levels.get(depth).first : null;
+
+                    @Override
+                    public boolean hasNext() {
+                        return this.next != null;
+                    }
+
+                    @Override
+                    public T next() {
+                        if (this.next == null) {
+                            throw new NoSuchElementException();
+                        }
+
+                        MyNode<T> current = this.next;
+                        this.next = current.levelNext;
+                        return current.getValue();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                ensure(root);
+                return depth < levels.size() ? levels.get(depth).count : 0;
+            }
+        };
+    }
+
+    private void ensure(MyNode<T> root) {
+        if (this.valid) {
+            return;
+        }
+
+        root.depth = 0;
+        for (MyNode<T> node = root; node != null; node = HierarchyIterators.preOrderSuccessor(node, root)) {
+            if (node != root) {
+                node.depth = node.getParent().depth + 1;
+            }
+            append(node);
+        }
+        this.valid = true;
+    }
+
+    private void append(MyNode<T> node) {
+        while (this.levels.size() <= node.depth) {
+            this.levels.add(new Level<>());
+        }
+
+        Level<T> level = this.levels.get(node.depth);
+        node.levelPrevious = level.last;
+        node.levelNext = null;
+        if (level.last == null) {
+            level.first = node;
+        } else {
+            level.last.levelNext = node;
+        }
+        level.last = node;
+        level.count++;
+    }
+}
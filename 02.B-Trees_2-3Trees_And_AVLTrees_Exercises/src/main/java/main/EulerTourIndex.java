@@ -0,0 +1,265 @@
+package main;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Euler tour of the hierarchy: every node owns an open and a close token in one linked list,
+// and a node's descendants are exactly the tokens between its own two. Tokens carry labels
+// that increase along the list, so containment is two label comparisons. New tokens take the
+// midpoint of their neighbours' labels; when there is no gap, the smallest aligned label range
+// around the insertion point whose density is below an exponentially shrinking threshold is
+// relabeled evenly, which costs O(log n) amortized per insertion.
+//
+// A removal just unlinks the node's two tokens: its children stay nested inside the parent's
+// interval. The tour therefore keeps ancestor relations exactly but not the sibling order
+// that remove produces, and descendant scans return a pre-order of the subtree in tour order.
+//
+// Every open token also holds its subtree's size. Each change adjusts the sizes along the
+// ancestor path it affects, up to the common ancestor for a move, so sizes read in O(1) and
+// updates cost O(depth) on top of the relabeling.
+final class EulerTourIndex<T> {
+
+    static final class Token {
+        long label;
+        Token previous;
+        Token next;
+        MyNode<?> owner;
+        // Set on open tokens only; a token is an open one if its owner points back to it.
+        Token close;
+        int subtreeSize;
+    }
+
+    private static final int LABEL_BITS = 62;
+    private static final double DENSITY_BASE = 1.4;
+
+    private final Token head = new Token();
+    private final Token tail = new Token();
+
+    // Tours the existing subtree of root, which holds count nodes, with evenly spaced labels.
+    EulerTourIndex(MyNode<T> root, int count) {
+        this.head.label = -1;
+        this.tail.label = 1L << LABEL_BITS;
+        this.head.next = this.tail;
+        this.tail.previous = this.head;
+
+        long gap = this.tail.label / (2L * count + 1);
+        long label = 0;
+        MyNode<T> node = root;
+        while (node != null) {
+            node.tourOpen = append(node, label += gap);
+            if (node.getFirstChild() != null) {
+                node = node.getFirstChild();
+                continue;
+            }
+
+            while (true) {
+                node.tourOpen.close = append(node, label += gap);
+                if (node == root) {
+                    node = null;
+                    break;
+                }
+                if (node.getNextSibling() != null) {
+                    node = node.getNextSibling();
+                    break;
+                }
+                node = node.getParent();
+            }
+        }
+        count();
+    }
+
+    // The child becomes the last interval inside its parent's.
+    void linked(MyNode<T> child) {
+        Token close = insertBefore(child.getParent().tourOpen.close, child);
+        child.tourOpen = insertBefore(close, child);
+        child.tourOpen.close = close;
+        child.tourOpen.subtreeSize = 1;
+        resize(child.getParent(), null, 1);
+    }
+
+    // node has been removed and its children already moved up to parent.
+    void unlinked(MyNode<T> node, MyNode<T> parent) {
+        unlink(node.tourOpen);
+        unlink(node.tourOpen.close);
+        node.tourOpen = null;
+        resize(parent, null, -1);
+    }
+
+    boolean isInSubtree(MyNode<T> node, MyNode<T> subtreeRoot) {
+        return subtreeRoot.tourOpen.label <= node.tourOpen.label
+                && node.tourOpen.close.label <= subtreeRoot.tourOpen.close.label;
+    }
+
+    int subtreeSize(MyNode<T> node) {
+        return node.tourOpen.subtreeSize;
+    }
+
+    Iterator<T> descendants(MyNode<T> node) {
+        return new Iterator<T>() {
+            private final Token end = node.tourOpen.close;
+            private Token next = advance(node.tourOpen.next);
+
+            @Override
+            public boolean hasNext() {
+                return this.next != this.end;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (this.next == this.end) {
+                    throw new NoSuchElementException();
+                }
+
+                T value = ((MyNode<T>) this.next.owner).getValue();
+                this.next = advance(this.next.next);
+                return value;
+            }
+
+            private Token advance(Token token) {
+                while (token != this.end && !isOpen(token)) {
+                    token = token.next;
+                }
+                return token;
+            }
+        };
+    }
+
+    // Numbers open tokens in tour order; a subtree's size is the count of opens it spans.
+    private void count() {
+        int opened = 0;
+        for (Token token = this.head.next; token != this.tail; token = token.next) {
+            if (isOpen(token)) {
+                token.subtreeSize = opened++;
+            } else {
+                Token open = token.owner.tourOpen;
+                open.subtreeSize = opened - open.subtreeSize;
+            }
+        }
+    }
+
+    // Adds delta to the sizes of node and its ancestors, stopping below stop.
+    private void resize(MyNode<T> node, MyNode<T> stop, int delta) {
+        for (; node != stop; node = node.getParent()) {
+            node.tourOpen.subtreeSize += delta;
+        }
+    }
+
+    // The lowest ancestor of node, node included, whose interval contains other.
+    private MyNode<T> lowestContaining(MyNode<T> node, MyNode<T> other) {
+        while (!isInSubtree(other, node)) {
+            node = node.getParent();
+        }
+        return node;
+    }
+
+    // The node has been moved from under oldParent to a new parent: its whole interval is cut
+    // out and re-inserted, token by token, as the last interval inside the new parent's. Sizes
+    // change only below the lowest common ancestor of the two parents.
+    void moved(MyNode<T> node, MyNode<T> oldParent) {
+        Token first = node.tourOpen;
+        Token last = first.close;
+        unlink(first, last);
+
+        Token successor = node.getParent().tourOpen.close;
+        for (Token token = first, next; ; token = next) {
+            next = token.next;
+            linkBefore(token, successor);
+            if (token == last) {
+                break;
+            }
+        }
+
+        int size = first.subtreeSize;
+        MyNode<T> common = lowestContaining(oldParent, node);
+        resize(oldParent, common, -size);
+        resize(node.getParent(), common, size);
+    }
+
+    // The node and its whole subtree have left the hierarchy from under parent.
+    void unlinkedSubtree(MyNode<T> node, MyNode<T> parent) {
+        unlink(node.tourOpen, node.tourOpen.close);
+        resize(parent, null, -node.tourOpen.subtreeSize);
+    }
+
+    private static boolean isOpen(Token token) {
+        return token.owner.tourOpen == token;
+    }
+
+    private Token insertBefore(Token successor, MyNode<?> owner) {
+        Token token = new Token();
+        token.owner = owner;
+        linkBefore(token, successor);
+        return token;
+    }
+
+    private void linkBefore(Token token, Token successor) {
+        Token predecessor = successor.previous;
+        if (successor.label - predecessor.label < 2) {
+            spread(predecessor == this.head ? successor : predecessor);
+        }
+
+        token.previous = successor.previous;
+        token.next = successor;
+        token.label = token.previous.label + (successor.label - token.previous.label) / 2;
+        successor.previous.next = token;
+        successor.previous = token;
+    }
+
+    private Token append(MyNode<?> owner, long label) {
+        Token token = new Token();
+        token.owner = owner;
+        token.label = label;
+        token.previous = this.tail.previous;
+        token.next = this.tail;
+        this.tail.previous.next = token;
+        this.tail.previous = token;
+        return token;
+    }
+
+    private void unlink(Token token) {
+        unlink(token, token);
+    }
+
+    private void unlink(Token first, Token last) {
+        first.previous.next = last.next;
+        last.next.previous = first.previous;
+    }
+
+    // Finds the smallest aligned range of 2^bits labels around the token that would still hold
+    // fewer than (2 / DENSITY_BASE)^bits tokens after one more insertion, then spaces the tokens
+    // in it evenly. Tokens outside the range keep their labels.
+    private void spread(Token around) {
+        Token first = around;
+        Token last = around;
+        long count = 1;
+        double limit = 1;
+
+        for (int bits = 1; bits <= LABEL_BITS; bits++) {
+            long size = 1L << bits;
+            long low = around.label & -size;
+            long high = low + size;
+            limit *= 2 / DENSITY_BASE;
+
+            while (first.previous != this.head && first.previous.label >= low) {
+                first = first.previous;
+                count++;
+            }
+            while (last.next != this.tail && last.next.label < high) {
+                last = last.next;
+                count++;
+            }
+
+            if (count + 1 <= limit && size / (count + 1) >= 2) {
+                long gap = size / (count + 1);
+                long label = low;
+                for (Token token = first; token != last.next; token = token.next) {
+                    label += gap;
+                    token.label = label;
+                }
+                return;
+            }
+        }
+        throw new IllegalStateException("Euler tour labels exhausted.");
+    }
+}
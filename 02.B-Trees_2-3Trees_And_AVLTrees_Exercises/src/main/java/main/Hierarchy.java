@@ -1,18 +1,46 @@
 package main;
 
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class Hierarchy<T> implements IHierarchy<T> {
 
+    private static final int PARALLEL_PROBE_THRESHOLD = 1 << 15;
+
     private MyNode<T> root;
     private Map<T, MyNode<T>> allNodes;
+    private final AncestorIndex<T> ancestors = new AncestorIndex<>();
+    private final DepthIndex<T> depths;
+    private final List<HierarchyListener<T>> listeners = new ArrayList<>();
+    private final List<HierarchyRollup<T, ?>> rollups = new ArrayList<>();
+    private List<HierarchyEvent<T>> pendingEvents;
+    private int batchDepth;
+    // Built on first use from the tree as it is then, and maintained from there on.
+    private EulerTourIndex<T> tour;
+    // Likewise.
+    private MerkleIndex<T> hashes;
+    private ToLongFunction<? super T> elementHasher = MerkleIndex.HASH_CODE;
 
     public Hierarchy(T value) {
         this.allNodes = new HashMap<>();
         MyNode<T> newNode = new MyNode<>(value);
         this.root = newNode;
         allNodes.put(value, newNode);
+        ancestors.linked(newNode);
+        depths = new DepthIndex<>(newNode);
+    }
+
+    // Adopts an already linked tree; allNodes must index exactly the nodes under root.
+    Hierarchy(MyNode<T> root, Map<T, MyNode<T>> allNodes) {
+        this.root = root;
+        this.allNodes = allNodes;
+        ancestors.invalidate();
+        depths = new DepthIndex<>(root);
     }
 
     @Override
@@ -30,59 +58,410 @@ public class Hierarchy<T> implements IHierarchy<T> {
 
         MyNode<T> toBeAdded = new MyNode<>(child);
         toBeAdded.setParent(parent);
-        parent.getChildren().add(toBeAdded);
+        parent.addChild(toBeAdded);
 
         allNodes.put(child, toBeAdded);
+        ancestors.linked(toBeAdded);
+        depths.linked(toBeAdded);
+        if (tour != null) {
+            tour.linked(toBeAdded);
+        }
+        if (hashes != null) {
+            hashes.linked(toBeAdded);
+        }
+        for (HierarchyRollup<T, ?> rollup : rollups) {
+            rollup.linked(toBeAdded);
+        }
 
+        if (!listeners.isEmpty()) {
+            record(new HierarchyEvent<>(HierarchyEvent.Type.ADDED, child, null, element));
+            flush();
+        }
     }
 
     @Override
     public void remove(T element) {
-        MyNode<T> toRemove = allNodes.get(element);
+        MyNode<T> toRemove = getNodeByElement(element);
+
+        if (toRemove.getParent() == null) {
+            throw new IllegalStateException();
+        }
 
-        if (!contains(element) || toRemove == null) {
+        MyNode<T> parent = toRemove.getParent();
+        parent.removeChild(toRemove);
+
+        boolean notify = !listeners.isEmpty();
+        depths.removed(toRemove);
+        for (MyNode<T> child = toRemove.getFirstChild(); child != null; child = child.getNextSibling()) {
+            child.setParent(parent);
+            if (notify) {
+                record(new HierarchyEvent<>(HierarchyEvent.Type.REPARENTED, child.getValue(), element, parent.getValue()));
+            }
+        }
+        parent.appendChildrenOf(toRemove);
+
+        allNodes.remove(toRemove.getValue());
+        ancestors.invalidate();
+        if (tour != null) {
+            tour.unlinked(toRemove, parent);
+        }
+        if (hashes != null) {
+            hashes.removed(toRemove, parent);
+        }
+        for (HierarchyRollup<T, ?> rollup : rollups) {
+            rollup.removed(toRemove, parent);
+        }
+
+        if (notify) {
+            record(new HierarchyEvent<>(HierarchyEvent.Type.REMOVED, element, parent.getValue(), null));
+            flush();
+        }
+    }
+
+    // Makes element the last child of newParent, taking its whole subtree along. newParent must
+    // not be inside element's subtree.
+    public void move(T element, T newParent) {
+        MyNode<T> node = getNodeByElement(element);
+        MyNode<T> target = getNodeByElement(newParent);
+
+        if (node.getParent() == null) {
+            throw new IllegalStateException();
+        }
+        if (tour != null ? tour.isInSubtree(target, node) : isAncestorOrSelf(node, target)) {
             throw new IllegalArgumentException();
         }
 
-        if (toRemove.getParent() == null) {
+        MyNode<T> oldParent = node.getParent();
+        oldParent.removeChild(node);
+        node.setParent(target);
+        target.addChild(node);
+
+        ancestors.invalidate();
+        depths.moved(node);
+        if (tour != null) {
+            tour.moved(node, oldParent);
+        }
+        if (hashes != null) {
+            hashes.moved(node, oldParent);
+        }
+        for (HierarchyRollup<T, ?> rollup : rollups) {
+            rollup.moved(node, oldParent);
+        }
+
+        if (!listeners.isEmpty()) {
+            record(new HierarchyEvent<>(HierarchyEvent.Type.REPARENTED, element, oldParent.getValue(), newParent));
+            flush();
+        }
+    }
+
+    // Removes element together with all of its descendants and returns how many elements that
+    // was. Depths and ancestors elsewhere are unaffected, so the ancestor index stays valid.
+    // Listeners get one REMOVED per element, every child before its parent.
+    public int removeSubtree(T element) {
+        MyNode<T> node = getNodeByElement(element);
+
+        if (node.getParent() == null) {
             throw new IllegalStateException();
         }
 
-        MyNode<T> searchedNode = getNodeByElement(element);
+        MyNode<T> parent = node.getParent();
+        parent.removeChild(node);
+        if (tour != null) {
+            tour.unlinkedSubtree(node, parent);
+        }
+        if (hashes != null) {
+            hashes.unlinkedSubtree(node, parent);
+        }
+        for (HierarchyRollup<T, ?> rollup : rollups) {
+            rollup.unlinkedSubtree(node, parent);
+        }
+
+        List<MyNode<T>> removed = listeners.isEmpty() ? null : new ArrayList<>();
+        int count = 0;
+        for (MyNode<T> current = node; current != null; current = HierarchyIterators.preOrderSuccessor(current, node)) {
+            allNodes.remove(current.getValue());
+            depths.unlinked(current);
+            count++;
+            if (removed != null) {
+                removed.add(current);
+            }
+        }
 
-        if (searchedNode == null) {
+        if (removed != null) {
+            for (int i = removed.size() - 1; i >= 0; i--) {
+                MyNode<T> current = removed.get(i);
+                record(new HierarchyEvent<>(HierarchyEvent.Type.REMOVED, current.getValue(), current.getParent().getValue(), null));
+            }
+            flush();
+        }
+        return count;
+    }
+
+    // Starts maintaining per-subtree aggregates of weights, which start out as weights gives
+    // them for every element already there and every element added later.
+    public <V> HierarchyRollup<T, V> addRollup(RollupMonoid<V> monoid, Function<? super T, ? extends V> weights) {
+        if (monoid == null || weights == null) {
             throw new IllegalArgumentException();
         }
 
-        MyNode<T> parent = searchedNode.getParent();
-        parent.getChildren().remove(searchedNode);
+        HierarchyRollup<T, V> rollup = new HierarchyRollup<>(root, allNodes.size(), monoid, weights);
+        rollups.add(rollup);
+        return rollup;
+    }
 
-        searchedNode
-                .getChildren()
-                .forEach(tMyNode -> {
-                    tMyNode.setParent(parent);
-                    parent.addChild(tMyNode);
-                });
+    // Stops maintaining rollup; reading it afterwards throws.
+    public void removeRollup(HierarchyRollup<T, ?> rollup) {
+        if (rollups.remove(rollup)) {
+            rollup.detach();
+        }
+    }
 
-        allNodes.remove(searchedNode.getValue());
+    public void addListener(HierarchyListener<T> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException();
+        }
+        listeners.add(listener);
     }
 
-    private MyNode<T> getNodeByElement(T element) {
-        for (T key : allNodes.keySet()) {
-            if (key.equals(element)) {
-                return allNodes.get(element);
+    public void removeListener(HierarchyListener<T> listener) {
+        listeners.remove(listener);
+    }
+
+    // Runs changes and delivers all of their events as one list when it returns, or throws
+    // after completing some of them. Nested batches deliver with the outermost one.
+    public void batch(Runnable changes) {
+        batchDepth++;
+        try {
+            changes.run();
+        } finally {
+            batchDepth--;
+            flush();
+        }
+    }
+
+    private void record(HierarchyEvent<T> event) {
+        if (pendingEvents == null) {
+            pendingEvents = new ArrayList<>();
+        }
+        pendingEvents.add(event);
+    }
+
+    private void flush() {
+        if (batchDepth > 0 || pendingEvents == null) {
+            return;
+        }
+
+        List<HierarchyEvent<T>> events = Collections.unmodifiableList(pendingEvents);
+        pendingEvents = null;
+        for (HierarchyListener<T> listener : new ArrayList<>(listeners)) {
+            listener.onChanges(events);
+        }
+    }
+
+    // Number of edges between the root and element.
+    public int depth(T element) {
+        return depths.depth(root, getNodeByElement(element));
+    }
+
+    // Live view of the elements at depth, in unspecified order; empty below the deepest level.
+    public Collection<T> getElementsAtDepth(int depth) {
+        return depths.atDepth(root, depth);
+    }
+
+    // Depth of the deepest element.
+    public int height() {
+        return depths.height(root);
+    }
+
+    // The ancestor k levels above element, element itself for k = 0, or null above the root.
+    public T kthAncestor(T element, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        MyNode<T> ancestor = ancestors.ancestor(root, getNodeByElement(element), k);
+        return ancestor == null ? null : ancestor.getValue();
+    }
+
+    // Whether ancestor is a proper ancestor of descendant.
+    public boolean isAncestor(T ancestor, T descendant) {
+        MyNode<T> above = getNodeByElement(ancestor);
+        MyNode<T> below = getNodeByElement(descendant);
+        int distance = ancestors.depth(root, below) - ancestors.depth(root, above);
+
+        return distance > 0 && ancestors.ancestor(root, below, distance) == above;
+    }
+
+    public T lca(T first, T second) {
+        return ancestors.lowestCommonAncestor(root, getNodeByElement(first), getNodeByElement(second)).getValue();
+    }
+
+    // Whether element is subtreeRoot or one of its descendants, in O(1).
+    public boolean isInSubtree(T element, T subtreeRoot) {
+        return tour().isInSubtree(getNodeByElement(element), getNodeByElement(subtreeRoot));
+    }
+
+    // Number of nodes in element's subtree, element included.
+    public int subtreeSize(T element) {
+        return tour().subtreeSize(getNodeByElement(element));
+    }
+
+    // Every descendant of element, read off the Euler tour in pre-order.
+    public Iterable<T> descendants(T element) {
+        MyNode<T> node = getNodeByElement(element);
+        EulerTourIndex<T> tour = tour();
+        return () -> tour.descendants(node);
+    }
+
+    // Replaces hashCode as the element hash that subtree hashes are built from; the hashes are
+    // rebuilt on next use. Elements that share an element hash cannot be told apart, so a
+    // hasher that is injective on the elements, such as Long::longValue for Longs, makes the
+    // hash comparisons below exact up to 64-bit collisions. Both sides of a contentEquals or
+    // diff must use the same hasher.
+    public void setElementHasher(ToLongFunction<? super T> hasher) {
+        if (hasher == null) {
+            throw new IllegalArgumentException();
+        }
+        elementHasher = hasher;
+        hashes = null;
+    }
+
+    // Merkle hash of element's subtree; different hashes mean different subtrees, and equal
+    // ones equal subtrees, sibling order aside, unless element hashes or subtree hashes collide.
+    public long subtreeHash(T element) {
+        return hashes().hash(getNodeByElement(element));
+    }
+
+    // Whether other holds the same elements under the same parents, ignoring sibling order, by
+    // comparing root hashes. A false answer is certain; a true one is probabilistic, as for
+    // subtreeHash.
+    public boolean contentEquals(Hierarchy<T> other) {
+        return getCount() == other.getCount()
+                && Objects.equals(root.getValue(), other.root.getValue())
+                && hashes().hash(root) == other.hashes().hash(other.root);
+    }
+
+    // Changes that turn this hierarchy into other: ADDED for elements only other has, REMOVED
+    // for elements only this one has and REPARENTED for those whose parent differs, in no
+    // particular order. Subtrees whose hashes match on both sides are skipped, so the cost
+    // follows the size of the change and the fan-out above it, not the size of the hierarchies,
+    // and changes hidden by a hash collision are missed.
+    public List<HierarchyEvent<T>> diff(Hierarchy<T> other) {
+        MerkleIndex<T> ours = hashes();
+        MerkleIndex<T> theirs = other.hashes();
+        List<HierarchyEvent<T>> changes = new ArrayList<>();
+        Deque<MyNode<T>> pending = new ArrayDeque<>();
+
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            MyNode<T> node = pending.pop();
+            MyNode<T> match = other.allNodes.get(node.getValue());
+            T parent = valueOf(node.getParent());
+            if (match == null) {
+                changes.add(new HierarchyEvent<>(HierarchyEvent.Type.REMOVED, node.getValue(), parent, null));
+            } else {
+                T otherParent = valueOf(match.getParent());
+                if (!Objects.equals(parent, otherParent)) {
+                    changes.add(new HierarchyEvent<>(HierarchyEvent.Type.REPARENTED, node.getValue(), parent, otherParent));
+                }
+                if (ours.hash(node) == theirs.hash(match)) {
+                    continue;
+                }
+            }
+            pushChildren(node, pending);
+        }
+
+        // Reparented elements were all found above; only additions are left.
+        pending.push(other.root);
+        while (!pending.isEmpty()) {
+            MyNode<T> node = pending.pop();
+            MyNode<T> match = allNodes.get(node.getValue());
+            if (match == null) {
+                changes.add(new HierarchyEvent<>(HierarchyEvent.Type.ADDED, node.getValue(), null, valueOf(node.getParent())));
+            } else if (theirs.hash(node) == ours.hash(match)) {
+                continue;
             }
+            pushChildren(node, pending);
         }
-        return null;
+        return changes;
     }
 
+    private static <T> void pushChildren(MyNode<T> node, Deque<MyNode<T>> pending) {
+        for (MyNode<T> child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+            pending.push(child);
+        }
+    }
+
+    private static <T> T valueOf(MyNode<T> node) {
+        return node == null ? null : node.getValue();
+    }
+
+    private MerkleIndex<T> hashes() {
+        if (hashes == null) {
+            hashes = new MerkleIndex<>(root, allNodes.size(), elementHasher);
+        }
+        return hashes;
+    }
+
+    // Walks up from node, so a move needs no Euler tour until one is asked for.
+    private static <T> boolean isAncestorOrSelf(MyNode<T> ancestor, MyNode<T> node) {
+        for (; node != null; node = node.getParent()) {
+            if (node == ancestor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private EulerTourIndex<T> tour() {
+        if (tour == null) {
+            tour = new EulerTourIndex<>(root, allNodes.size());
+        }
+        return tour;
+    }
+
+    MyNode<T> getRoot() {
+        return root;
+    }
+
+    private MyNode<T> getNodeByElement(T element) {
+        MyNode<T> node = allNodes.get(element);
+
+        if (node == null) {
+            throw new IllegalArgumentException();
+        }
+
+        return node;
+    }
+
+    // Read-only live view of the children's values.
     @Override
     public Iterable<T> getChildren(T element) {
-        return getNodeByElement(element)
-                .getChildren()
-                .stream()
-                .map(MyNode::getValue)
-                .collect(Collectors.toList());
+        List<MyNode<T>> children = getNodeByElement(element).getChildren();
+
+        return new AbstractCollection<T>() {
+            @Override
+            public Iterator<T> iterator() {
+                Iterator<MyNode<T>> iterator = children.iterator();
+
+                return new Iterator<T>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        return iterator.next().getValue();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return children.size();
+            }
+        };
     }
 
     @Override
@@ -98,60 +477,67 @@ public class Hierarchy<T> implements IHierarchy<T> {
 
     @Override
     public boolean contains(T element) {
-
-        for (T key : allNodes.keySet()) {
-            if (key.equals(element)) {
-                return true;
-            }
-        }
-
-        return false;
+        return allNodes.containsKey(element);
     }
 
+    // Computed on first read, probing the smaller side's elements against the larger side's
+    // index; the result reflects both hierarchies as they are at that point. Order is unspecified.
     @Override
     public Iterable<T> getCommonElements(IHierarchy<T> other) {
-        List<T> result = new ArrayList<>();
+        return new LazyCollection<>(() -> commonElements(other));
+    }
 
-        allNodes
-                .forEach((t, tMyNode) -> {
-                    if (other.contains(t)) {
-                        result.add(t);
-                    }
-                });
+    private List<T> commonElements(IHierarchy<T> other) {
+        if (other instanceof Hierarchy) {
+            Map<T, MyNode<T>> otherNodes = ((Hierarchy<T>) other).allNodes;
+            boolean thisIsSmaller = allNodes.size() <= otherNodes.size();
+            Map<T, MyNode<T>> probes = thisIsSmaller ? allNodes : otherNodes;
+            Map<T, MyNode<T>> index = thisIsSmaller ? otherNodes : allNodes;
 
+            return probe(probes.keySet(), index::containsKey, probes.size() >= PARALLEL_PROBE_THRESHOLD);
+        }
+
+        // Another implementation's contains may not be safe to call from several threads.
+        if (other.getCount() < getCount()) {
+            return probe(other, allNodes::containsKey, other.getCount() >= PARALLEL_PROBE_THRESHOLD);
+        }
+        return probe(allNodes.keySet(), other::contains, false);
+    }
 
-        return result;
+    private static <T> List<T> probe(Iterable<T> probes, Predicate<T> index, boolean parallel) {
+        return StreamSupport.stream(probes.spliterator(), parallel)
+                .filter(index)
+                .collect(Collectors.toList());
     }
 
     @Override
     public Iterator<T> iterator() {
-        return new Iterator<T>() {
-            Deque<MyNode<T>> deque = new ArrayDeque<>(
-                    Collections.singletonList(root)
-            );
+        return HierarchyIterators.breadthFirst(root);
+    }
 
-            @Override
-            public boolean hasNext() {
-                return deque.size() > 0;
-            }
+    public Iterable<T> breadthFirst() {
+        return () -> HierarchyIterators.breadthFirst(root);
+    }
 
-            @Override
-            public T next() {
-                MyNode<T> nextElement = deque.poll();
-                deque.addAll(nextElement.getChildren());
+    public Iterable<T> preOrder() {
+        return () -> HierarchyIterators.preOrder(root);
+    }
 
-                return nextElement.getValue();
-            }
-        };
+    public Iterable<T> postOrder() {
+        return () -> HierarchyIterators.postOrder(root);
     }
 
-    private void iterateWithBFS(MyNode<T> root, Queue<MyNode<T>> queue) {
-        queue.offer(root);
+    // Pre-order, split along subtrees.
+    @Override
+    public Spliterator<T> spliterator() {
+        return new SubtreeSpliterator<>(root, getCount());
+    }
 
-        if (root.getChildren().isEmpty()) {
-            return;
-        }
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
 
-        root.getChildren().forEach(tMyNode -> iterateWithBFS(tMyNode, queue));
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
     }
 }
@@ -0,0 +1,210 @@
+package main;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+// Builds a Hierarchy from (parent, child) edges in any order, in one pass and without the
+// per-edge checks of Hierarchy.add. A parent seen for the first time as a parent gets a node
+// straight away, and later edges that name it as a child give it its own parent, so children
+// may come before their parents. Children keep the order of their edges.
+//
+// Validation happens once at the end: exactly one node must be left without a parent, and
+// every node must be reachable from it. Since every other node has exactly one parent, an
+// unreachable node is on a cycle.
+public final class HierarchyBulkLoader {
+
+    private static final int REGION_BYTES = 1 << 30;
+    private static final int CHUNK_BYTES = 1 << 16;
+
+    private HierarchyBulkLoader() {
+    }
+
+    public static <T> Hierarchy<T> load(Iterator<? extends Map.Entry<T, T>> edges, int expectedEdges) {
+        Builder<T> builder = new Builder<>(expectedEdges);
+        while (edges.hasNext()) {
+            Map.Entry<T, T> edge = edges.next();
+            builder.edge(edge.getKey(), edge.getValue());
+        }
+        return builder.build();
+    }
+
+    // Reads lines of two decimal longs, parent first, separated by spaces, tabs or a comma.
+    // Blank lines and lines starting with '#' are skipped. The file is memory-mapped region by
+    // region and copied out in small chunks that the parser consumes byte by byte, so lines may
+    // straddle chunk and region boundaries.
+    public static Hierarchy<Long> loadEdgeList(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] chunk = new byte[CHUNK_BYTES];
+            Builder<Long> builder = null;
+            EdgeParser parser = null;
+
+            for (long position = 0; position < size; position += REGION_BYTES) {
+                int length = (int) Math.min(REGION_BYTES, size - position);
+                MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                while (region.hasRemaining()) {
+                    int count = Math.min(chunk.length, region.remaining());
+                    region.get(chunk, 0, count);
+                    if (builder == null) {
+                        builder = new Builder<>(estimateLines(chunk, count, size));
+                        parser = new EdgeParser(builder);
+                    }
+                    parser.parse(chunk, count);
+                }
+            }
+
+            if (builder == null) {
+                throw new IllegalArgumentException("No edges");
+            }
+            parser.finish();
+            return builder.build();
+        }
+    }
+
+    // Extrapolates the line count of the whole file from the line density of its start.
+    private static int estimateLines(byte[] sample, int count, long size) {
+        int lines = 1;
+        for (int i = 0; i < count; i++) {
+            if (sample[i] == '\n') {
+                lines++;
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE >> 1, size * lines / count);
+    }
+
+    private static final class EdgeParser {
+        private final Builder<Long> builder;
+        private final long[] pair = new long[2];
+        private int field;
+        private long value;
+        private boolean negative;
+        private boolean inNumber;
+        private boolean inComment;
+        private long line = 1;
+
+        EdgeParser(Builder<Long> builder) {
+            this.builder = builder;
+        }
+
+        void parse(byte[] bytes, int count) {
+            for (int i = 0; i < count; i++) {
+                byte b = bytes[i];
+                if (this.inComment) {
+                    if (b == '\n') {
+                        endLine();
+                    }
+                } else if (b >= '0' && b <= '9') {
+                    if (this.field == 2) {
+                        throw malformed();
+                    }
+                    // Accumulated negatively so that Long.MIN_VALUE parses too.
+                    try {
+                        this.value = Math.subtractExact(Math.multiplyExact(this.value, 10), b - '0');
+                    } catch (ArithmeticException overflow) {
+                        throw malformed();
+                    }
+                    this.inNumber = true;
+                } else if (b == ' ' || b == '\t' || b == ',' || b == '\r') {
+                    endField();
+                } else if (b == '\n') {
+                    endLine();
+                } else if (b == '-' && !this.inNumber && !this.negative) {
+                    this.negative = true;
+                } else if (b == '#' && this.field == 0 && !this.inNumber && !this.negative) {
+                    this.inComment = true;
+                } else {
+                    throw malformed();
+                }
+            }
+        }
+
+        void finish() {
+            endLine();
+        }
+
+        private void endField() {
+            if (this.inNumber) {
+                if (!this.negative && this.value == Long.MIN_VALUE) {
+                    throw malformed();
+                }
+                this.pair[this.field++] = this.negative ? this.value : -this.value;
+                this.value = 0;
+                this.negative = false;
+                this.inNumber = false;
+            } else if (this.negative) {
+                throw malformed();
+            }
+        }
+
+        private void endLine() {
+            endField();
+            if (this.field == 2) {
+                this.builder.edge(this.pair[0], this.pair[1]);
+            } else if (this.field == 1) {
+                throw malformed();
+            }
+            this.field = 0;
+            this.inComment = false;
+            this.line++;
+        }
+
+        private IllegalArgumentException malformed() {
+            return new IllegalArgumentException("Malformed edge on line " + this.line);
+        }
+    }
+
+    private static final class Builder<T> {
+        private final Map<T, MyNode<T>> nodes;
+
+        Builder(int expectedEdges) {
+            this.nodes = new HashMap<>((int) Math.min(1 << 30, (expectedEdges + 1L) * 4 / 3 + 1));
+        }
+
+        void edge(T parent, T child) {
+            if (parent == null || child == null) {
+                throw new IllegalArgumentException();
+            }
+
+            MyNode<T> childNode = this.nodes.computeIfAbsent(child, MyNode::new);
+            if (childNode.getParent() != null) {
+                throw new IllegalArgumentException("Second parent for " + child);
+            }
+
+            MyNode<T> parentNode = this.nodes.computeIfAbsent(parent, MyNode::new);
+            childNode.setParent(parentNode);
+            parentNode.addChild(childNode);
+        }
+
+        Hierarchy<T> build() {
+            MyNode<T> root = null;
+            for (MyNode<T> node : this.nodes.values()) {
+                if (node.getParent() == null) {
+                    if (root != null) {
+                        throw new IllegalArgumentException("More than one root");
+                    }
+                    root = node;
+                }
+            }
+            if (root == null) {
+                throw new IllegalArgumentException("No root");
+            }
+
+            int reachable = 0;
+            for (MyNode<T> node = root; node != null; node = HierarchyIterators.preOrderSuccessor(node, root)) {
+                reachable++;
+            }
+            if (reachable != this.nodes.size()) {
+                throw new IllegalArgumentException("Cycle among " + (this.nodes.size() - reachable) + " nodes");
+            }
+
+            return new Hierarchy<>(root, this.nodes);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package main;
+
+import java.util.Objects;
+
+// One change to a Hierarchy. ADDED carries the new element's parent; REMOVED the parent the
+// element had; REPARENTED the element's old and new parent, as when remove promotes the
+// removed element's children to its own parent.
+public final class HierarchyEvent<T> {
+
+    public enum Type {
+        ADDED,
+        REMOVED,
+        REPARENTED
+    }
+
+    private final Type type;
+    private final T element;
+    private final T oldParent;
+    private final T newParent;
+
+    HierarchyEvent(Type type, T element, T oldParent, T newParent) {
+        this.type = type;
+        this.element = element;
+        this.oldParent = oldParent;
+        this.newParent = newParent;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public T getElement() {
+        return element;
+    }
+
+    // Null for ADDED.
+    public T getOldParent() {
+        return oldParent;
+    }
+
+    // Null for REMOVED.
+    public T getNewParent() {
+        return newParent;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HierarchyEvent)) {
+            return false;
+        }
+        HierarchyEvent<?> other = (HierarchyEvent<?>) o;
+        return type == other.type && Objects.equals(element, other.element)
+                && Objects.equals(oldParent, other.oldParent) && Objects.equals(newParent, other.newParent);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, element, oldParent, newParent);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + element + " (" + oldParent + " -> " + newParent + ")";
+    }
+}
@@ -0,0 +1,119 @@
+package main;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Traversals that follow the parent and sibling links in place. Depth-first orders need no
+// auxiliary storage at all; breadth-first queues only nodes that have children. Changing the
+// hierarchy during a traversal leaves the traversal undefined.
+final class HierarchyIterators {
+
+    private HierarchyIterators() {
+    }
+
+    static <T> Iterator<T> breadthFirst(MyNode<T> root) {
+        return new Iterator<T>() {
+            private final Deque<MyNode<T>> parents = new ArrayDeque<>();
+            private MyNode<T> next = root;
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public T next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException();
+                }
+
+                MyNode<T> current = this.next;
+                if (current.getFirstChild() != null) {
+                    this.parents.offer(current);
+                }
+
+                if (current != root && current.getNextSibling() != null) {
+                    this.next = current.getNextSibling();
+                } else {
+                    MyNode<T> parent = this.parents.poll();
+                    this.next = parent == null ? null : parent.getFirstChild();
+                }
+                return current.getValue();
+            }
+        };
+    }
+
+    static <T> Iterator<T> preOrder(MyNode<T> root) {
+        return new Iterator<T>() {
+            private MyNode<T> next = root;
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public T next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException();
+                }
+
+                MyNode<T> current = this.next;
+                this.next = preOrderSuccessor(current, root);
+                return current.getValue();
+            }
+        };
+    }
+
+    static <T> Iterator<T> postOrder(MyNode<T> root) {
+        return new Iterator<T>() {
+            private MyNode<T> next = deepestFirst(root);
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public T next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException();
+                }
+
+                MyNode<T> current = this.next;
+                if (current == root) {
+                    this.next = null;
+                } else if (current.getNextSibling() != null) {
+                    this.next = deepestFirst(current.getNextSibling());
+                } else {
+                    this.next = current.getParent();
+                }
+                return current.getValue();
+            }
+        };
+    }
+
+    // Next node after node in a pre-order walk of bound's subtree, or null past its end.
+    static <T> MyNode<T> preOrderSuccessor(MyNode<T> node, MyNode<T> bound) {
+        if (node.getFirstChild() != null) {
+            return node.getFirstChild();
+        }
+
+        while (node != bound) {
+            if (node.getNextSibling() != null) {
+                return node.getNextSibling();
+            }
+            node = node.getParent();
+        }
+        return null;
+    }
+
+    private static <T> MyNode<T> deepestFirst(MyNode<T> node) {
+        while (node.getFirstChild() != null) {
+            node = node.getFirstChild();
+        }
+        return node;
+    }
+}
@@ -0,0 +1,11 @@
+package main;
+
+import java.util.List;
+
+// Receives the events of one mutation, or of a whole Hierarchy.batch, in the order they
+// happened, after the hierarchy has been updated.
+@FunctionalInterface
+public interface HierarchyListener<T> {
+
+    void onChanges(List<HierarchyEvent<T>> events);
+}
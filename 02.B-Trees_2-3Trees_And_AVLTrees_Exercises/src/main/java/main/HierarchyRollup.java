@@ -0,0 +1,193 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+
+// Per-element weights and, for every element, the monoid combination of the weights in its
+// subtree. Created by Hierarchy.addRollup and kept current by the hierarchy itself, so
+// aggregate is a lookup. Adding an element combines its weight into each ancestor; removing
+// one, moving a subtree or changing a weight updates each ancestor in O(1) for an invertible
+// monoid and recombines it from its children otherwise. Either way the walk up stops at the
+// first ancestor whose aggregate comes out unchanged.
+public final class HierarchyRollup<T, V> {
+
+    private final RollupMonoid<V> monoid;
+    private final Function<? super T, ? extends V> weights;
+    private final Map<T, Cell<T, V>> cells;
+    private boolean detached;
+
+    private static final class Cell<T, V> {
+        final MyNode<T> node;
+        V weight;
+        V aggregate;
+
+        Cell(MyNode<T> node, V weight) {
+            this.node = node;
+            this.weight = weight;
+            this.aggregate = weight;
+        }
+    }
+
+    HierarchyRollup(MyNode<T> root, int count, RollupMonoid<V> monoid, Function<? super T, ? extends V> weights) {
+        this.monoid = monoid;
+        this.weights = weights;
+        this.cells = new HashMap<>(count * 4 / 3 + 1);
+
+        // Every node comes after its ancestors in pre-order, so walking the list backwards
+        // finishes each subtree before its aggregate is combined into the parent's.
+        List<Cell<T, V>> preOrder = new ArrayList<>(count);
+        for (MyNode<T> node = root; node != null; node = HierarchyIterators.preOrderSuccessor(node, root)) {
+            Cell<T, V> cell = new Cell<>(node, weights.apply(node.getValue()));
+            this.cells.put(node.getValue(), cell);
+            preOrder.add(cell);
+        }
+        for (int i = preOrder.size() - 1; i > 0; i--) {
+            Cell<T, V> cell = preOrder.get(i);
+            Cell<T, V> parent = cell(cell.node.getParent());
+            parent.aggregate = monoid.combine(parent.aggregate, cell.aggregate);
+        }
+    }
+
+    public V aggregate(T element) {
+        return cell(element).aggregate;
+    }
+
+    public V weight(T element) {
+        return cell(element).weight;
+    }
+
+    public void setWeight(T element, V weight) {
+        if (weight == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Cell<T, V> cell = cell(element);
+        V previous = cell.weight;
+        cell.weight = weight;
+        if (Objects.equals(previous, weight)) {
+            return;
+        }
+        if (!this.monoid.invertible()) {
+            recombine(cell.node, null);
+            return;
+        }
+
+        for (MyNode<T> node = cell.node; node != null; node = node.getParent()) {
+            Cell<T, V> current = cell(node);
+            current.aggregate = this.monoid.combine(this.monoid.subtract(current.aggregate, previous), weight);
+        }
+    }
+
+    void detach() {
+        this.detached = true;
+    }
+
+    // node has just been added as a leaf.
+    void linked(MyNode<T> node) {
+        Cell<T, V> cell = new Cell<>(node, this.weights.apply(node.getValue()));
+        this.cells.put(node.getValue(), cell);
+        include(node.getParent(), cell.aggregate, null);
+    }
+
+    // node has been removed and its children already moved up to parent.
+    void removed(MyNode<T> node, MyNode<T> parent) {
+        exclude(parent, this.cells.remove(node.getValue()).weight, null);
+    }
+
+    // node's subtree has been cut from under oldParent and attached elsewhere. Only the two
+    // paths below the parents' lowest common ancestor lose or gain it; the common ancestor
+    // is recombined once from children that are by then all current, and from there up the
+    // subtree's share is unchanged.
+    void moved(MyNode<T> node, MyNode<T> oldParent) {
+        V aggregate = cell(node).aggregate;
+        MyNode<T> common = lowestCommonAncestor(oldParent, node.getParent());
+        exclude(oldParent, aggregate, common);
+        include(node.getParent(), aggregate, common);
+        if (!this.monoid.invertible()) {
+            recombine(common, null);
+        }
+    }
+
+    // node's whole subtree has been cut from under parent and is gone.
+    void unlinkedSubtree(MyNode<T> node, MyNode<T> parent) {
+        exclude(parent, cell(node).aggregate, null);
+        for (MyNode<T> current = node; current != null; current = HierarchyIterators.preOrderSuccessor(current, node)) {
+            this.cells.remove(current.getValue());
+        }
+    }
+
+    private static <T> MyNode<T> lowestCommonAncestor(MyNode<T> first, MyNode<T> second) {
+        Set<MyNode<T>> above = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (MyNode<T> node = second; node != null; node = node.getParent()) {
+            above.add(node);
+        }
+        while (!above.contains(first)) {
+            first = first.getParent();
+        }
+        return first;
+    }
+
+    // The walks up from node stop below stop, or at the root for null.
+    private void include(MyNode<T> node, V part, MyNode<T> stop) {
+        for (; node != stop; node = node.getParent()) {
+            Cell<T, V> cell = cell(node);
+            V aggregate = this.monoid.combine(cell.aggregate, part);
+            if (Objects.equals(aggregate, cell.aggregate)) {
+                return;
+            }
+            cell.aggregate = aggregate;
+        }
+    }
+
+    private void exclude(MyNode<T> node, V part, MyNode<T> stop) {
+        if (!this.monoid.invertible()) {
+            recombine(node, stop);
+            return;
+        }
+        if (Objects.equals(part, this.monoid.identity())) {
+            return;
+        }
+
+        for (; node != stop; node = node.getParent()) {
+            Cell<T, V> cell = cell(node);
+            cell.aggregate = this.monoid.subtract(cell.aggregate, part);
+        }
+    }
+
+    private void recombine(MyNode<T> node, MyNode<T> stop) {
+        for (; node != stop; node = node.getParent()) {
+            Cell<T, V> cell = cell(node);
+            V aggregate = cell.weight;
+            for (MyNode<T> child = node.getFirstChild(); child != null; child = child.getNextSibling()) {
+                aggregate = this.monoid.combine(aggregate, cell(child).aggregate);
+            }
+            if (Objects.equals(aggregate, cell.aggregate)) {
+                return;
+            }
+            cell.aggregate = aggregate;
+        }
+    }
+
+    private Cell<T, V> cell(MyNode<T> node) {
+        return this.cells.get(node.getValue());
+    }
+
+    private Cell<T, V> cell(T element) {
+        if (this.detached) {
+            throw new IllegalStateException();
+        }
+
+        Cell<T, V> cell = this.cells.get(element);
+        if (cell == null) {
+            throw new IllegalArgumentException();
+        }
+        return cell;
+    }
+}
@@ -0,0 +1,134 @@
+package main;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Binary image of a Hierarchy: a header with the node count, then every node in pre-order as
+// its key, through a KeyCodec, followed by its child count as an unsigned LEB128 varint. Keys
+// and child counts alone determine the tree, so restoring is one linear pass over a mapped
+// file that links each node under the nearest open ancestor still expecting children, with
+// none of the checks of Hierarchy.add. A snapshot must fit in one mapping of 2 GB.
+public final class HierarchySnapshot {
+
+    private static final int MAGIC = 0x48534E50;
+    private static final int VERSION = 1;
+
+    private HierarchySnapshot() {
+    }
+
+    public static <T> void write(Hierarchy<T> hierarchy, Path file, KeyCodec<T> codec) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(hierarchy.getCount());
+
+            MyNode<T> root = hierarchy.getRoot();
+            for (MyNode<T> node = root; node != null; node = HierarchyIterators.preOrderSuccessor(node, root)) {
+                codec.write(node.getValue(), out);
+                writeVarint(out, node.getChildCount());
+            }
+        }
+    }
+
+    public static <T> Hierarchy<T> read(Path file, KeyCodec<T> codec) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Snapshot larger than one mapping");
+            }
+
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                return read(in, codec);
+            } catch (BufferUnderflowException truncated) {
+                throw new IllegalArgumentException("Truncated snapshot", truncated);
+            }
+        }
+    }
+
+    private static <T> Hierarchy<T> read(MappedByteBuffer in, KeyCodec<T> codec) {
+        if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IllegalArgumentException("Not a hierarchy snapshot");
+        }
+        int count = in.getInt();
+        if (count < 1) {
+            throw new IllegalArgumentException("Corrupt snapshot");
+        }
+
+        Map<T, MyNode<T>> nodes = new HashMap<>((int) Math.min(1 << 30, count * 4L / 3 + 1));
+        @SuppressWarnings({"rawtypes", "unchecked"})
+        MyNode<T>[] open = new MyNode[16];
+        int[] expecting = new int[16];
+        int depth = 0;
+        MyNode<T> root = null;
+
+        for (int i = 0; i < count; i++) {
+            MyNode<T> node = new MyNode<>(codec.read(in));
+            int children = readVarint(in);
+            if (nodes.put(node.getValue(), node) != null) {
+                throw new IllegalArgumentException("Corrupt snapshot");
+            }
+
+            if (root == null) {
+                root = node;
+            } else {
+                if (depth == 0) {
+                    throw new IllegalArgumentException("Corrupt snapshot");
+                }
+                MyNode<T> parent = open[depth - 1];
+                node.setParent(parent);
+                parent.addChild(node);
+                if (--expecting[depth - 1] == 0) {
+                    depth--;
+                }
+            }
+
+            if (children > 0) {
+                if (depth == open.length) {
+                    open = Arrays.copyOf(open, depth * 2);
+                    expecting = Arrays.copyOf(expecting, depth * 2);
+                }
+                open[depth] = node;
+                expecting[depth++] = children;
+            }
+        }
+
+        if (depth != 0 || in.hasRemaining()) {
+            throw new IllegalArgumentException("Corrupt snapshot");
+        }
+        return new Hierarchy<>(root, nodes);
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarint(MappedByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.get();
+            // The fifth byte may only carry the top three bits of a non-negative int.
+            if (shift == 28 && (b & 0x78) != 0) {
+                throw new IllegalArgumentException("Corrupt snapshot");
+            }
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Corrupt snapshot");
+    }
+}
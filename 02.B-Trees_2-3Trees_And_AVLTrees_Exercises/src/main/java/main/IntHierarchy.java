@@ -0,0 +1,523 @@
+package main;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+// Hierarchy of int keys kept in parallel int arrays indexed by slot, with an open-addressing
+// table from key to slot. A mutable hierarchy links children through first/last/next/previous
+// sibling slots; removed slots go on a free list threaded through nextSibling.
+//
+// compact() renumbers the slots in breadth-first order, which puts every node's children in
+// one contiguous slot range, so a single offsets array (CSR without the column array) replaces
+// the four sibling arrays. A compacted hierarchy is read-optimized: the next add or remove
+// first expands it back to the mutable layout in O(n).
+public class IntHierarchy implements IHierarchy<Integer> {
+
+    private static final int NONE = -1;
+    private static final int FREE = -2;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] parent;
+    private int[] table;
+    private int count;
+
+    // Mutable layout.
+    private int[] firstChild;
+    private int[] lastChild;
+    private int[] nextSibling;
+    private int[] previousSibling;
+    private int used;
+    private int freeList = NONE;
+
+    // Compacted layout: the children of slot s are the slots childStart[s] .. childStart[s + 1] - 1.
+    private int[] childStart;
+
+    public IntHierarchy(int root) {
+        this.keys = new int[INITIAL_CAPACITY];
+        this.parent = new int[INITIAL_CAPACITY];
+        this.firstChild = new int[INITIAL_CAPACITY];
+        this.lastChild = new int[INITIAL_CAPACITY];
+        this.nextSibling = new int[INITIAL_CAPACITY];
+        this.previousSibling = new int[INITIAL_CAPACITY];
+        this.table = new int[2 * INITIAL_CAPACITY];
+
+        int slot = allocate(root);
+        this.parent[slot] = NONE;
+        index(slot);
+    }
+
+    @Override
+    public int getCount() {
+        return this.count;
+    }
+
+    public int getRoot() {
+        return this.keys[0];
+    }
+
+    public boolean isCompacted() {
+        return this.childStart != null;
+    }
+
+    @Override
+    public void add(Integer element, Integer child) {
+        if (element == null || child == null) {
+            throw new IllegalArgumentException();
+        }
+        add(element.intValue(), child.intValue());
+    }
+
+    public void add(int element, int child) {
+        int parentSlot = slotOf(element);
+        if (parentSlot == NONE || slotOf(child) != NONE) {
+            throw new IllegalArgumentException();
+        }
+
+        expand();
+        int slot = allocate(child);
+        this.parent[slot] = parentSlot;
+        appendChild(parentSlot, slot);
+        index(slot);
+    }
+
+    @Override
+    public void remove(Integer element) {
+        if (element == null) {
+            throw new IllegalArgumentException();
+        }
+        remove(element.intValue());
+    }
+
+    // Like Hierarchy.remove, the element's children move to the end of its parent's children.
+    public void remove(int element) {
+        int slot = existingSlot(element);
+        if (this.parent[slot] == NONE) {
+            throw new IllegalStateException();
+        }
+
+        expand();
+        int parentSlot = this.parent[slot];
+        unlinkChild(parentSlot, slot);
+
+        int first = this.firstChild[slot];
+        if (first != NONE) {
+            for (int child = first; child != NONE; child = this.nextSibling[child]) {
+                this.parent[child] = parentSlot;
+            }
+            if (this.lastChild[parentSlot] == NONE) {
+                this.firstChild[parentSlot] = first;
+            } else {
+                this.nextSibling[this.lastChild[parentSlot]] = first;
+                this.previousSibling[first] = this.lastChild[parentSlot];
+            }
+            this.lastChild[parentSlot] = this.lastChild[slot];
+        }
+
+        unindex(slot);
+        this.parent[slot] = FREE;
+        this.nextSibling[slot] = this.freeList;
+        this.freeList = slot;
+        this.count--;
+    }
+
+    @Override
+    public Iterable<Integer> getChildren(Integer element) {
+        if (element == null) {
+            throw new IllegalArgumentException();
+        }
+        int slot = existingSlot(element);
+
+        return new AbstractCollection<Integer>() {
+            @Override
+            public Iterator<Integer> iterator() {
+                return children(slot);
+            }
+
+            @Override
+            public int size() {
+                if (isCompacted()) {
+                    return childStart[slot + 1] - childStart[slot];
+                }
+
+                int size = 0;
+                for (PrimitiveIterator.OfInt children = children(slot); children.hasNext(); children.nextInt()) {
+                    size++;
+                }
+                return size;
+            }
+        };
+    }
+
+    public void forEachChild(int element, IntConsumer action) {
+        for (PrimitiveIterator.OfInt children = children(existingSlot(element)); children.hasNext(); ) {
+            action.accept(children.nextInt());
+        }
+    }
+
+    @Override
+    public Integer getParent(Integer element) {
+        if (element == null) {
+            throw new IllegalArgumentException();
+        }
+        int parentSlot = this.parent[existingSlot(element)];
+        return parentSlot == NONE ? null : this.keys[parentSlot];
+    }
+
+    // The root has no parent, which is an IllegalStateException here.
+    public int parentOf(int element) {
+        int parentSlot = this.parent[existingSlot(element)];
+        if (parentSlot == NONE) {
+            throw new IllegalStateException();
+        }
+        return this.keys[parentSlot];
+    }
+
+    @Override
+    public boolean contains(Integer element) {
+        return element != null && contains(element.intValue());
+    }
+
+    public boolean contains(int element) {
+        return slotOf(element) != NONE;
+    }
+
+    // Probes the smaller side's keys against the larger side's table. Order is unspecified.
+    @Override
+    public Iterable<Integer> getCommonElements(IHierarchy<Integer> other) {
+        List<Integer> common = new ArrayList<>();
+        if (other instanceof IntHierarchy && other.getCount() < getCount()) {
+            IntHierarchy smaller = (IntHierarchy) other;
+            for (PrimitiveIterator.OfInt elements = smaller.iterator(); elements.hasNext(); ) {
+                int element = elements.nextInt();
+                if (contains(element)) {
+                    common.add(element);
+                }
+            }
+            return common;
+        }
+
+        for (PrimitiveIterator.OfInt elements = iterator(); elements.hasNext(); ) {
+            int element = elements.nextInt();
+            if (other.contains(element)) {
+                common.add(element);
+            }
+        }
+        return common;
+    }
+
+    // Breadth-first, like Hierarchy; in the compacted layout that is plain slot order.
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        if (isCompacted()) {
+            return new PrimitiveIterator.OfInt() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < count;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (this.next >= count) {
+                        throw new NoSuchElementException();
+                    }
+                    return keys[this.next++];
+                }
+            };
+        }
+
+        int[] order = breadthFirstSlots();
+        return new PrimitiveIterator.OfInt() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < order.length;
+            }
+
+            @Override
+            public int nextInt() {
+                if (this.next >= order.length) {
+                    throw new NoSuchElementException();
+                }
+                return keys[order[this.next++]];
+            }
+        };
+    }
+
+    // Renumbers the slots breadth-first and replaces the sibling arrays with child offsets,
+    // trimming every array to the current count.
+    public void compact() {
+        if (isCompacted()) {
+            return;
+        }
+
+        int[] order = breadthFirstSlots();
+        int[] renamed = new int[this.used];
+        for (int i = 0; i < order.length; i++) {
+            renamed[order[i]] = i;
+        }
+
+        int[] newKeys = new int[this.count];
+        int[] newParent = new int[this.count];
+        int[] newChildStart = new int[this.count + 1];
+        int next = 1;
+        for (int i = 0; i < order.length; i++) {
+            int slot = order[i];
+            newKeys[i] = this.keys[slot];
+            newParent[i] = this.parent[slot] == NONE ? NONE : renamed[this.parent[slot]];
+            newChildStart[i] = next;
+            for (int child = this.firstChild[slot]; child != NONE; child = this.nextSibling[child]) {
+                next++;
+            }
+        }
+        newChildStart[this.count] = next;
+
+        this.keys = newKeys;
+        this.parent = newParent;
+        this.childStart = newChildStart;
+        this.firstChild = null;
+        this.lastChild = null;
+        this.nextSibling = null;
+        this.previousSibling = null;
+        this.used = this.count;
+        this.freeList = NONE;
+        rehash(tableCapacityFor(this.count));
+    }
+
+    // Bytes held by the arrays, excluding object headers.
+    public long footprintBytes() {
+        long ints = this.keys.length + this.parent.length + this.table.length;
+        if (isCompacted()) {
+            ints += this.childStart.length;
+        } else {
+            ints += this.firstChild.length + this.lastChild.length
+                    + this.nextSibling.length + this.previousSibling.length;
+        }
+        return ints * 4L;
+    }
+
+    private PrimitiveIterator.OfInt children(int slot) {
+        if (isCompacted()) {
+            int end = this.childStart[slot + 1];
+            return new PrimitiveIterator.OfInt() {
+                private int next = childStart[slot];
+
+                @Override
+                public boolean hasNext() {
+                    return this.next < end;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (this.next >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    return keys[this.next++];
+                }
+            };
+        }
+
+        return new PrimitiveIterator.OfInt() {
+            private int next = firstChild[slot];
+
+            @Override
+            public boolean hasNext() {
+                return this.next != NONE;
+            }
+
+            @Override
+            public int nextInt() {
+                if (this.next == NONE) {
+                    throw new NoSuchElementException();
+                }
+                int current = this.next;
+                this.next = nextSibling[current];
+                return keys[current];
+            }
+        };
+    }
+
+    private int[] breadthFirstSlots() {
+        int[] order = new int[this.count];
+        int tail = 1;
+        for (int head = 0; head < tail; head++) {
+            for (int child = this.firstChild[order[head]]; child != NONE; child = this.nextSibling[child]) {
+                order[tail++] = child;
+            }
+        }
+        return order;
+    }
+
+    // Rebuilds the sibling links from the child offsets.
+    private void expand() {
+        if (!isCompacted()) {
+            return;
+        }
+
+        int capacity = Math.max(INITIAL_CAPACITY, this.count + (this.count >> 1));
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.parent = Arrays.copyOf(this.parent, capacity);
+        this.firstChild = new int[capacity];
+        this.lastChild = new int[capacity];
+        this.nextSibling = new int[capacity];
+        this.previousSibling = new int[capacity];
+
+        for (int slot = 0; slot < this.count; slot++) {
+            int start = this.childStart[slot];
+            int end = this.childStart[slot + 1];
+            this.firstChild[slot] = start < end ? start : NONE;
+            this.lastChild[slot] = start < end ? end - 1 : NONE;
+            for (int child = start; child < end; child++) {
+                this.previousSibling[child] = child > start ? child - 1 : NONE;
+                this.nextSibling[child] = child < end - 1 ? child + 1 : NONE;
+            }
+        }
+        this.previousSibling[0] = NONE;
+        this.nextSibling[0] = NONE;
+        this.childStart = null;
+    }
+
+    private int allocate(int key) {
+        int slot;
+        if (this.freeList != NONE) {
+            slot = this.freeList;
+            this.freeList = this.nextSibling[slot];
+        } else {
+            if (this.used == this.keys.length) {
+                grow();
+            }
+            slot = this.used++;
+        }
+
+        this.keys[slot] = key;
+        this.firstChild[slot] = NONE;
+        this.lastChild[slot] = NONE;
+        this.nextSibling[slot] = NONE;
+        this.previousSibling[slot] = NONE;
+        this.count++;
+        return slot;
+    }
+
+    private void grow() {
+        int capacity = this.keys.length + (this.keys.length >> 1);
+        this.keys = Arrays.copyOf(this.keys, capacity);
+        this.parent = Arrays.copyOf(this.parent, capacity);
+        this.firstChild = Arrays.copyOf(this.firstChild, capacity);
+        this.lastChild = Arrays.copyOf(this.lastChild, capacity);
+        this.nextSibling = Arrays.copyOf(this.nextSibling, capacity);
+        this.previousSibling = Arrays.copyOf(this.previousSibling, capacity);
+    }
+
+    private void appendChild(int parentSlot, int slot) {
+        int last = this.lastChild[parentSlot];
+        this.previousSibling[slot] = last;
+        this.nextSibling[slot] = NONE;
+        if (last == NONE) {
+            this.firstChild[parentSlot] = slot;
+        } else {
+            this.nextSibling[last] = slot;
+        }
+        this.lastChild[parentSlot] = slot;
+    }
+
+    private void unlinkChild(int parentSlot, int slot) {
+        int previous = this.previousSibling[slot];
+        int next = this.nextSibling[slot];
+        if (previous == NONE) {
+            this.firstChild[parentSlot] = next;
+        } else {
+            this.nextSibling[previous] = next;
+        }
+        if (next == NONE) {
+            this.lastChild[parentSlot] = previous;
+        } else {
+            this.previousSibling[next] = previous;
+        }
+    }
+
+    private int existingSlot(int key) {
+        int slot = slotOf(key);
+        if (slot == NONE) {
+            throw new IllegalArgumentException();
+        }
+        return slot;
+    }
+
+    // The table holds slot + 1, zero marking an empty cell; linear probing, at most 3/4 full.
+    private int slotOf(int key) {
+        int mask = this.table.length - 1;
+        for (int cell = mix(key) & mask; this.table[cell] != 0; cell = (cell + 1) & mask) {
+            int slot = this.table[cell] - 1;
+            if (this.keys[slot] == key) {
+                return slot;
+            }
+        }
+        return NONE;
+    }
+
+    private void index(int slot) {
+        if (4L * this.count > 3L * this.table.length) {
+            rehash(this.table.length * 2);
+        }
+        insertCell(slot);
+    }
+
+    private void insertCell(int slot) {
+        int mask = this.table.length - 1;
+        int cell = mix(this.keys[slot]) & mask;
+        while (this.table[cell] != 0) {
+            cell = (cell + 1) & mask;
+        }
+        this.table[cell] = slot + 1;
+    }
+
+    // Backward-shift deletion keeps every probe run unbroken without tombstones.
+    private void unindex(int slot) {
+        int mask = this.table.length - 1;
+        int cell = mix(this.keys[slot]) & mask;
+        while (this.table[cell] != slot + 1) {
+            cell = (cell + 1) & mask;
+        }
+
+        int hole = cell;
+        for (cell = (hole + 1) & mask; this.table[cell] != 0; cell = (cell + 1) & mask) {
+            int home = mix(this.keys[this.table[cell] - 1]) & mask;
+            if (((cell - home) & mask) >= ((cell - hole) & mask)) {
+                this.table[hole] = this.table[cell];
+                hole = cell;
+            }
+        }
+        this.table[hole] = 0;
+    }
+
+    private void rehash(int capacity) {
+        this.table = new int[capacity];
+        for (int slot = 0; slot < this.used; slot++) {
+            if (this.parent[slot] != FREE) {
+                insertCell(slot);
+            }
+        }
+    }
+
+    private static int tableCapacityFor(int count) {
+        int capacity = INITIAL_CAPACITY;
+        while (4L * count > 3L * capacity) {
+            capacity *= 2;
+        }
+        return capacity;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,60 @@
+package main;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// Writes keys into a snapshot stream and reads them back from a mapped buffer positioned at
+// the key. A codec must read exactly the bytes it wrote.
+public interface KeyCodec<T> {
+
+    void write(T key, DataOutput out) throws IOException;
+
+    T read(ByteBuffer in);
+
+    KeyCodec<Integer> INTEGER = new KeyCodec<>() {
+        @Override
+        public void write(Integer key, DataOutput out) throws IOException {
+            out.writeInt(key);
+        }
+
+        @Override
+        public Integer read(ByteBuffer in) {
+            return in.getInt();
+        }
+    };
+
+    KeyCodec<Long> LONG = new KeyCodec<>() {
+        @Override
+        public void write(Long key, DataOutput out) throws IOException {
+            out.writeLong(key);
+        }
+
+        @Override
+        public Long read(ByteBuffer in) {
+            return in.getLong();
+        }
+    };
+
+    // UTF-8 bytes after their int length.
+    KeyCodec<String> STRING = new KeyCodec<>() {
+        @Override
+        public void write(String key, DataOutput out) throws IOException {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        @Override
+        public String read(ByteBuffer in) {
+            int length = in.getInt();
+            if (length < 0 || length > in.remaining()) {
+                throw new IllegalArgumentException("Corrupt snapshot");
+            }
+            byte[] bytes = new byte[length];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+}
@@ -0,0 +1,47 @@
+package main;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Supplier;
+
+// Read-only collection whose contents are computed once, on first use.
+final class LazyCollection<T> extends AbstractCollection<T> {
+
+    private Supplier<? extends Collection<T>> supplier;
+    private Collection<T> contents;
+
+    LazyCollection(Supplier<? extends Collection<T>> supplier) {
+        this.supplier = supplier;
+    }
+
+    private Collection<T> contents() {
+        if (this.contents == null) {
+            this.contents = this.supplier.get();
+            this.supplier = null;
+        }
+        return this.contents;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        Iterator<T> iterator = contents().iterator();
+
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public T next() {
+                return iterator.next();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return contents().size();
+    }
+}
@@ -0,0 +1,108 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToLongFunction;
+
+// Merkle hash of every subtree: a node's hash mixes its element's hash with the sum of its
+// children's mixed hashes. The sum makes the hash independent of sibling order, which remove
+// and move do not preserve anyway, and lets a child's new hash be swapped into its parent's
+// sum in O(1), so every mutation rehashes just the path above it, stopping early if a hash
+// comes out unchanged.
+//
+// Elements are compared by their hashes alone, so equal subtree hashes are only evidence of
+// equal subtrees: distinct elements with the same element hash, such as the Longs 1 and
+// 1L << 32 under the default hashCode, or a 64-bit collision of whole subtrees, go unnoticed.
+final class MerkleIndex<T> {
+
+    static final ToLongFunction<Object> HASH_CODE = Objects::hashCode;
+
+    private final ToLongFunction<? super T> hasher;
+
+    // Kept apart from MyNode so that hierarchies that never hash do not pay for it.
+    static final class Hashes {
+        long subtree;
+        long children;
+    }
+
+    // Builds the hashes of root's existing subtree, which holds count nodes, bottom-up.
+    MerkleIndex(MyNode<T> root, int count, ToLongFunction<? super T> hasher) {
+        this.hasher = hasher;
+        List<MyNode<T>> preOrder = new ArrayList<>(count);
+        for (MyNode<T> node = root; node != null; node = HierarchyIterators.preOrderSuccessor(node, root)) {
+            node.hashes = new Hashes();
+            preOrder.add(node);
+        }
+        for (int i = preOrder.size() - 1; i >= 0; i--) {
+            MyNode<T> node = preOrder.get(i);
+            node.hashes.subtree = compute(node);
+            if (i > 0) {
+                node.getParent().hashes.children += mix(node.hashes.subtree);
+            }
+        }
+    }
+
+    long hash(MyNode<T> node) {
+        return node.hashes.subtree;
+    }
+
+    // node has just been added as a leaf.
+    void linked(MyNode<T> node) {
+        node.hashes = new Hashes();
+        node.hashes.subtree = compute(node);
+        MyNode<T> parent = node.getParent();
+        parent.hashes.children += mix(node.hashes.subtree);
+        rehash(parent);
+    }
+
+    // node has been removed and its children already moved up to parent.
+    void removed(MyNode<T> node, MyNode<T> parent) {
+        parent.hashes.children += node.hashes.children - mix(node.hashes.subtree);
+        rehash(parent);
+    }
+
+    // node's subtree has been cut from under oldParent and attached to its current parent.
+    void moved(MyNode<T> node, MyNode<T> oldParent) {
+        unlinkedSubtree(node, oldParent);
+        MyNode<T> parent = node.getParent();
+        parent.hashes.children += mix(node.hashes.subtree);
+        rehash(parent);
+    }
+
+    // node's subtree has been cut from under parent.
+    void unlinkedSubtree(MyNode<T> node, MyNode<T> parent) {
+        parent.hashes.children -= mix(node.hashes.subtree);
+        rehash(parent);
+    }
+
+    // node's children sum has changed; recomputes its hash and carries the change upwards.
+    private void rehash(MyNode<T> node) {
+        while (node != null) {
+            long previous = node.hashes.subtree;
+            long updated = compute(node);
+            if (updated == previous) {
+                return;
+            }
+
+            node.hashes.subtree = updated;
+            MyNode<T> parent = node.getParent();
+            if (parent != null) {
+                parent.hashes.children += mix(updated) - mix(previous);
+            }
+            node = parent;
+        }
+    }
+
+    // The salt keeps a leaf's hash, and so its share of the parent's sum, away from zero.
+    private long compute(MyNode<T> node) {
+        return mix(this.hasher.applyAsLong(node.getValue()) * 0x9E3779B97F4A7C15L + node.hashes.children + 0x632BE59BD9B4E019L);
+    }
+
+    // The finalizer of MurmurHash3.
+    private static long mix(long h) {
+        h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+        h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+}
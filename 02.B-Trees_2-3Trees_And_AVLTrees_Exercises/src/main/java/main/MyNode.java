@@ -1,13 +1,37 @@
 package main;
 
-import java.util.ArrayList;
+import java.util.AbstractSequentialList;
 import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
 
+// Children form an intrusive doubly linked list through the sibling fields, so a child is
+// appended or unlinked in O(1) however many siblings it has. The list is circular backwards
+// only: the first child's previousSibling is the last child, which saves a lastChild field,
+// and a leaf spends nothing on children but the null firstChild and a zero count.
 public class MyNode<T> {
 
     private T value;
     private MyNode<T> parent;
-    private List<MyNode<T>> children;
+    private MyNode<T> firstChild;
+    private MyNode<T> previousSibling;
+    private MyNode<T> nextSibling;
+    private int childCount;
+
+    // Owned by AncestorIndex.
+    int liftDepth;
+    MyNode<T>[] jumps;
+
+    // Owned by EulerTourIndex.
+    EulerTourIndex.Token tourOpen;
+
+    // Owned by DepthIndex.
+    int depth;
+    MyNode<T> levelPrevious;
+    MyNode<T> levelNext;
+
+    // Owned by MerkleIndex.
+    MerkleIndex.Hashes hashes;
 
     public MyNode() {
     }
@@ -15,7 +39,6 @@ public class MyNode<T> {
     public MyNode(T value) {
         this.value = value;
         this.parent = null;
-        this.children = new ArrayList<>();
     }
 
     public T getValue() {
@@ -26,16 +49,97 @@ public class MyNode<T> {
         this.value = value;
     }
 
+    // Read-only live view in sibling order.
     public List<MyNode<T>> getChildren() {
-        return children;
+        return new ChildrenView();
     }
 
     public void setChildren(List<MyNode<T>> children) {
-        this.children = children;
+        while (this.firstChild != null) {
+            removeChild(this.firstChild);
+        }
+        children.forEach(this::addChild);
     }
 
     public void addChild(MyNode<T> tMyNode) {
-        this.children.add(tMyNode);
+        tMyNode.nextSibling = null;
+
+        if (this.firstChild == null) {
+            this.firstChild = tMyNode;
+            tMyNode.previousSibling = tMyNode;
+        } else {
+            MyNode<T> last = this.firstChild.previousSibling;
+            last.nextSibling = tMyNode;
+            tMyNode.previousSibling = last;
+            this.firstChild.previousSibling = tMyNode;
+        }
+
+        this.childCount++;
+    }
+
+    public void removeChild(MyNode<T> tMyNode) {
+        MyNode<T> last = this.firstChild.previousSibling;
+
+        if (tMyNode == this.firstChild) {
+            this.firstChild = tMyNode.nextSibling;
+            if (this.firstChild != null) {
+                this.firstChild.previousSibling = last;
+            }
+        } else {
+            tMyNode.previousSibling.nextSibling = tMyNode.nextSibling;
+            if (tMyNode == last) {
+                this.firstChild.previousSibling = tMyNode.previousSibling;
+            } else {
+                tMyNode.nextSibling.previousSibling = tMyNode.previousSibling;
+            }
+        }
+
+        tMyNode.previousSibling = null;
+        tMyNode.nextSibling = null;
+        this.childCount--;
+    }
+
+    // Moves all of other's children to the end of this node's children in O(1); their parent
+    // links are left to the caller.
+    public void appendChildrenOf(MyNode<T> other) {
+        if (other.firstChild == null) {
+            return;
+        }
+
+        if (this.firstChild == null) {
+            this.firstChild = other.firstChild;
+        } else {
+            MyNode<T> last = this.firstChild.previousSibling;
+            MyNode<T> otherLast = other.firstChild.previousSibling;
+            last.nextSibling = other.firstChild;
+            other.firstChild.previousSibling = last;
+            this.firstChild.previousSibling = otherLast;
+        }
+
+        this.childCount += other.childCount;
+        other.firstChild = null;
+        other.childCount = 0;
+    }
+
+    public MyNode<T> getFirstChild() {
+        return firstChild;
+    }
+
+    public MyNode<T> getLastChild() {
+        return firstChild == null ? null : firstChild.previousSibling;
+    }
+
+    // Only the first child's previousSibling, the last child, does not link back to it.
+    public MyNode<T> getPreviousSibling() {
+        return previousSibling == null || previousSibling.nextSibling != this ? null : previousSibling;
+    }
+
+    public MyNode<T> getNextSibling() {
+        return nextSibling;
+    }
+
+    public int getChildCount() {
+        return childCount;
     }
 
     public MyNode<T> getParent() {
@@ -45,4 +149,88 @@ public class MyNode<T> {
     public void setParent(MyNode<T> parent) {
         this.parent = parent;
     }
+
+    private class ChildrenView extends AbstractSequentialList<MyNode<T>> {
+
+        @Override
+        public int size() {
+            return childCount;
+        }
+
+        @Override
+        public ListIterator<MyNode<T>> listIterator(int index) {
+            if (index < 0 || index > childCount) {
+                throw new IndexOutOfBoundsException(index);
+            }
+
+            return new ListIterator<MyNode<T>>() {
+                private MyNode<T> next = firstChild;
+                private int nextIndex;
+
+                {
+                    while (this.nextIndex < index) {
+                        next();
+                    }
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return this.next != null;
+                }
+
+                @Override
+                public MyNode<T> next() {
+                    if (this.next == null) {
+                        throw new NoSuchElementException();
+                    }
+
+                    MyNode<T> current = this.next;
+                    this.next = current.nextSibling;
+                    this.nextIndex++;
+                    return current;
+                }
+
+                @Override
+                public boolean hasPrevious() {
+                    return this.nextIndex > 0;
+                }
+
+                @Override
+                public MyNode<T> previous() {
+                    if (!hasPrevious()) {
+                        throw new NoSuchElementException();
+                    }
+
+                    this.next = this.next == null ? getLastChild() : this.next.previousSibling;
+                    this.nextIndex--;
+                    return this.next;
+                }
+
+                @Override
+                public int nextIndex() {
+                    return this.nextIndex;
+                }
+
+                @Override
+                public int previousIndex() {
+                    return this.nextIndex - 1;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void set(MyNode<T> tMyNode) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void add(MyNode<T> tMyNode) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
 }
@@ -0,0 +1,69 @@
+package main;
+
+// How a HierarchyRollup combines weights. combine must be associative and commutative, since
+// children are combined in whatever order the tree has at the time, with identity as its
+// neutral element.
+public interface RollupMonoid<V> {
+
+    V identity();
+
+    V combine(V left, V right);
+
+    // Whether subtract undoes combine. Invertible monoids take a removed weight back out of each
+    // ancestor in O(1); the others recombine each ancestor from its children instead.
+    default boolean invertible() {
+        return false;
+    }
+
+    default V subtract(V total, V part) {
+        throw new UnsupportedOperationException();
+    }
+
+    // Wraps around on overflow, which keeps subtraction exact. With a weight of 1 per element
+    // it counts them.
+    RollupMonoid<Long> LONG_SUM = new RollupMonoid<>() {
+        @Override
+        public Long identity() {
+            return 0L;
+        }
+
+        @Override
+        public Long combine(Long left, Long right) {
+            return left + right;
+        }
+
+        @Override
+        public boolean invertible() {
+            return true;
+        }
+
+        @Override
+        public Long subtract(Long total, Long part) {
+            return total - part;
+        }
+    };
+
+    RollupMonoid<Long> LONG_MAX = new RollupMonoid<>() {
+        @Override
+        public Long identity() {
+            return Long.MIN_VALUE;
+        }
+
+        @Override
+        public Long combine(Long left, Long right) {
+            return Math.max(left, right);
+        }
+    };
+
+    RollupMonoid<Long> LONG_MIN = new RollupMonoid<>() {
+        @Override
+        public Long identity() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public Long combine(Long left, Long right) {
+            return Math.min(left, right);
+        }
+    };
+}
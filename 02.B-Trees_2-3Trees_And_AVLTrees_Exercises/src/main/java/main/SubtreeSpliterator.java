@@ -0,0 +1,101 @@
+package main;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+// Pre-order spliterator over a run of sibling subtrees. Splitting hands the first half of the
+// run to the new spliterator; a run of one subtree is first opened up into its root, visited
+// alone, followed by its children's subtrees. Every split is a prefix, so the encounter order
+// stays the pre-order of the whole hierarchy.
+final class SubtreeSpliterator<T> implements Spliterator<T> {
+
+    private List<MyNode<T>> roots;
+    private int from;
+    private int to;
+    private boolean firstIsSingle;
+    private MyNode<T> walkRoot;
+    private MyNode<T> current;
+    private long estimate;
+
+    SubtreeSpliterator(MyNode<T> root, long estimate) {
+        this(List.of(root), 0, 1, false, estimate);
+    }
+
+    private SubtreeSpliterator(List<MyNode<T>> roots, int from, int to, boolean firstIsSingle, long estimate) {
+        this.roots = roots;
+        this.from = from;
+        this.to = to;
+        this.firstIsSingle = firstIsSingle;
+        this.estimate = estimate;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (this.current == null) {
+            if (this.from == this.to) {
+                return false;
+            }
+
+            this.walkRoot = this.roots.get(this.from++);
+            if (this.firstIsSingle) {
+                this.firstIsSingle = false;
+                action.accept(this.walkRoot.getValue());
+                return true;
+            }
+            this.current = this.walkRoot;
+        }
+
+        MyNode<T> node = this.current;
+        this.current = HierarchyIterators.preOrderSuccessor(node, this.walkRoot);
+        action.accept(node.getValue());
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (this.current == null && this.to - this.from == 1 && !this.firstIsSingle) {
+            MyNode<T> root = this.roots.get(this.from);
+            if (root.getFirstChild() == null) {
+                return null;
+            }
+
+            List<MyNode<T>> opened = new ArrayList<>(root.getChildCount() + 1);
+            opened.add(root);
+            opened.addAll(root.getChildren());
+            this.roots = opened;
+            this.from = 0;
+            this.to = opened.size();
+            this.firstIsSingle = true;
+        }
+
+        if (this.to - this.from < 2) {
+            return null;
+        }
+
+        // A walk in progress belongs to the prefix, so it moves to the new spliterator.
+        int middle = (this.from + this.to + 1) >>> 1;
+        SubtreeSpliterator<T> prefix = new SubtreeSpliterator<>(
+                this.roots, this.from, middle, this.firstIsSingle, this.estimate >>> 1);
+        prefix.walkRoot = this.walkRoot;
+        prefix.current = this.current;
+
+        this.from = middle;
+        this.firstIsSingle = false;
+        this.walkRoot = null;
+        this.current = null;
+        this.estimate -= prefix.estimate;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.estimate;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT;
+    }
+}
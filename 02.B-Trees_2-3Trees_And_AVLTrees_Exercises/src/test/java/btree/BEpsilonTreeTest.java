@@ -0,0 +1,96 @@
+package btree;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BEpsilonTreeTest {
+
+    private static Long sum(Long current, Long delta) {
+        return current == null ? delta : current + delta;
+    }
+
+    @Test
+    public void testRandomOperationsMatchHashMap() {
+        BEpsilonTree<Integer, Long> tree = new BEpsilonTree<>(4, 8, BEpsilonTreeTest::sum);
+        Map<Integer, Long> expected = new HashMap<>();
+        Random random = new Random(21);
+
+        for (int i = 0; i < 50000; i++) {
+            int key = random.nextInt(3000);
+            int operation = random.nextInt(10);
+
+            if (operation < 5) {
+                tree.put(key, (long) i);
+                expected.put(key, (long) i);
+            } else if (operation < 8) {
+                tree.upsert(key, 3L);
+                expected.merge(key, 3L, Long::sum);
+            } else {
+                tree.remove(key);
+                expected.remove(key);
+            }
+
+            if (i % 997 == 0) {
+                int probe = random.nextInt(3000);
+                assertEquals(expected.get(probe), tree.get(probe));
+            }
+        }
+
+        for (int key = 0; key < 3000; key++) {
+            assertEquals(expected.get(key), tree.get(key));
+        }
+
+        tree.flushAll();
+        for (int key = 0; key < 3000; key++) {
+            assertEquals(expected.get(key), tree.get(key));
+        }
+    }
+
+    @Test
+    public void testUpsertsFoldInOrderAboveTheLeaf() {
+        BEpsilonTree<String, String> tree = new BEpsilonTree<>(3, 2,
+                (current, delta) -> current == null ? delta : current + delta);
+
+        tree.put("key", "a");
+        for (int i = 0; i < 200; i++) {
+            tree.put("filler" + i, "");
+        }
+        tree.upsert("key", "b");
+        tree.upsert("key", "c");
+        tree.upsert("missing", "x");
+
+        assertEquals("abc", tree.get("key"));
+        assertEquals("x", tree.get("missing"));
+        assertTrue(tree.height() > 2);
+
+        tree.remove("key");
+        tree.upsert("key", "d");
+        assertEquals("d", tree.get("key"));
+
+        tree.flushAll();
+        assertEquals("d", tree.get("key"));
+        assertEquals("x", tree.get("missing"));
+    }
+
+    @Test
+    public void testSequentialLoadKeepsLookupsLogarithmic() {
+        BEpsilonTree<Integer, Integer> tree = new BEpsilonTree<>(Integer::sum);
+
+        for (int i = 0; i < 200000; i++) {
+            tree.put(i, i);
+        }
+
+        assertTrue(tree.height() <= 5);
+        assertEquals(Integer.valueOf(123456), tree.get(123456));
+        assertFalse(tree.containsKey(200000));
+        assertNull(tree.get(-1));
+    }
+}
@@ -0,0 +1,164 @@
+package btree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BLinkTreeTest {
+
+    @Test
+    public void testSingleThreaded() {
+        BLinkTree<Integer, String> tree = new BLinkTree<>(3);
+        for (int i = 1000; i > 0; i--) {
+            tree.put(i, "v" + i);
+        }
+        tree.put(500, "x");
+
+        assertEquals(1000, tree.size());
+        assertEquals("x", tree.get(500));
+        assertEquals("v1", tree.get(1));
+        assertNull(tree.get(1001));
+
+        List<Integer> keys = new ArrayList<>();
+        tree.forEach((key, value) -> keys.add(key));
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(i + 1, (int) keys.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentWritersAndReaders() throws Exception {
+        int writers = 8;
+        int keysPerWriter = 20_000;
+        BLinkTree<Integer, Integer> tree = new BLinkTree<>(4);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int w = 0; w < writers; w++) {
+            int writer = w;
+            futures.add(executor.submit(() -> {
+                start.await();
+                // Interleaved key ranges make writers split the same leaves.
+                for (int i = 0; i < keysPerWriter; i++) {
+                    int key = i * writers + writer;
+                    tree.put(key, key);
+                    if (tree.get(key) == null) {
+                        throw new AssertionError("Own write not visible: " + key);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // Writer 0 inserts its keys in increasing order, so once a key is seen all smaller ones
+        // written by it must stay visible.
+        for (int r = 0; r < 2; r++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int highestSeen = -1;
+                while (!done.get()) {
+                    int next = (highestSeen + 1) * writers;
+                    if (tree.get(next) != null) {
+                        highestSeen++;
+                    }
+                    if (highestSeen >= 0 && tree.get(highestSeen * writers) == null) {
+                        throw new AssertionError("Key disappeared: " + highestSeen * writers);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (int i = 0; i < writers; i++) {
+            futures.get(i).get(60, TimeUnit.SECONDS);
+        }
+        done.set(true);
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(writers * keysPerWriter, tree.size());
+        int[] expected = {0};
+        tree.forEach((key, value) -> {
+            assertEquals(expected[0]++, (int) key);
+            assertEquals(key, value);
+        });
+        assertEquals(writers * keysPerWriter, expected[0]);
+        assertTrue(tree.containsKey(writers * keysPerWriter - 1));
+        assertFalse(tree.containsKey(writers * keysPerWriter));
+    }
+
+    @Test
+    public void testConcurrentSplitsBeforeRootIsInstalled() throws Exception {
+        int threads = 8;
+        int keysPerThread = 64;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // A fresh tree with a tiny order splits its root leaf within a few puts, so a writer
+        // that reached the new sibling through the right link may split it again before the
+        // writer of the first split has installed the root above both.
+        for (int round = 0; round < 300; round++) {
+            BLinkTree<Integer, Integer> tree = new BLinkTree<>(3);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < keysPerThread; i++) {
+                        tree.put(i * threads + thread, thread);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+
+            assertEquals(threads * keysPerThread, tree.size());
+            int[] expected = {0};
+            tree.forEach((key, value) -> assertEquals(expected[0]++, (int) key));
+            assertEquals(threads * keysPerThread, expected[0]);
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    public void testConcurrentOverwritesKeepSize() throws Exception {
+        BLinkTree<Integer, Integer> tree = new BLinkTree<>(5);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    tree.put(i, thread);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(10_000, tree.size());
+    }
+}
@@ -0,0 +1,126 @@
+package btree;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BPlusTreeBulkLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLoadsSortedStream() {
+        BPlusTree<Integer, String> tree = BPlusTreeBulkLoader.load(
+                IntStream.range(0, 10_000).mapToObj(i -> Map.entry(i * 2, "v" + i)), 8, 1.0);
+
+        assertEquals(10_000, tree.size());
+        assertEquals("v1234", tree.get(2468));
+        assertFalse(tree.containsKey(2469));
+
+        Iterator<Map.Entry<Integer, String>> cursor = tree.scan(100, 110);
+        for (int key = 100; key <= 110; key += 2) {
+            assertEquals(key, (int) cursor.next().getKey());
+        }
+        assertFalse(cursor.hasNext());
+        assertEquals(1000, count(tree.scanDescending(1998, null)));
+    }
+
+    @Test
+    public void testFullPackingUsesFewerNodesThanInserts() {
+        BPlusTree<Integer, Integer> inserted = new BPlusTree<>(3);
+        for (int i = 0; i < 1000; i++) {
+            inserted.put(i, i);
+        }
+
+        BPlusTree<Integer, Integer> loaded = BPlusTreeBulkLoader.load(
+                IntStream.range(0, 1000).mapToObj(i -> Map.entry(i, i)), 3, 1.0);
+
+        assertTrue(lines(loaded.getAsString()) < lines(inserted.getAsString()));
+    }
+
+    @Test
+    public void testLoadedTreeAcceptsInserts() {
+        BPlusTree<Integer, Integer> tree = BPlusTreeBulkLoader.load(
+                IntStream.range(0, 500).mapToObj(i -> Map.entry(i * 3, i)), 4, 0.5);
+
+        for (int i = 0; i < 1500; i++) {
+            tree.put(i, -i);
+        }
+
+        assertEquals(1500, tree.size());
+        assertEquals(1500, count(tree.scan(null, null)));
+        assertEquals(-1499, (int) tree.get(1499));
+    }
+
+    @Test
+    public void testLoadEmptyAndSingle() {
+        BPlusTree<Integer, Integer> empty = BPlusTreeBulkLoader.load(
+                Collections.<Map.Entry<Integer, Integer>>emptyIterator(), 3, 1.0);
+        assertTrue(empty.isEmpty());
+        assertFalse(empty.scan(null, null).hasNext());
+
+        BPlusTree<Integer, Integer> single = BPlusTreeBulkLoader.load(
+                Collections.singletonList(Map.entry(1, 1)).iterator(), 3, 1.0);
+        assertEquals(1, (int) single.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsUnsortedInput() {
+        BPlusTreeBulkLoader.load(Arrays.asList(Map.entry(2, 2), Map.entry(1, 1)).iterator(), 3, 1.0);
+    }
+
+    @Test
+    public void testLoadsDiskTree() throws IOException {
+        Path path = folder.newFile().toPath();
+
+        try (DiskBPlusTree tree = new DiskBPlusTree(path, 256, 8)) {
+            BPlusTreeBulkLoader.load(LongStream.range(0, 50_000)
+                    .mapToObj(i -> (Map.Entry<Long, Long>) new AbstractMap.SimpleImmutableEntry<>(i, -i))
+                    .iterator(), tree, 0.9);
+            assertEquals(50_000, tree.size());
+        }
+
+        try (DiskBPlusTree tree = new DiskBPlusTree(path, 256, 8, new WriteAheadLog(folder.newFile().toPath()))) {
+            assertEquals(50_000, tree.size());
+            assertEquals(-31_337, tree.get(31_337, 0));
+
+            DiskBPlusTree.Cursor cursor = tree.scan(0, Long.MAX_VALUE);
+            long expected = 0;
+            while (cursor.next()) {
+                assertEquals(expected++, cursor.key());
+            }
+            assertEquals(50_000, expected);
+
+            tree.put(50_000, 1);
+            assertEquals(1, tree.get(50_000, 0));
+        }
+    }
+
+    private static int count(Iterator<?> iterator) {
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+
+    private static int lines(String text) {
+        return text.split(System.lineSeparator()).length;
+    }
+}
@@ -0,0 +1,99 @@
+package btree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BPlusTreeTest {
+
+    @Test
+    public void testInsertSingle() {
+        BPlusTree<Integer, String> tree = new BPlusTree<>();
+        tree.put(13, "13");
+        assertEquals("13", tree.getAsString());
+        assertEquals("13", tree.get(13));
+    }
+
+    @Test
+    public void testValuesLiveOnlyInLeaves() {
+        BPlusTree<Integer, String> tree = new BPlusTree<>();
+        tree.put(13, "a");
+        tree.put(42, "b");
+        tree.put(69, "c");
+        assertEquals("42" + System.lineSeparator() +
+                "13" + System.lineSeparator() +
+                "42 69", tree.getAsString());
+    }
+
+    @Test
+    public void testPutReplacesValue() {
+        BPlusTree<Integer, String> tree = new BPlusTree<>();
+        tree.put(1, "a");
+        tree.put(1, "b");
+        assertEquals(1, tree.size());
+        assertEquals("b", tree.get(1));
+    }
+
+    @Test
+    public void testGetMissing() {
+        BPlusTree<Integer, String> tree = new BPlusTree<>();
+        assertNull(tree.get(1));
+        tree.put(1, "a");
+        assertNull(tree.get(2));
+        assertFalse(tree.containsKey(2));
+        assertTrue(tree.containsKey(1));
+    }
+
+    @Test
+    public void testScanMatchesSortedMap() {
+        Random random = new Random(7);
+        BPlusTree<Integer, Integer> tree = new BPlusTree<>(5);
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(10000);
+            tree.put(key, i);
+            expected.put(key, i);
+        }
+
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected.subMap(2500, true, 7500, true).entrySet()),
+                toList(tree.scan(2500, 7500)));
+        assertEquals(new ArrayList<>(expected.entrySet()), toList(tree.scan(null, null)));
+        assertEquals(new ArrayList<>(expected.headMap(100, true).descendingMap().entrySet()),
+                toList(tree.scanDescending(100, null)));
+    }
+
+    @Test
+    public void testScanEmptyRange() {
+        BPlusTree<Integer, Integer> tree = new BPlusTree<>();
+        assertFalse(tree.scan(1, 10).hasNext());
+        for (int i = 0; i < 100; i += 10) {
+            tree.put(i, i);
+        }
+        assertFalse(tree.scan(41, 49).hasNext());
+        assertFalse(tree.scan(91, null).hasNext());
+        assertFalse(tree.scanDescending(-1, null).hasNext());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testScanInvertedBounds() {
+        new BPlusTree<Integer, Integer>().scan(10, 1);
+    }
+
+    private static <K, V> List<Map.Entry<K, V>> toList(Iterator<Map.Entry<K, V>> cursor) {
+        List<Map.Entry<K, V>> result = new ArrayList<>();
+        cursor.forEachRemaining(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,206 @@
+package btree;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CowBPlusTreeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPutGetAndScanWithSmallPages() throws IOException {
+        Path path = folder.newFile().toPath();
+        Random random = new Random(5);
+        TreeMap<Long, Long> expected = new TreeMap<>();
+
+        try (CowBPlusTree tree = new CowBPlusTree(path, 64, 16)) {
+            try (CowBPlusTree.WriteTransaction txn = tree.beginWrite()) {
+                for (int i = 0; i < 5000; i++) {
+                    long key = random.nextInt(8000);
+                    txn.put(key, i);
+                    expected.put(key, (long) i);
+                }
+                txn.commit();
+            }
+
+            assertEquals(expected.size(), tree.size());
+            for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+                assertEquals((long) entry.getValue(), tree.get(entry.getKey(), -1));
+            }
+
+            try (CowBPlusTree.Snapshot snapshot = tree.snapshot()) {
+                CowBPlusTree.Cursor cursor = snapshot.scan(1000, 3000);
+                for (Map.Entry<Long, Long> entry : expected.subMap(1000L, true, 3000L, true).entrySet()) {
+                    assertTrue(cursor.next());
+                    assertEquals((long) entry.getKey(), cursor.key());
+                    assertEquals((long) entry.getValue(), cursor.value());
+                }
+                assertFalse(cursor.next());
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshotIsIsolatedFromLaterCommits() throws IOException {
+        Path path = folder.newFile().toPath();
+
+        try (CowBPlusTree tree = new CowBPlusTree(path, 128, 64)) {
+            for (long i = 0; i < 500; i++) {
+                tree.put(i, i);
+            }
+
+            try (CowBPlusTree.Snapshot snapshot = tree.snapshot()) {
+                for (long i = 0; i < 2000; i++) {
+                    tree.put(i, -i);
+                }
+
+                assertEquals(500, snapshot.size());
+                for (long i = 0; i < 500; i++) {
+                    assertEquals(i, snapshot.get(i, Long.MIN_VALUE));
+                }
+                assertEquals(-1, snapshot.get(1500, -1));
+            }
+
+            assertEquals(2000, tree.size());
+            assertEquals(-1500, tree.get(1500, 0));
+        }
+    }
+
+    @Test
+    public void testAbortedTransactionLeavesNoTrace() throws IOException {
+        Path path = folder.newFile().toPath();
+
+        try (CowBPlusTree tree = new CowBPlusTree(path, 128, 64)) {
+            tree.put(1, 1);
+
+            try (CowBPlusTree.WriteTransaction txn = tree.beginWrite()) {
+                for (long i = 2; i < 300; i++) {
+                    txn.put(i, i);
+                }
+                assertEquals(299, txn.get(299, -1));
+            }
+
+            assertEquals(1, tree.size());
+            assertEquals(-1, tree.get(299, -1));
+        }
+    }
+
+    @Test
+    public void testFreedPagesAreReusedOnceReadersMoveOn() throws IOException {
+        Path path = folder.newFile().toPath();
+
+        try (CowBPlusTree tree = new CowBPlusTree(path, 128, 64)) {
+            for (long i = 0; i < 1000; i++) {
+                tree.put(i, i);
+            }
+            long sizeAfterLoad = Files.size(path);
+
+            for (int round = 0; round < 20; round++) {
+                for (long i = 0; i < 1000; i++) {
+                    tree.put(i, round);
+                }
+            }
+
+            assertEquals(sizeAfterLoad, Files.size(path));
+            assertEquals(19, tree.get(999, -1));
+        }
+    }
+
+    @Test
+    public void testReopenRecoversLastCommitAndTornMeta() throws IOException {
+        Path path = folder.newFile().toPath();
+
+        try (CowBPlusTree tree = new CowBPlusTree(path, 256, 32)) {
+            for (long i = 0; i < 3000; i++) {
+                tree.put(i, i * 3);
+            }
+        }
+
+        try (CowBPlusTree tree = new CowBPlusTree(path, 256, 32)) {
+            assertEquals(3000, tree.size());
+            assertEquals(2997 * 3, tree.get(2997, -1));
+            tree.put(5000, 1);
+        }
+
+        // Corrupt the newest meta page: the previous one must still describe a complete tree.
+        try (CowBPlusTree tree = new CowBPlusTree(path, 256, 32);
+             CowBPlusTree.Snapshot snapshot = tree.snapshot()) {
+            long newestSlot = snapshot.getTxnId() % 2;
+            byte[] bytes = Files.readAllBytes(path);
+            bytes[(int) newestSlot * 256 + 20] ^= 0x5A;
+            Files.write(path, bytes);
+        }
+
+        try (CowBPlusTree tree = new CowBPlusTree(path, 256, 32)) {
+            assertEquals(3000, tree.size());
+            assertEquals(-1, tree.get(5000, -1));
+            assertEquals(2997 * 3, tree.get(2997, -1));
+        }
+    }
+
+    @Test
+    public void testConcurrentReadersSeeConsistentSnapshots() throws Exception {
+        Path path = folder.newFile().toPath();
+
+        try (CowBPlusTree tree = new CowBPlusTree(path, 256, 256)) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicReference<String> failure = new AtomicReference<>();
+
+            // Every commit writes the same value to all keys, so a snapshot must never mix values.
+            Thread[] readers = new Thread[3];
+            for (int r = 0; r < readers.length; r++) {
+                readers[r] = new Thread(() -> {
+                    while (running.get() && failure.get() == null) {
+                        try (CowBPlusTree.Snapshot snapshot = tree.snapshot()) {
+                            CowBPlusTree.Cursor cursor = snapshot.scan(Long.MIN_VALUE, Long.MAX_VALUE);
+                            long seen = -1;
+                            long count = 0;
+                            while (cursor.next()) {
+                                if (seen >= 0 && cursor.value() != seen) {
+                                    failure.set("Mixed versions in txn " + snapshot.getTxnId());
+                                }
+                                seen = cursor.value();
+                                count++;
+                            }
+                            if (count != snapshot.size()) {
+                                failure.set("Scanned " + count + " of " + snapshot.size());
+                            }
+                        }
+                    }
+                });
+                readers[r].start();
+            }
+
+            for (long version = 0; version < 200; version++) {
+                try (CowBPlusTree.WriteTransaction txn = tree.beginWrite()) {
+                    for (long key = 0; key < 300; key++) {
+                        txn.put(key, version);
+                    }
+                    txn.commit();
+                }
+            }
+
+            running.set(false);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+            assertNull(failure.get());
+        }
+    }
+}
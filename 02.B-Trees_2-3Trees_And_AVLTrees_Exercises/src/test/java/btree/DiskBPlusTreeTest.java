@@ -0,0 +1,104 @@
+package btree;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DiskBPlusTreeTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPutAndGetWithTinyPagesAndPool() throws IOException {
+        Path path = folder.newFile().toPath();
+        Random random = new Random(11);
+        TreeMap<Long, Long> expected = new TreeMap<>();
+
+        try (DiskBPlusTree tree = new DiskBPlusTree(path, 64, 4)) {
+            for (int i = 0; i < 3000; i++) {
+                long key = random.nextInt(5000);
+                tree.put(key, i);
+                expected.put(key, (long) i);
+            }
+
+            assertEquals(expected.size(), tree.size());
+            for (Map.Entry<Long, Long> entry : expected.entrySet()) {
+                assertEquals((long) entry.getValue(), tree.get(entry.getKey(), -1));
+            }
+            assertFalse(tree.containsKey(5000));
+            assertTrue(tree.getBufferPool().getWrites() > 0);
+        }
+    }
+
+    @Test
+    public void testReopenKeepsData() throws IOException {
+        Path path = folder.newFile().toPath();
+
+        try (DiskBPlusTree tree = new DiskBPlusTree(path, 256, 8)) {
+            for (long i = 0; i < 1000; i++) {
+                tree.put(i * 2, i);
+            }
+        }
+
+        try (DiskBPlusTree tree = new DiskBPlusTree(path, 256, 8)) {
+            assertEquals(1000, tree.size());
+            assertEquals(499, tree.get(998, -1));
+            assertEquals(-1, tree.get(999, -1));
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testReopenWithDifferentPageSizeFails() throws IOException {
+        Path path = folder.newFile().toPath();
+        new DiskBPlusTree(path, 256, 8).close();
+        new DiskBPlusTree(path, 512, 8);
+    }
+
+    @Test
+    public void testScanWalksLeaves() throws IOException {
+        Path path = folder.newFile().toPath();
+
+        try (DiskBPlusTree tree = new DiskBPlusTree(path, 128, 6)) {
+            for (long i = 1000; i > 0; i--) {
+                tree.put(i, -i);
+            }
+
+            DiskBPlusTree.Cursor cursor = tree.scan(250, 750);
+            long expectedKey = 250;
+            while (cursor.next()) {
+                assertEquals(expectedKey, cursor.key());
+                assertEquals(-expectedKey, cursor.value());
+                expectedKey++;
+            }
+            assertEquals(751, expectedKey);
+            assertFalse(tree.scan(2000, 3000).next());
+        }
+    }
+
+    @Test
+    public void testLookupReadsAtMostOnePagePerLevel() throws IOException {
+        Path path = folder.newFile().toPath();
+
+        try (DiskBPlusTree tree = new DiskBPlusTree(path, 256, 4)) {
+            for (long i = 0; i < 20000; i++) {
+                tree.put(i, i);
+            }
+
+            BufferPool pool = tree.getBufferPool();
+            long missesBefore = pool.getMisses();
+            tree.get(12345, -1);
+            assertTrue(pool.getMisses() - missesBefore <= tree.height());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package btree;
+
+import org.junit.Test;
+
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntBPlusTreeTest {
+
+    private static void assertSameContents(TreeSet<Integer> expected, IntBPlusTree tree) {
+        assertEquals(expected.size(), tree.size());
+        PrimitiveIterator.OfInt iterator = tree.iterator();
+        for (int key : expected) {
+            assertTrue(iterator.hasNext());
+            assertEquals(key, iterator.nextInt());
+        }
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testRandomKeysAcrossTheIntRange() {
+        for (boolean packed : new boolean[]{true, false}) {
+            IntBPlusTree tree = new IntBPlusTree(4, 16, packed);
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random(17);
+
+            for (int i = 0; i < 20000; i++) {
+                int key = i % 3 == 0 ? random.nextInt() : random.nextInt(5000) - 2500;
+                assertEquals(expected.add(key), tree.add(key));
+            }
+            tree.add(Integer.MIN_VALUE);
+            tree.add(Integer.MAX_VALUE);
+            expected.add(Integer.MIN_VALUE);
+            expected.add(Integer.MAX_VALUE);
+
+            assertSameContents(expected, tree);
+            for (int i = 0; i < 2000; i++) {
+                int probe = random.nextInt(6000) - 3000;
+                assertEquals(expected.contains(probe), tree.contains(probe));
+            }
+        }
+    }
+
+    @Test
+    public void testScanDecodesOnlyTheRange() {
+        IntBPlusTree tree = new IntBPlusTree();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 100000; i += 3) {
+            tree.add(i);
+            expected.add(i);
+        }
+
+        PrimitiveIterator.OfInt iterator = tree.scan(50000, 50100);
+        for (int key : expected.subSet(50000, true, 50100, true)) {
+            assertEquals(key, iterator.nextInt());
+        }
+        assertFalse(iterator.hasNext());
+        assertFalse(tree.scan(100000, Integer.MAX_VALUE).hasNext());
+    }
+
+    @Test
+    public void testDenseIdsPackIntoAFractionOfPlainLeaves() {
+        IntBPlusTree packed = new IntBPlusTree();
+        IntBPlusTree plain = new IntBPlusTree(64, 512, false);
+        Random random = new Random(3);
+
+        // Ids handed out in order with occasional gaps, inserted in random order.
+        int[] ids = new int[200000];
+        for (int i = 0, id = 1_000_000; i < ids.length; i++, id += random.nextInt(20) == 0 ? 2 : 1) {
+            ids[i] = id;
+        }
+        for (int i = ids.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+
+        for (int id : ids) {
+            packed.add(id);
+            plain.add(id);
+        }
+
+        assertEquals(ids.length, packed.size());
+        assertEquals(ids.length, plain.size());
+        assertTrue(packed.footprintBytes() * 4 < plain.footprintBytes());
+    }
+
+    @Test
+    public void testOneFarKeySplitsADenseLeaf() {
+        IntBPlusTree tree = new IntBPlusTree(4, 16, true);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 128; i++) {
+            tree.add(i);
+            expected.add(i);
+        }
+
+        tree.add(60);
+        tree.add(1_000_000_000);
+        expected.add(1_000_000_000);
+        tree.add(-1_000_000_000);
+        expected.add(-1_000_000_000);
+
+        assertSameContents(expected, tree);
+    }
+}
@@ -0,0 +1,69 @@
+package btree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class NodeSearchTest {
+
+    private static List<NodeSearch> strategies() {
+        List<NodeSearch> strategies = new ArrayList<>(Arrays.asList(ScalarNodeSearch.values()));
+        strategies.add(NodeSearch.vector());
+        return strategies;
+    }
+
+    @Test
+    public void testVectorSearchLoadsWhenModuleIsResolved() {
+        assertNotNull(NodeSearch.vector());
+        assertEquals(NodeSearch.vector().getClass(), NodeSearch.preferred().getClass());
+    }
+
+    @Test
+    public void testAllStrategiesAgreeOnIntKeys() {
+        Random random = new Random(8);
+
+        for (int count = 0; count <= 70; count++) {
+            int[] keys = new int[count + 5];
+            for (int i = 0; i < count; i++) {
+                keys[i] = random.nextInt(200) - 100;
+            }
+            Arrays.sort(keys, 0, count);
+            keys[count] = Integer.MIN_VALUE;
+
+            for (int key = -102; key <= 102; key++) {
+                int expected = ScalarNodeSearch.LINEAR.rank(keys, count, key);
+                for (NodeSearch strategy : strategies()) {
+                    assertEquals(strategy + " count " + count + " key " + key, expected, strategy.rank(keys, count, key));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAllStrategiesAgreeOnLongKeys() {
+        Random random = new Random(9);
+
+        for (int count = 0; count <= 40; count++) {
+            long[] keys = new long[count];
+            for (int i = 0; i < count; i++) {
+                keys[i] = random.nextLong() >> 4;
+            }
+            Arrays.sort(keys);
+
+            for (int probe = 0; probe < 200; probe++) {
+                long key = probe % 3 == 0 && count > 0 ? keys[random.nextInt(count)] : random.nextLong() >> 4;
+                int expected = ScalarNodeSearch.BINARY.rank(keys, count, key);
+                for (NodeSearch strategy : strategies()) {
+                    assertEquals(strategy + " count " + count, expected, strategy.rank(keys, count, key));
+                }
+            }
+            assertEquals(count, NodeSearch.preferred().rank(keys, count, Long.MAX_VALUE));
+        }
+    }
+}
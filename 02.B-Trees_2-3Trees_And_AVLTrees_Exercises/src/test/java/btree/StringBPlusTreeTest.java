@@ -0,0 +1,86 @@
+package btree;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class StringBPlusTreeTest {
+
+    @Test
+    public void testEncodingPreservesStringOrder() {
+        String[] keys = {"", "\u0000", "a", "ab", "b", "\u00e9", "\u07ff", "\u0800", "\ud83d\ude00", "\uffff"};
+        for (String a : keys) {
+            for (String b : keys) {
+                assertEquals(Integer.signum(a.compareTo(b)),
+                        Integer.signum(Arrays.compareUnsigned(StringBPlusTree.encode(a), StringBPlusTree.encode(b))));
+            }
+            assertEquals(a, StringBPlusTree.decode(StringBPlusTree.encode(a)));
+        }
+    }
+
+    @Test
+    public void testShortestSeparator() {
+        byte[] separator = StringBPlusTree.shortestSeparator(
+                StringBPlusTree.encode("customer/0042/orders"), StringBPlusTree.encode("customer/0050/address"));
+        assertArrayEquals(StringBPlusTree.encode("customer/005"), separator);
+    }
+
+    @Test
+    public void testMatchesSortedMap() {
+        Random random = new Random(3);
+        StringBPlusTree<Integer> tree = new StringBPlusTree<>(256);
+        TreeMap<String, Integer> expected = new TreeMap<>();
+
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder key = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                key.append((char) (random.nextBoolean() ? 'a' + random.nextInt(3) : random.nextInt(0x3000)));
+            }
+            tree.put(key.toString(), i);
+            expected.put(key.toString(), i);
+        }
+
+        assertEquals(expected.size(), tree.size());
+        for (Map.Entry<String, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), tree.get(entry.getKey()));
+        }
+        assertEquals(new ArrayList<>(expected.entrySet()), toList(tree.scan(null, null)));
+        assertEquals(new ArrayList<>(expected.subMap("a", true, "b", true).entrySet()), toList(tree.scan("a", "b")));
+        assertNull(tree.get("not there at all, far too long"));
+        assertFalse(tree.containsKey("zzzzzzzzzzzzzzzzzzzzzzzzzzz"));
+    }
+
+    @Test
+    public void testPrefixCompressionStoresFarFewerBytes() {
+        StringBPlusTree<Integer> tree = new StringBPlusTree<>();
+        long rawBytes = 0;
+
+        for (int i = 0; i < 20_000; i++) {
+            String key = String.format("com.example.accounts.customer/%08d/profile", i);
+            tree.put(key, i);
+            rawBytes += key.length();
+        }
+
+        assertTrue(tree.containsKey("com.example.accounts.customer/00012345/profile"));
+        assertTrue(tree.storedKeyBytes() * 3 < rawBytes);
+    }
+
+    private static <V> List<Map.Entry<String, V>> toList(Iterator<Map.Entry<String, V>> iterator) {
+        List<Map.Entry<String, V>> result = new ArrayList<>();
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+}
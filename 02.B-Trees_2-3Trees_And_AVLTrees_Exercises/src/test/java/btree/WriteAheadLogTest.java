@@ -0,0 +1,156 @@
+package btree;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WriteAheadLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRecoversCommittedPutsAfterCrash() throws IOException {
+        Path pages = folder.newFile().toPath();
+        Path log = folder.newFile().toPath();
+
+        // A tiny pool forces several checkpoints before the simulated crash.
+        DiskBPlusTree crashed = new DiskBPlusTree(pages, 128, 16,
+                new WriteAheadLog(log, WriteAheadLog.SyncPolicy.EVERY_COMMIT, 1));
+        for (long i = 0; i < 2000; i++) {
+            crashed.put(i, i * 10);
+        }
+
+        try (DiskBPlusTree recovered = new DiskBPlusTree(pages, 128, 16, new WriteAheadLog(log))) {
+            assertEquals(2000, recovered.size());
+            for (long i = 0; i < 2000; i++) {
+                assertEquals(i * 10, recovered.get(i, -1));
+            }
+        }
+    }
+
+    @Test
+    public void testGroupCommitBatchesSyncs() throws IOException {
+        Path pages = folder.newFile().toPath();
+        WriteAheadLog log = new WriteAheadLog(folder.newFile().toPath(),
+                WriteAheadLog.SyncPolicy.GROUP_COMMIT, 500);
+
+        try (DiskBPlusTree tree = new DiskBPlusTree(pages, 4096, 64, log)) {
+            long syncsBefore = log.getSyncCount();
+            for (long i = 0; i < 5000; i++) {
+                tree.put(i, i);
+            }
+            assertTrue(log.getSyncCount() - syncsBefore <= 10);
+        }
+    }
+
+    @Test
+    public void testGroupCommitLosesOnlyUnsyncedTail() throws IOException {
+        Path pages = folder.newFile().toPath();
+        Path log = folder.newFile().toPath();
+
+        DiskBPlusTree crashed = new DiskBPlusTree(pages, 4096, 64,
+                new WriteAheadLog(log, WriteAheadLog.SyncPolicy.GROUP_COMMIT, 100_000));
+        for (long i = 0; i < 1000; i++) {
+            crashed.put(i, i);
+        }
+        crashed.sync();
+        for (long i = 1000; i < 1010; i++) {
+            crashed.put(i, i);
+        }
+
+        try (DiskBPlusTree recovered = new DiskBPlusTree(pages, 4096, 64, new WriteAheadLog(log))) {
+            assertEquals(1000, recovered.size());
+            assertEquals(999, recovered.get(999, -1));
+        }
+    }
+
+    @Test
+    public void testRecoversFromCrashDuringCheckpoint() throws IOException {
+        Path pages = folder.newFile().toPath();
+        Path logPath = folder.newFile().toPath();
+        WriteAheadLog log = new WriteAheadLog(logPath, WriteAheadLog.SyncPolicy.EVERY_COMMIT, 1);
+
+        DiskBPlusTree crashed = new DiskBPlusTree(pages, 256, 64, log);
+        for (long i = 0; i < 500; i++) {
+            crashed.put(i, -i);
+        }
+        // Page images reach the log, but the crash happens before any page is written in place.
+        log.checkpoint(crashed.getBufferPool().getDirtyFrames());
+
+        try (DiskBPlusTree recovered = new DiskBPlusTree(pages, 256, 64, new WriteAheadLog(logPath))) {
+            assertEquals(500, recovered.size());
+            assertEquals(-499, recovered.get(499, 0));
+        }
+    }
+
+    @Test
+    public void testTornTailIsIgnored() throws IOException {
+        Path pages = folder.newFile().toPath();
+        Path log = folder.newFile().toPath();
+
+        DiskBPlusTree crashed = new DiskBPlusTree(pages, 256, 64,
+                new WriteAheadLog(log, WriteAheadLog.SyncPolicy.EVERY_COMMIT, 1));
+        for (long i = 0; i < 100; i++) {
+            crashed.put(i, i);
+        }
+        Files.write(log, new byte[]{0, 0, 0, 17, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (DiskBPlusTree recovered = new DiskBPlusTree(pages, 256, 64, new WriteAheadLog(log))) {
+            assertEquals(100, recovered.size());
+        }
+    }
+
+    @Test
+    public void testCheckpointDuringRedoFollowsTruncatedTornTail() throws IOException {
+        Path pages = folder.newFile().toPath();
+        Path logPath = folder.newFile().toPath();
+
+        try (WriteAheadLog log = new WriteAheadLog(logPath, WriteAheadLog.SyncPolicy.EVERY_COMMIT, 1)) {
+            for (long i = 0; i < 10; i++) {
+                log.logPut(i, i);
+                log.commit();
+            }
+        }
+        long validSize = Files.size(logPath);
+        Files.write(logPath, new byte[]{0, 0, 0, 17, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        // Recovery checkpoints halfway through redo and crashes before its final checkpoint.
+        try (PageFile file = new PageFile(pages, 128);
+             WriteAheadLog log = new WriteAheadLog(logPath)) {
+            log.restorePages(file);
+            assertEquals(validSize, Files.size(logPath));
+            log.redo((key, value) -> {
+                if (key == 5) {
+                    try {
+                        log.checkpoint(Collections.emptyList());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+        }
+
+        // The next recovery finds that checkpoint and redoes only from the put it was taken at.
+        List<Long> replayed = new ArrayList<>();
+        try (PageFile file = new PageFile(pages, 128);
+             WriteAheadLog log = new WriteAheadLog(logPath)) {
+            log.restorePages(file);
+            log.redo((key, value) -> replayed.add(key));
+        }
+        assertEquals(Arrays.asList(5L, 6L, 7L, 8L, 9L), replayed);
+    }
+}
@@ -0,0 +1,119 @@
+package test.correctness;
+
+import main.Hierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BaseTest;
+import test.types.CorrectnessTests;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class Ancestors extends BaseTest {
+
+    private static List<Integer> pathToRoot(Hierarchy<Integer> hierarchy, Integer element)
+    {
+        List<Integer> path = new ArrayList<>();
+        for (Integer current = element; current != null; current = hierarchy.getParent(current))
+        {
+            path.add(current);
+        }
+        return path;
+    }
+
+    private static Integer naiveLca(Hierarchy<Integer> hierarchy, Integer first, Integer second)
+    {
+        List<Integer> firstPath = pathToRoot(hierarchy, first);
+        for (Integer current : pathToRoot(hierarchy, second))
+        {
+            if (firstPath.contains(current))
+            {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    private static void assertMatchesParentWalks(Hierarchy<Integer> hierarchy, List<Integer> elements, Random random)
+    {
+        for (int i = 0; i < 300; i++)
+        {
+            Integer first = elements.get(random.nextInt(elements.size()));
+            Integer second = elements.get(random.nextInt(elements.size()));
+            List<Integer> path = pathToRoot(hierarchy, second);
+
+            Assert.assertEquals(path.size() - 1, hierarchy.depth(second));
+            Assert.assertEquals(naiveLca(hierarchy, first, second), hierarchy.lca(first, second));
+            Assert.assertEquals(path.indexOf(first) > 0, hierarchy.isAncestor(first, second));
+
+            int k = random.nextInt(path.size() + 2);
+            Assert.assertEquals(k < path.size() ? path.get(k) : null, hierarchy.kthAncestor(second, k));
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Ancestors_WithSmallHierarchy_ShouldAnswerQueries()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        hierarchy.add(DefaultRootValue, 10);
+        hierarchy.add(DefaultRootValue, 20);
+        hierarchy.add(10, 11);
+        hierarchy.add(11, 12);
+        hierarchy.add(20, 21);
+
+        Assert.assertEquals(0, hierarchy.depth(DefaultRootValue));
+        Assert.assertEquals(3, hierarchy.depth(12));
+        Assert.assertEquals(DefaultRootValue, (int) hierarchy.lca(12, 21));
+        Assert.assertEquals(10, (int) hierarchy.lca(12, 10));
+        Assert.assertEquals(10, (int) hierarchy.kthAncestor(12, 2));
+        Assert.assertEquals(12, (int) hierarchy.kthAncestor(12, 0));
+        Assert.assertNull(hierarchy.kthAncestor(12, 4));
+        Assert.assertTrue(hierarchy.isAncestor(DefaultRootValue, 12));
+        Assert.assertFalse(hierarchy.isAncestor(12, 12));
+        Assert.assertFalse(hierarchy.isAncestor(20, 12));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Ancestors_AfterRemovals_ShouldReflectPromotedChildren()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        Random random = new Random(4);
+        List<Integer> elements = new ArrayList<>();
+        elements.add(DefaultRootValue);
+        for (int i = 0; i < 2000; i++)
+        {
+            int parent = random.nextInt(4) == 0 ? elements.get(random.nextInt(elements.size())) : elements.get(elements.size() - 1);
+            hierarchy.add(parent, 100 + i);
+            elements.add(100 + i);
+        }
+        assertMatchesParentWalks(hierarchy, elements, random);
+
+        for (int i = 0; i < 500; i++)
+        {
+            Integer removed = elements.remove(1 + random.nextInt(elements.size() - 1));
+            hierarchy.remove(removed);
+            if (i % 100 == 0)
+            {
+                assertMatchesParentWalks(hierarchy, elements, random);
+            }
+        }
+
+        for (int i = 0; i < 300; i++)
+        {
+            hierarchy.add(elements.get(random.nextInt(elements.size())), 5000 + i);
+            elements.add(5000 + i);
+        }
+        assertMatchesParentWalks(hierarchy, elements, random);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void Ancestors_WithMissingElement_ShouldThrowException()
+    {
+        ((Hierarchy<Integer>) this.Hierarchy).depth(7);
+    }
+}
@@ -0,0 +1,135 @@
+package test.correctness;
+
+import main.Hierarchy;
+import main.HierarchyBulkLoader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import test.helpers.IterableExtensions;
+import test.types.CorrectnessTests;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class BulkLoad {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path write(String contents) throws IOException
+    {
+        Path file = this.folder.newFile().toPath();
+        Files.write(file, contents.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void LoadEdgeList_WithChildrenBeforeParents_ShouldLinkEverything() throws IOException
+    {
+        Hierarchy<Long> hierarchy = HierarchyBulkLoader.loadEdgeList(write(
+                "# parent child\n" +
+                "10 11\r\n" +
+                "\n" +
+                "5,10\n" +
+                "  10\t12  \n" +
+                "5 -20\n" +
+                "-20 -9223372036854775808"));
+
+        Assert.assertEquals(6, hierarchy.getCount());
+        Assert.assertEquals(Arrays.asList(5L, 10L, -20L, 11L, 12L, Long.MIN_VALUE), IterableExtensions.toList(hierarchy));
+        Assert.assertEquals(Arrays.asList(11L, 12L), IterableExtensions.toList(hierarchy.getChildren(10L)));
+        Assert.assertEquals(-20L, (long) hierarchy.getParent(Long.MIN_VALUE));
+        Assert.assertEquals(2, hierarchy.depth(12L));
+        Assert.assertTrue(hierarchy.isInSubtree(12L, 10L));
+        Assert.assertEquals(3, hierarchy.subtreeSize(10L));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Load_WithShuffledEdges_ShouldMatchHierarchyBuiltByAdd()
+    {
+        Random random = new Random(43);
+        Hierarchy<Integer> expected = new Hierarchy<>(0);
+        List<Map.Entry<Integer, Integer>> edges = new ArrayList<>();
+        for (int i = 1; i < 5000; i++)
+        {
+            int parent = random.nextInt(i);
+            expected.add(parent, i);
+            edges.add(new AbstractMap.SimpleEntry<>(parent, i));
+        }
+        Collections.shuffle(edges, random);
+
+        Hierarchy<Integer> loaded = HierarchyBulkLoader.load(edges.iterator(), edges.size());
+        edges.sort(Map.Entry.comparingByValue());
+
+        Assert.assertEquals(expected.getCount(), loaded.getCount());
+        for (int i = 0; i < 5000; i++)
+        {
+            Assert.assertEquals(expected.getParent(i), loaded.getParent(i));
+            Assert.assertEquals(expected.depth(i), loaded.depth(i));
+            Assert.assertEquals(expected.subtreeSize(i), loaded.subtreeSize(i));
+        }
+
+        loaded.add(4999, 5000);
+        loaded.remove(0 == loaded.getParent(1) ? 1 : 2);
+        Assert.assertEquals(5000, loaded.getCount());
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void LoadEdgeList_WithCycle_ShouldThrowException() throws IOException
+    {
+        HierarchyBulkLoader.loadEdgeList(write("1 2\n3 4\n4 5\n5 3\n"));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void LoadEdgeList_WithTwoRoots_ShouldThrowException() throws IOException
+    {
+        HierarchyBulkLoader.loadEdgeList(write("1 2\n3 4\n"));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void LoadEdgeList_WithTwoParents_ShouldThrowException() throws IOException
+    {
+        HierarchyBulkLoader.loadEdgeList(write("1 2\n1 3\n3 2\n"));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void LoadEdgeList_WithMalformedLine_ShouldThrowException() throws IOException
+    {
+        HierarchyBulkLoader.loadEdgeList(write("1 2\n1 x\n"));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void LoadEdgeList_WithKeyOutsideLongRange_ShouldReportLine() throws IOException
+    {
+        for (String key : new String[] { "9223372036854775808", "-9223372036854775809", "99999999999999999999" })
+        {
+            try
+            {
+                HierarchyBulkLoader.loadEdgeList(write("1 2\n2 " + key + "\n"));
+                Assert.fail();
+            }
+            catch (IllegalArgumentException expected)
+            {
+                Assert.assertEquals("Malformed edge on line 2", expected.getMessage());
+            }
+        }
+    }
+}
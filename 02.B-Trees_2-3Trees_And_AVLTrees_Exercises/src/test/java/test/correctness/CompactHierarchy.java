@@ -0,0 +1,153 @@
+package test.correctness;
+
+import main.Hierarchy;
+import main.IntHierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.IterableExtensions;
+import test.types.CorrectnessTests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+public class CompactHierarchy {
+
+    private static void assertSameHierarchy(Hierarchy<Integer> expected, IntHierarchy actual, List<Integer> elements)
+    {
+        Assert.assertEquals(expected.getCount(), actual.getCount());
+        Assert.assertEquals(IterableExtensions.toList(expected), IterableExtensions.toList(actual));
+        for (Integer element : elements)
+        {
+            Assert.assertTrue(actual.contains((int) element));
+            Assert.assertEquals(expected.getParent(element), actual.getParent(element));
+            Assert.assertEquals(IterableExtensions.toList(expected.getChildren(element)),
+                    IterableExtensions.toList(actual.getChildren(element)));
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void IntHierarchy_WithSmallHierarchy_ShouldMatchInBothLayouts()
+    {
+        IntHierarchy hierarchy = new IntHierarchy(0);
+        hierarchy.add(0, -1);
+        hierarchy.add(0, Integer.MIN_VALUE);
+        hierarchy.add(-1, Integer.MAX_VALUE);
+        hierarchy.add(-1, 7);
+
+        for (int pass = 0; pass < 2; pass++)
+        {
+            Assert.assertEquals(5, hierarchy.getCount());
+            Assert.assertEquals(Arrays.asList(0, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 7),
+                    IterableExtensions.toList(hierarchy));
+            Assert.assertEquals(Arrays.asList(Integer.MAX_VALUE, 7), IterableExtensions.toList(hierarchy.getChildren(-1)));
+            Assert.assertEquals(-1, hierarchy.parentOf(7));
+            Assert.assertNull(hierarchy.getParent(0));
+            Assert.assertFalse(hierarchy.contains(8));
+            hierarchy.compact();
+            Assert.assertTrue(hierarchy.isCompacted());
+        }
+
+        hierarchy.remove(-1);
+        Assert.assertFalse(hierarchy.isCompacted());
+        Assert.assertEquals(Arrays.asList(Integer.MIN_VALUE, Integer.MAX_VALUE, 7),
+                IterableExtensions.toList(hierarchy.getChildren(0)));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void IntHierarchy_WithRandomOperations_ShouldMatchHierarchy()
+    {
+        Hierarchy<Integer> expected = new Hierarchy<>(0);
+        IntHierarchy actual = new IntHierarchy(0);
+        Random random = new Random(41);
+        List<Integer> elements = new ArrayList<>();
+        elements.add(0);
+
+        for (int round = 0; round < 6; round++)
+        {
+            for (int i = 0; i < 1500; i++)
+            {
+                int child = random.nextInt();
+                if (expected.contains(child))
+                {
+                    continue;
+                }
+                int parent = elements.get(random.nextInt(elements.size()));
+                expected.add(parent, child);
+                actual.add(parent, child);
+                elements.add(child);
+            }
+            for (int i = 0; i < 400; i++)
+            {
+                Integer removed = elements.remove(1 + random.nextInt(elements.size() - 1));
+                expected.remove(removed);
+                actual.remove(removed);
+                Assert.assertFalse(actual.contains(removed));
+            }
+
+            if (round % 2 == 1)
+            {
+                actual.compact();
+            }
+            assertSameHierarchy(expected, actual, elements);
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void GetCommonElements_WithTwoIntHierarchies_ShouldReturnSharedKeys()
+    {
+        IntHierarchy first = new IntHierarchy(0);
+        IntHierarchy second = new IntHierarchy(0);
+        for (int i = 1; i < 1000; i++)
+        {
+            first.add(i / 2, i);
+        }
+        for (int i = 1; i < 100; i++)
+        {
+            second.add(0, i * 3);
+        }
+        second.compact();
+
+        HashSet<Integer> expected = new HashSet<>();
+        expected.add(0);
+        for (int i = 1; i < 100; i++)
+        {
+            expected.add(i * 3);
+        }
+
+        Assert.assertEquals(expected, new HashSet<>(IterableExtensions.toList(first.getCommonElements(second))));
+        Assert.assertEquals(expected, new HashSet<>(IterableExtensions.toList(second.getCommonElements(first))));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void Add_WithExistingChild_ShouldThrowException()
+    {
+        IntHierarchy hierarchy = new IntHierarchy(0);
+        hierarchy.add(0, 1);
+        hierarchy.compact();
+        hierarchy.add(0, 1);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalStateException.class)
+    public void Remove_WithRoot_ShouldThrowException()
+    {
+        IntHierarchy hierarchy = new IntHierarchy(0);
+        hierarchy.add(0, 1);
+        hierarchy.remove(0);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void GetParent_WithMissingElement_ShouldThrowException()
+    {
+        new IntHierarchy(0).getParent(3);
+    }
+}
@@ -0,0 +1,219 @@
+package test.correctness;
+
+import main.ConcurrentHierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.IterableExtensions;
+import test.types.CorrectnessTests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConcurrentAccess {
+
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int OPERATIONS_PER_WRITER = 20000;
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void ConcurrentHierarchy_SingleThreaded_ShouldBehaveLikeHierarchy()
+    {
+        ConcurrentHierarchy<Integer> hierarchy = new ConcurrentHierarchy<>(5);
+        hierarchy.add(5, 10);
+        hierarchy.add(5, 20);
+        hierarchy.add(10, 11);
+        hierarchy.add(10, 12);
+        hierarchy.add(20, 21);
+
+        Assert.assertEquals(Arrays.asList(5, 10, 20, 11, 12, 21), IterableExtensions.toList(hierarchy));
+        Assert.assertEquals(10, (int) hierarchy.getParent(12));
+        Assert.assertNull(hierarchy.getParent(5));
+
+        hierarchy.remove(10);
+        Assert.assertEquals(5, hierarchy.getCount());
+        Assert.assertFalse(hierarchy.contains(10));
+        Assert.assertEquals(Arrays.asList(20, 11, 12), IterableExtensions.toList(hierarchy.getChildren(5)));
+        Assert.assertEquals(5, (int) hierarchy.getParent(11));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalStateException.class)
+    public void Remove_WithRoot_ShouldThrowException()
+    {
+        new ConcurrentHierarchy<>(5).remove(5);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void ConcurrentHierarchy_WithConcurrentWritersAndReaders_ShouldStayConsistent() throws Exception
+    {
+        ConcurrentHierarchy<Integer> hierarchy = new ConcurrentHierarchy<>(0);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + READERS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        List<Future<Set<Integer>>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++)
+        {
+            int writer = w;
+            writers.add(executor.submit(() ->
+            {
+                start.await();
+                // Each writer owns the keys congruent to it, but parents come from everyone.
+                Random random = new Random(writer);
+                List<Integer> own = new ArrayList<>();
+                for (int i = 0; i < OPERATIONS_PER_WRITER; i++)
+                {
+                    if (own.size() > 10 && random.nextInt(3) == 0)
+                    {
+                        Integer removed = own.remove(random.nextInt(own.size()));
+                        hierarchy.remove(removed);
+                        continue;
+                    }
+
+                    int key = 1 + i * WRITERS + writer;
+                    int parent = random.nextInt(4) == 0 || own.isEmpty() ? 0 : own.get(random.nextInt(own.size()));
+                    if (random.nextBoolean())
+                    {
+                        // Another writer's key, which may be removed under us.
+                        parent = 1 + random.nextInt(i + 1) * WRITERS + random.nextInt(WRITERS);
+                    }
+                    try
+                    {
+                        hierarchy.add(parent, key);
+                        own.add(key);
+                    }
+                    catch (IllegalArgumentException missingParent)
+                    {
+                        Assert.assertFalse(hierarchy.contains(key));
+                    }
+                }
+                return new HashSet<>(own);
+            }));
+        }
+
+        for (int r = 0; r < READERS; r++)
+        {
+            readers.add(executor.submit(() ->
+            {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (!done.get())
+                {
+                    int key = random.nextInt(WRITERS * OPERATIONS_PER_WRITER);
+                    try
+                    {
+                        Set<Integer> seen = new HashSet<>();
+                        for (Integer child : hierarchy.getChildren(key))
+                        {
+                            Assert.assertNotNull(child);
+                            Assert.assertTrue(seen.add(child));
+                        }
+                        Integer parent = hierarchy.getParent(key);
+                        Assert.assertTrue(key == 0 || parent != null);
+                    }
+                    catch (IllegalArgumentException missing)
+                    {
+                        // Not added yet, or removed.
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        Set<Integer> expected = new HashSet<>();
+        expected.add(0);
+        for (Future<Set<Integer>> writer : writers)
+        {
+            expected.addAll(writer.get(60, TimeUnit.SECONDS));
+        }
+        done.set(true);
+        for (Future<?> reader : readers)
+        {
+            reader.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<Integer> reachable = IterableExtensions.toList(hierarchy);
+        Assert.assertEquals(expected.size(), hierarchy.getCount());
+        Assert.assertEquals(expected.size(), reachable.size());
+        Assert.assertEquals(expected, new HashSet<>(reachable));
+        for (Integer element : expected)
+        {
+            for (Integer child : hierarchy.getChildren(element))
+            {
+                Assert.assertEquals(element, hierarchy.getParent(child));
+            }
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Remove_WithChildAndParentRacing_ShouldPromoteEveryGrandchild() throws Exception
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            for (int trial = 0; trial < 2000; trial++)
+            {
+                // 0 -> 1 -> {2 -> {4, 5, 6}, 3}
+                ConcurrentHierarchy<Integer> hierarchy = new ConcurrentHierarchy<>(0);
+                hierarchy.add(0, 1);
+                hierarchy.add(1, 2);
+                hierarchy.add(1, 3);
+                for (int grandchild = 4; grandchild <= 6; grandchild++)
+                {
+                    hierarchy.add(2, grandchild);
+                }
+
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> child = executor.submit(() ->
+                {
+                    barrier.await();
+                    hierarchy.remove(2);
+                    return null;
+                });
+                Future<?> parent = executor.submit(() ->
+                {
+                    barrier.await();
+                    hierarchy.remove(1);
+                    return null;
+                });
+                child.get(10, TimeUnit.SECONDS);
+                parent.get(10, TimeUnit.SECONDS);
+
+                Assert.assertEquals(5, hierarchy.getCount());
+                Assert.assertFalse(hierarchy.contains(1));
+                Assert.assertFalse(hierarchy.contains(2));
+                List<Integer> children = IterableExtensions.toList(hierarchy.getChildren(0));
+                Assert.assertEquals(4, children.size());
+                Assert.assertEquals(new HashSet<>(Arrays.asList(3, 4, 5, 6)), new HashSet<>(children));
+                for (Integer promoted : children)
+                {
+                    Assert.assertEquals(0, (int) hierarchy.getParent(promoted));
+                }
+                Assert.assertEquals(5, IterableExtensions.toList(hierarchy).size());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package test.correctness;
+
+import main.Hierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BaseTest;
+import test.helpers.IterableExtensions;
+import test.types.CorrectnessTests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class EulerTour extends BaseTest {
+
+    private static boolean naiveInSubtree(Hierarchy<Integer> hierarchy, Integer element, Integer subtreeRoot)
+    {
+        for (Integer current = element; current != null; current = hierarchy.getParent(current))
+        {
+            if (current.equals(subtreeRoot))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void assertMatchesParentWalks(Hierarchy<Integer> hierarchy, List<Integer> elements, Random random)
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            Integer subtreeRoot = elements.get(random.nextInt(elements.size()));
+            Set<Integer> expected = new HashSet<>();
+            for (Integer element : elements)
+            {
+                if (!element.equals(subtreeRoot) && naiveInSubtree(hierarchy, element, subtreeRoot))
+                {
+                    expected.add(element);
+                }
+            }
+
+            List<Integer> descendants = IterableExtensions.toList(hierarchy.descendants(subtreeRoot));
+            Assert.assertEquals(expected.size(), descendants.size());
+            Assert.assertEquals(expected, new HashSet<>(descendants));
+            Assert.assertEquals(expected.size() + 1, hierarchy.subtreeSize(subtreeRoot));
+
+            Integer element = elements.get(random.nextInt(elements.size()));
+            Assert.assertEquals(naiveInSubtree(hierarchy, element, subtreeRoot), hierarchy.isInSubtree(element, subtreeRoot));
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void EulerTour_WithSmallHierarchy_ShouldAnswerQueries()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        hierarchy.add(DefaultRootValue, 10);
+        hierarchy.add(DefaultRootValue, 20);
+        hierarchy.add(10, 11);
+        hierarchy.add(10, 12);
+        hierarchy.add(11, 13);
+
+        Assert.assertEquals(6, hierarchy.subtreeSize(DefaultRootValue));
+        Assert.assertEquals(4, hierarchy.subtreeSize(10));
+        Assert.assertEquals(1, hierarchy.subtreeSize(20));
+        Assert.assertEquals(Arrays.asList(11, 13, 12), IterableExtensions.toList(hierarchy.descendants(10)));
+        Assert.assertEquals(0, IterableExtensions.getCount(hierarchy.descendants(13)));
+        Assert.assertTrue(hierarchy.isInSubtree(13, 10));
+        Assert.assertTrue(hierarchy.isInSubtree(10, 10));
+        Assert.assertFalse(hierarchy.isInSubtree(20, 10));
+        Assert.assertFalse(hierarchy.isInSubtree(10, 13));
+
+        hierarchy.remove(11);
+        Assert.assertEquals(3, hierarchy.subtreeSize(10));
+        Assert.assertTrue(hierarchy.isInSubtree(13, 10));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(12, 13)), new HashSet<>(IterableExtensions.toList(hierarchy.descendants(10))));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void EulerTour_WithRandomAddsAndRemoves_ShouldMatchParentWalks()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        Random random = new Random(40);
+        List<Integer> elements = new ArrayList<>();
+        elements.add(DefaultRootValue);
+        for (int i = 0; i < 2000; i++)
+        {
+            int parent = random.nextInt(4) == 0 ? elements.get(random.nextInt(elements.size())) : elements.get(elements.size() - 1);
+            hierarchy.add(parent, 100 + i);
+            elements.add(100 + i);
+        }
+        assertMatchesParentWalks(hierarchy, elements, random);
+
+        for (int i = 0; i < 500; i++)
+        {
+            Integer removed = elements.remove(1 + random.nextInt(elements.size() - 1));
+            hierarchy.remove(removed);
+            if (i % 100 == 0)
+            {
+                assertMatchesParentWalks(hierarchy, elements, random);
+            }
+        }
+
+        for (int i = 0; i < 300; i++)
+        {
+            hierarchy.add(elements.get(random.nextInt(elements.size())), 5000 + i);
+            elements.add(5000 + i);
+        }
+        assertMatchesParentWalks(hierarchy, elements, random);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void EulerTour_WithManyInsertsIntoOneGap_ShouldKeepLabelsOrdered()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        hierarchy.add(DefaultRootValue, 10);
+        for (int i = 0; i < 5000; i++)
+        {
+            hierarchy.add(i == 0 ? 10 : 1000 + i - 1, 1000 + i);
+            hierarchy.add(DefaultRootValue, 20000 + i);
+        }
+
+        Assert.assertEquals(5001, hierarchy.subtreeSize(10));
+        Assert.assertTrue(hierarchy.isInSubtree(5999, 10));
+        Assert.assertTrue(hierarchy.isInSubtree(5999, 3000));
+        Assert.assertFalse(hierarchy.isInSubtree(3000, 5999));
+        Assert.assertFalse(hierarchy.isInSubtree(24999, 10));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void EulerTour_WithMissingElement_ShouldThrowException()
+    {
+        ((Hierarchy<Integer>) this.Hierarchy).subtreeSize(7);
+    }
+}
@@ -0,0 +1,128 @@
+package test.correctness;
+
+import main.Hierarchy;
+import main.HierarchyEvent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BaseTest;
+import test.types.CorrectnessTests;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class Events extends BaseTest {
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Remove_WithChildren_ShouldReportReparentedChildrenThenRemoval()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        List<List<HierarchyEvent<Integer>>> batches = new ArrayList<>();
+        hierarchy.add(DefaultRootValue, 10);
+        hierarchy.addListener(batches::add);
+
+        hierarchy.add(10, 11);
+        hierarchy.add(10, 12);
+        hierarchy.remove(10);
+
+        Assert.assertEquals(3, batches.size());
+        Assert.assertEquals(HierarchyEvent.Type.ADDED, batches.get(0).get(0).getType());
+        Assert.assertEquals(10, (int) batches.get(0).get(0).getNewParent());
+        Assert.assertEquals(3, batches.get(2).size());
+        Assert.assertEquals(HierarchyEvent.Type.REPARENTED, batches.get(2).get(0).getType());
+        Assert.assertEquals(11, (int) batches.get(2).get(0).getElement());
+        Assert.assertEquals(10, (int) batches.get(2).get(0).getOldParent());
+        Assert.assertEquals(DefaultRootValue, (int) batches.get(2).get(1).getNewParent());
+        Assert.assertEquals(HierarchyEvent.Type.REMOVED, batches.get(2).get(2).getType());
+        Assert.assertEquals(DefaultRootValue, (int) batches.get(2).get(2).getOldParent());
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Batch_WithNestedBatches_ShouldDeliverOnce()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        List<List<HierarchyEvent<Integer>>> batches = new ArrayList<>();
+        hierarchy.addListener(batches::add);
+
+        hierarchy.batch(() ->
+        {
+            hierarchy.add(DefaultRootValue, 10);
+            hierarchy.batch(() -> hierarchy.add(10, 11));
+            hierarchy.remove(10);
+            Assert.assertTrue(batches.isEmpty());
+        });
+
+        Assert.assertEquals(1, batches.size());
+        Assert.assertEquals(4, batches.get(0).size());
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Batch_WithFailingChange_ShouldDeliverCompletedChanges()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        List<List<HierarchyEvent<Integer>>> batches = new ArrayList<>();
+        hierarchy.addListener(batches::add);
+
+        try
+        {
+            hierarchy.batch(() ->
+            {
+                hierarchy.add(DefaultRootValue, 10);
+                hierarchy.add(DefaultRootValue, 10);
+            });
+            Assert.fail();
+        }
+        catch (IllegalArgumentException expected)
+        {
+            Assert.assertEquals(1, batches.size());
+            Assert.assertEquals(1, batches.get(0).size());
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Events_AppliedToParentMap_ShouldTrackHierarchy()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        Map<Integer, Integer> parents = new HashMap<>();
+        hierarchy.addListener(events -> events.forEach(event ->
+        {
+            if (event.getType() == HierarchyEvent.Type.REMOVED)
+            {
+                parents.remove(event.getElement());
+            }
+            else
+            {
+                parents.put(event.getElement(), event.getNewParent());
+            }
+        }));
+
+        Random random = new Random(45);
+        List<Integer> elements = new ArrayList<>();
+        elements.add(DefaultRootValue);
+        for (int i = 0; i < 3000; i++)
+        {
+            if (elements.size() > 1 && random.nextInt(3) == 0)
+            {
+                hierarchy.remove(elements.remove(1 + random.nextInt(elements.size() - 1)));
+            }
+            else
+            {
+                hierarchy.add(elements.get(random.nextInt(elements.size())), 100 + i);
+                elements.add(100 + i);
+            }
+        }
+
+        Assert.assertEquals(hierarchy.getCount() - 1, parents.size());
+        for (Map.Entry<Integer, Integer> entry : parents.entrySet())
+        {
+            Assert.assertEquals(hierarchy.getParent(entry.getKey()), entry.getValue());
+        }
+    }
+}
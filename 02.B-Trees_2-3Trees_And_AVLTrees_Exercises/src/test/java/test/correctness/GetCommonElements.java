@@ -2,6 +2,7 @@ package test.correctness;
 
 
 import main.Hierarchy;
+import main.IHierarchy;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -11,6 +12,7 @@ import test.types.CorrectnessTests;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 public class GetCommonElements extends BaseTest {
@@ -60,4 +62,68 @@ public class GetCommonElements extends BaseTest {
 
         Assert.assertTrue(result.equals(Arrays.asList(-22, 10 , 34)));
     }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void GetCommonElements_WithSmallerOtherHierarchy_ShouldReturnSameElements()
+    {
+        Hierarchy<Integer> otherHierarchy = new Hierarchy<>(7);
+        otherHierarchy.add(7, 30);
+        for (int i = 0; i < 100; i++)
+        {
+            this.Hierarchy.add(DefaultRootValue, 100 + i);
+        }
+        this.Hierarchy.add(100, 7);
+
+        List<Integer> result = IterableExtensions.toList(this.Hierarchy.getCommonElements(otherHierarchy));
+
+        Assert.assertEquals(Arrays.asList(7), result);
+        Assert.assertEquals(Arrays.asList(7), IterableExtensions.toList(otherHierarchy.getCommonElements(this.Hierarchy)));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void GetCommonElements_WithOtherImplementation_ShouldUseItsContains()
+    {
+        Hierarchy<Integer> backing = new Hierarchy<>(1);
+        backing.add(1, 2);
+        backing.add(1, DefaultRootValue);
+        IHierarchy<Integer> otherHierarchy = new IHierarchy<Integer>() {
+            public int getCount() { return backing.getCount(); }
+            public void add(Integer element, Integer child) { backing.add(element, child); }
+            public void remove(Integer element) { backing.remove(element); }
+            public Iterable<Integer> getChildren(Integer element) { return backing.getChildren(element); }
+            public Integer getParent(Integer element) { return backing.getParent(element); }
+            public boolean contains(Integer element) { return backing.contains(element); }
+            public Iterable<Integer> getCommonElements(IHierarchy<Integer> other) { return backing.getCommonElements(other); }
+            public Iterator<Integer> iterator() { return backing.iterator(); }
+        };
+        this.Hierarchy.add(DefaultRootValue, 2);
+
+        List<Integer> result = IterableExtensions.toList(this.Hierarchy.getCommonElements(otherHierarchy));
+        Collections.sort(result);
+        Assert.assertEquals(Arrays.asList(2, DefaultRootValue), result);
+
+        for (int i = 10; i < 20; i++)
+        {
+            this.Hierarchy.add(DefaultRootValue, i);
+        }
+        result = IterableExtensions.toList(this.Hierarchy.getCommonElements(otherHierarchy));
+        Collections.sort(result);
+        Assert.assertEquals(Arrays.asList(2, DefaultRootValue), result);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void GetCommonElements_ShouldBeComputedWhenFirstRead()
+    {
+        Hierarchy<Integer> otherHierarchy = new Hierarchy<>(1);
+
+        Iterable<Integer> result = this.Hierarchy.getCommonElements(otherHierarchy);
+        otherHierarchy.add(1, DefaultRootValue);
+
+        Assert.assertEquals(Arrays.asList(DefaultRootValue), IterableExtensions.toList(result));
+        otherHierarchy.remove(DefaultRootValue);
+        Assert.assertEquals(1, IterableExtensions.getCount(result));
+    }
 }
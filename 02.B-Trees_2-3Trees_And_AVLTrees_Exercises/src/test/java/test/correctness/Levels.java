@@ -0,0 +1,115 @@
+package test.correctness;
+
+import main.Hierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BaseTest;
+import test.types.CorrectnessTests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+public class Levels extends BaseTest {
+
+    private static void assertMatchesParentWalks(Hierarchy<Integer> hierarchy, List<Integer> elements)
+    {
+        Map<Integer, Set<Integer>> expected = new HashMap<>();
+        int height = 0;
+        for (Integer element : elements)
+        {
+            int depth = 0;
+            for (Integer current = hierarchy.getParent(element); current != null; current = hierarchy.getParent(current))
+            {
+                depth++;
+            }
+            Assert.assertEquals(depth, hierarchy.depth(element));
+            expected.computeIfAbsent(depth, d -> new HashSet<>()).add(element);
+            height = Math.max(height, depth);
+        }
+
+        Assert.assertEquals(height, hierarchy.height());
+        for (int depth = 0; depth <= height + 1; depth++)
+        {
+            Collection<Integer> level = hierarchy.getElementsAtDepth(depth);
+            Set<Integer> expectedLevel = expected.getOrDefault(depth, new HashSet<>());
+            Assert.assertEquals(expectedLevel.size(), level.size());
+            Assert.assertEquals(expectedLevel, new HashSet<>(level));
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void GetElementsAtDepth_WithSmallHierarchy_ShouldReturnLevels()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        hierarchy.add(DefaultRootValue, 10);
+        hierarchy.add(DefaultRootValue, 20);
+        hierarchy.add(10, 11);
+        Collection<Integer> second = hierarchy.getElementsAtDepth(2);
+
+        Assert.assertEquals(Arrays.asList(11), new ArrayList<>(second));
+        hierarchy.add(20, 21);
+        Assert.assertEquals(new HashSet<>(Arrays.asList(11, 21)), new HashSet<>(second));
+
+        hierarchy.remove(10);
+        Assert.assertEquals(Arrays.asList(21), new ArrayList<>(second));
+        Assert.assertEquals(new HashSet<>(Arrays.asList(20, 11)), new HashSet<>(hierarchy.getElementsAtDepth(1)));
+        Assert.assertEquals(1, hierarchy.depth(11));
+        Assert.assertTrue(hierarchy.getElementsAtDepth(3).isEmpty());
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Depth_WithRandomAddsRemovesAndMoves_ShouldMatchParentWalks()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        Random random = new Random(47);
+        List<Integer> elements = new ArrayList<>();
+        elements.add(DefaultRootValue);
+        for (int i = 0; i < 3000; i++)
+        {
+            int parent = random.nextInt(3) == 0 ? elements.get(random.nextInt(elements.size())) : elements.get(elements.size() - 1);
+            hierarchy.add(parent, 100 + i);
+            elements.add(100 + i);
+        }
+        assertMatchesParentWalks(hierarchy, elements);
+
+        for (int round = 0; round < 10; round++)
+        {
+            for (int i = 0; i < 40; i++)
+            {
+                hierarchy.remove(elements.remove(1 + random.nextInt(elements.size() - 1)));
+            }
+            for (int i = 0; i < 40; i++)
+            {
+                Integer element = elements.get(1 + random.nextInt(elements.size() - 1));
+                Integer target = elements.get(random.nextInt(elements.size()));
+                if (!hierarchy.isInSubtree(target, element))
+                {
+                    hierarchy.move(element, target);
+                }
+            }
+            for (int i = 0; i < 40; i++)
+            {
+                hierarchy.add(elements.get(random.nextInt(elements.size())), 10000 + round * 100 + i);
+                elements.add(10000 + round * 100 + i);
+            }
+            assertMatchesParentWalks(hierarchy, elements);
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void GetElementsAtDepth_WithNegativeDepth_ShouldThrowException()
+    {
+        ((Hierarchy<Integer>) this.Hierarchy).getElementsAtDepth(-1);
+    }
+}
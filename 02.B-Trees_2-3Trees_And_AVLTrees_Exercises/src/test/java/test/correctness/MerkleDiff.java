@@ -0,0 +1,267 @@
+package test.correctness;
+
+import main.Hierarchy;
+import main.HierarchyEvent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BaseTest;
+import test.types.CorrectnessTests;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+
+public class MerkleDiff extends BaseTest {
+
+    private static Map<Integer, Integer> parents(Hierarchy<Integer> hierarchy)
+    {
+        Map<Integer, Integer> parents = new HashMap<>();
+        for (Integer element : hierarchy)
+        {
+            parents.put(element, hierarchy.getParent(element));
+        }
+        return parents;
+    }
+
+    private static Set<HierarchyEvent.Type> types(List<HierarchyEvent<Integer>> events)
+    {
+        Set<HierarchyEvent.Type> types = new HashSet<>();
+        events.forEach(event -> types.add(event.getType()));
+        return types;
+    }
+
+    private static Hierarchy<Integer> rebuild(Hierarchy<Integer> hierarchy, Integer root)
+    {
+        Hierarchy<Integer> copy = new Hierarchy<>(root);
+        Deque<Integer> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty())
+        {
+            Integer element = pending.pop();
+            for (Integer child : hierarchy.getChildren(element))
+            {
+                copy.add(element, child);
+                pending.push(child);
+            }
+        }
+        return copy;
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void ContentEquals_WithDifferentSiblingOrder_ShouldReturnTrue()
+    {
+        Hierarchy<Integer> first = new Hierarchy<>(0);
+        Hierarchy<Integer> second = new Hierarchy<>(0);
+        first.add(0, 1);
+        first.add(0, 2);
+        first.add(2, 3);
+        second.add(0, 2);
+        second.add(2, 3);
+        second.add(0, 1);
+
+        Assert.assertTrue(first.contentEquals(second));
+        Assert.assertEquals(first.subtreeHash(0), second.subtreeHash(0));
+        Assert.assertTrue(first.diff(second).isEmpty());
+
+        second.add(1, 4);
+        Assert.assertFalse(first.contentEquals(second));
+        Assert.assertEquals(first.subtreeHash(2), second.subtreeHash(2));
+        Assert.assertNotEquals(first.subtreeHash(1), second.subtreeHash(1));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void ContentEquals_WithCollidingHashCodesAndElementHasher_ShouldTellElementsApart()
+    {
+        Hierarchy<Long> first = new Hierarchy<>(0L);
+        Hierarchy<Long> second = new Hierarchy<>(0L);
+        first.add(0L, 1L << 32);
+        first.add(1L << 32, 2L);
+        second.add(0L, 1L);
+        second.add(1L, 2L);
+
+        // Long.hashCode folds the two halves together, so 1L << 32 and 1L look alike by default.
+        Assert.assertEquals(Long.hashCode(1L << 32), Long.hashCode(1L));
+        Assert.assertTrue(first.contentEquals(second));
+
+        first.setElementHasher(Long::longValue);
+        second.setElementHasher(Long::longValue);
+        Assert.assertFalse(first.contentEquals(second));
+        Assert.assertEquals(first.subtreeHash(2L), second.subtreeHash(2L));
+
+        List<HierarchyEvent<Long>> diff = first.diff(second);
+        Set<Long> removed = new HashSet<>();
+        Set<Long> added = new HashSet<>();
+        for (HierarchyEvent<Long> event : diff)
+        {
+            if (event.getType() == HierarchyEvent.Type.REMOVED)
+            {
+                removed.add(event.getElement());
+            }
+            else if (event.getType() == HierarchyEvent.Type.ADDED)
+            {
+                added.add(event.getElement());
+            }
+        }
+        Assert.assertEquals(Set.of(1L << 32), removed);
+        Assert.assertEquals(Set.of(1L), added);
+
+        first.add(2L, 3L);
+        second.add(2L, 3L);
+        Assert.assertNotEquals(first.subtreeHash(0L), second.subtreeHash(0L));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void SetElementHasher_WithNull_ShouldThrowException()
+    {
+        new Hierarchy<Integer>(0).setElementHasher(null);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Diff_WithSmallChanges_ShouldReportThem()
+    {
+        Hierarchy<Integer> first = new Hierarchy<>(0);
+        Hierarchy<Integer> second = new Hierarchy<>(0);
+        for (int i = 1; i <= 6; i++)
+        {
+            first.add((i - 1) / 2, i);
+            second.add((i - 1) / 2, i);
+        }
+        second.move(5, 1);
+        second.remove(4);
+        second.add(6, 7);
+
+        List<HierarchyEvent<Integer>> diff = first.diff(second);
+        Assert.assertEquals(3, diff.size());
+        Assert.assertEquals(Set.of(HierarchyEvent.Type.ADDED, HierarchyEvent.Type.REMOVED, HierarchyEvent.Type.REPARENTED), types(diff));
+        for (HierarchyEvent<Integer> event : diff)
+        {
+            switch (event.getType())
+            {
+                case ADDED:
+                    Assert.assertEquals(7, (int) event.getElement());
+                    Assert.assertEquals(6, (int) event.getNewParent());
+                    break;
+                case REMOVED:
+                    Assert.assertEquals(4, (int) event.getElement());
+                    Assert.assertEquals(1, (int) event.getOldParent());
+                    break;
+                default:
+                    Assert.assertEquals(5, (int) event.getElement());
+                    Assert.assertEquals(2, (int) event.getOldParent());
+                    Assert.assertEquals(1, (int) event.getNewParent());
+            }
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Diff_WithRandomChanges_ShouldMatchParentMaps()
+    {
+        Random random = new Random(49);
+        Hierarchy<Integer> original = new Hierarchy<>(0);
+        Hierarchy<Integer> changed = new Hierarchy<>(0);
+        List<Integer> elements = new ArrayList<>();
+        elements.add(0);
+        for (int i = 1; i < 2000; i++)
+        {
+            int parent = elements.get(random.nextInt(elements.size()));
+            original.add(parent, i);
+            changed.add(parent, i);
+            elements.add(i);
+        }
+        Assert.assertTrue(original.contentEquals(changed));
+
+        for (int round = 0; round < 20; round++)
+        {
+            for (int step = 0; step < 5; step++)
+            {
+                Integer element = elements.get(1 + random.nextInt(elements.size() - 1));
+                int operation = random.nextInt(4);
+                if (operation == 0)
+                {
+                    changed.add(element, 10000 + round * 10 + step);
+                    elements.add(10000 + round * 10 + step);
+                }
+                else if (operation == 1)
+                {
+                    changed.remove(element);
+                    elements.remove(element);
+                }
+                else if (operation == 2)
+                {
+                    Integer target = elements.get(random.nextInt(elements.size()));
+                    if (!changed.isInSubtree(target, element))
+                    {
+                        changed.move(element, target);
+                    }
+                }
+                else if (changed.subtreeSize(element) < 20)
+                {
+                    List<Integer> gone = new ArrayList<>();
+                    gone.add(element);
+                    changed.descendants(element).forEach(gone::add);
+                    changed.removeSubtree(element);
+                    elements.removeAll(gone);
+                }
+            }
+
+            Map<Integer, Integer> before = parents(original);
+            Map<Integer, Integer> after = parents(changed);
+            List<HierarchyEvent<Integer>> diff = original.diff(changed);
+            Assert.assertEquals(diff.size(), new HashSet<>(diff).size());
+            for (HierarchyEvent<Integer> event : diff)
+            {
+                Integer element = event.getElement();
+                switch (event.getType())
+                {
+                    case ADDED:
+                        Assert.assertFalse(before.containsKey(element));
+                        Assert.assertEquals(after.get(element), event.getNewParent());
+                        break;
+                    case REMOVED:
+                        Assert.assertFalse(after.containsKey(element));
+                        Assert.assertEquals(before.get(element), event.getOldParent());
+                        break;
+                    default:
+                        Assert.assertEquals(before.get(element), event.getOldParent());
+                        Assert.assertEquals(after.get(element), event.getNewParent());
+                        Assert.assertFalse(Objects.equals(event.getOldParent(), event.getNewParent()));
+                }
+            }
+
+            int differences = 0;
+            for (Integer element : before.keySet())
+            {
+                if (!after.containsKey(element) || !Objects.equals(before.get(element), after.get(element)))
+                {
+                    differences++;
+                }
+            }
+            for (Integer element : after.keySet())
+            {
+                if (!before.containsKey(element))
+                {
+                    differences++;
+                }
+            }
+            Assert.assertEquals(differences, diff.size());
+
+            Hierarchy<Integer> rebuilt = rebuild(changed, 0);
+            Assert.assertEquals(rebuilt.subtreeHash(0), changed.subtreeHash(0));
+            Assert.assertTrue(rebuilt.contentEquals(changed));
+            Assert.assertTrue(changed.diff(rebuilt).isEmpty());
+        }
+    }
+}
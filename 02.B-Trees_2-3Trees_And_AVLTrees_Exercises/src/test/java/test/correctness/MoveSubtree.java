@@ -0,0 +1,182 @@
+package test.correctness;
+
+import main.Hierarchy;
+import main.HierarchyEvent;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BaseTest;
+import test.helpers.IterableExtensions;
+import test.types.CorrectnessTests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class MoveSubtree extends BaseTest {
+
+    private static boolean naiveInSubtree(Hierarchy<Integer> hierarchy, Integer element, Integer subtreeRoot)
+    {
+        for (Integer current = element; current != null; current = hierarchy.getParent(current))
+        {
+            if (current.equals(subtreeRoot))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Move_WithSubtree_ShouldCarryDescendants()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        hierarchy.add(DefaultRootValue, 10);
+        hierarchy.add(DefaultRootValue, 20);
+        hierarchy.add(10, 11);
+        hierarchy.add(11, 12);
+        hierarchy.add(20, 21);
+        Assert.assertEquals(3, hierarchy.subtreeSize(10));
+
+        hierarchy.move(11, 21);
+
+        Assert.assertEquals(21, (int) hierarchy.getParent(11));
+        Assert.assertEquals(12, (int) IterableExtensions.toList(hierarchy.getChildren(11)).get(0));
+        Assert.assertEquals(0, IterableExtensions.getCount(hierarchy.getChildren(10)));
+        Assert.assertEquals(4, hierarchy.depth(12));
+        Assert.assertEquals(21, (int) hierarchy.lca(12, 21));
+        Assert.assertEquals(DefaultRootValue, (int) hierarchy.lca(12, 10));
+        Assert.assertEquals(4, hierarchy.subtreeSize(20));
+        Assert.assertEquals(1, hierarchy.subtreeSize(10));
+        Assert.assertTrue(hierarchy.isInSubtree(12, 20));
+        Assert.assertEquals(Arrays.asList(21, 11, 12), IterableExtensions.toList(hierarchy.descendants(20)));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void Move_IntoOwnSubtree_ShouldThrowException()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        hierarchy.add(DefaultRootValue, 10);
+        hierarchy.add(10, 11);
+        hierarchy.move(10, 11);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalStateException.class)
+    public void Move_WithRoot_ShouldThrowException()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        hierarchy.add(DefaultRootValue, 10);
+        hierarchy.move(DefaultRootValue, 10);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void RemoveSubtree_WithSubtree_ShouldRemoveAllDescendants()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        List<HierarchyEvent<Integer>> events = new ArrayList<>();
+        hierarchy.add(DefaultRootValue, 10);
+        hierarchy.add(DefaultRootValue, 20);
+        hierarchy.add(10, 11);
+        hierarchy.add(11, 12);
+        hierarchy.add(10, 13);
+        hierarchy.addListener(events::addAll);
+
+        Assert.assertEquals(4, hierarchy.removeSubtree(10));
+
+        Assert.assertEquals(2, hierarchy.getCount());
+        Assert.assertFalse(hierarchy.contains(12));
+        Assert.assertEquals(Arrays.asList(20), IterableExtensions.toList(hierarchy.getChildren(DefaultRootValue)));
+        Assert.assertEquals(Arrays.asList(13, 12, 11, 10),
+                Arrays.asList(events.stream().map(HierarchyEvent::getElement).toArray()));
+        Assert.assertEquals(DefaultRootValue, (int) events.get(3).getOldParent());
+        Assert.assertEquals(2, hierarchy.subtreeSize(DefaultRootValue));
+
+        hierarchy.add(20, 10);
+        Assert.assertEquals(2, hierarchy.depth(10));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void MoveAndRemoveSubtree_WithRandomOperations_ShouldMatchParentWalks()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        Random random = new Random(46);
+        List<Integer> elements = new ArrayList<>();
+        elements.add(DefaultRootValue);
+        for (int i = 0; i < 3000; i++)
+        {
+            hierarchy.add(elements.get(random.nextInt(elements.size())), 100 + i);
+            elements.add(100 + i);
+        }
+
+        for (int i = 0; i < 600; i++)
+        {
+            Integer element = elements.get(1 + random.nextInt(elements.size() - 1));
+            Integer target = elements.get(random.nextInt(elements.size()));
+            if (i % 50 == 49)
+            {
+                hierarchy.removeSubtree(element);
+                Set<Integer> gone = new HashSet<>();
+                for (Integer candidate : elements)
+                {
+                    if (!hierarchy.contains(candidate))
+                    {
+                        gone.add(candidate);
+                    }
+                }
+                elements.removeAll(gone);
+                Assert.assertTrue(gone.contains(element));
+            }
+            else if (naiveInSubtree(hierarchy, target, element))
+            {
+                try
+                {
+                    hierarchy.move(element, target);
+                    Assert.fail();
+                }
+                catch (IllegalArgumentException expected)
+                {
+                }
+            }
+            else
+            {
+                hierarchy.move(element, target);
+                Assert.assertEquals(target, hierarchy.getParent(element));
+            }
+
+            if (i % 20 == 0)
+            {
+                Assert.assertEquals(elements.size(), hierarchy.getCount());
+                Assert.assertEquals(elements.size(), hierarchy.subtreeSize(DefaultRootValue));
+                for (int j = 0; j < 50; j++)
+                {
+                    Integer first = elements.get(random.nextInt(elements.size()));
+                    Integer second = elements.get(random.nextInt(elements.size()));
+                    Assert.assertEquals(naiveInSubtree(hierarchy, first, second), hierarchy.isInSubtree(first, second));
+                    Assert.assertEquals(naiveInSubtree(hierarchy, first, second) && !first.equals(second),
+                            hierarchy.isAncestor(second, first));
+                }
+                for (int j = 0; j < 5; j++)
+                {
+                    Integer subtreeRoot = elements.get(random.nextInt(elements.size()));
+                    int size = 0;
+                    for (Integer candidate : elements)
+                    {
+                        if (naiveInSubtree(hierarchy, candidate, subtreeRoot))
+                        {
+                            size++;
+                        }
+                    }
+                    Assert.assertEquals(size, hierarchy.subtreeSize(subtreeRoot));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package test.correctness;
+
+import main.Hierarchy;
+import main.HierarchyRollup;
+import main.RollupMonoid;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BaseTest;
+import test.types.CorrectnessTests;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class Rollups extends BaseTest {
+
+    // Neither invertible nor idempotent, so every update has to recombine exactly.
+    private static final RollupMonoid<Long> PRODUCT = new RollupMonoid<>() {
+        @Override
+        public Long identity() {
+            return 1L;
+        }
+
+        @Override
+        public Long combine(Long left, Long right) {
+            return left * right % 1_000_000_007L;
+        }
+    };
+
+    private static long expected(Hierarchy<Integer> hierarchy, RollupMonoid<Long> monoid, Map<Integer, Long> weights, Integer element)
+    {
+        long aggregate = monoid.combine(monoid.identity(), weights.get(element));
+        for (Integer descendant : hierarchy.descendants(element))
+        {
+            aggregate = monoid.combine(aggregate, weights.get(descendant));
+        }
+        return aggregate;
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Aggregate_WithSmallHierarchy_ShouldCombineSubtreeWeights()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        hierarchy.add(DefaultRootValue, 10);
+        hierarchy.add(DefaultRootValue, 20);
+        hierarchy.add(10, 11);
+        hierarchy.add(10, 12);
+        HierarchyRollup<Integer, Long> sum = hierarchy.addRollup(RollupMonoid.LONG_SUM, element -> (long) element);
+        HierarchyRollup<Integer, Long> max = hierarchy.addRollup(RollupMonoid.LONG_MAX, element -> (long) element);
+
+        Assert.assertEquals(Long.valueOf(58), sum.aggregate(DefaultRootValue));
+        Assert.assertEquals(Long.valueOf(33), sum.aggregate(10));
+        Assert.assertEquals(Long.valueOf(20), max.aggregate(DefaultRootValue));
+
+        hierarchy.add(11, 30);
+        Assert.assertEquals(Long.valueOf(63), sum.aggregate(10));
+        Assert.assertEquals(Long.valueOf(30), max.aggregate(DefaultRootValue));
+
+        max.setWeight(30, 1L);
+        Assert.assertEquals(Long.valueOf(20), max.aggregate(DefaultRootValue));
+        Assert.assertEquals(Long.valueOf(12), max.aggregate(10));
+
+        hierarchy.remove(10);
+        Assert.assertEquals(Long.valueOf(78), sum.aggregate(DefaultRootValue));
+        Assert.assertEquals(Long.valueOf(41), sum.aggregate(11));
+
+        hierarchy.move(11, 20);
+        Assert.assertEquals(Long.valueOf(61), sum.aggregate(20));
+        Assert.assertEquals(Long.valueOf(20), max.aggregate(20));
+
+        hierarchy.removeSubtree(20);
+        Assert.assertEquals(Long.valueOf(17), sum.aggregate(DefaultRootValue));
+        Assert.assertEquals(Long.valueOf(12), max.aggregate(DefaultRootValue));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Aggregate_WithRandomChanges_ShouldMatchTraversals()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        Random random = new Random(48);
+        List<Integer> elements = new ArrayList<>();
+        Map<Integer, Long> weights = new HashMap<>();
+        elements.add(DefaultRootValue);
+        for (int i = 0; i < 500; i++)
+        {
+            hierarchy.add(elements.get(random.nextInt(elements.size())), 100 + i);
+            elements.add(100 + i);
+        }
+        for (Integer element : elements)
+        {
+            weights.put(element, (long) element % 97);
+        }
+
+        List<RollupMonoid<Long>> monoids = List.of(RollupMonoid.LONG_SUM, RollupMonoid.LONG_MAX, RollupMonoid.LONG_MIN);
+        List<HierarchyRollup<Integer, Long>> rollups = new ArrayList<>();
+        for (RollupMonoid<Long> monoid : monoids)
+        {
+            rollups.add(hierarchy.addRollup(monoid, element -> (long) element % 97));
+        }
+        HierarchyRollup<Integer, Long> count = hierarchy.addRollup(RollupMonoid.LONG_SUM, element -> 1L);
+
+        for (int step = 0; step < 2000; step++)
+        {
+            int operation = random.nextInt(10);
+            Integer element = elements.get(1 + random.nextInt(elements.size() - 1));
+            if (operation < 3)
+            {
+                int child = 1000 + step;
+                hierarchy.add(elements.get(random.nextInt(elements.size())), child);
+                elements.add(child);
+                weights.put(child, (long) child % 97);
+            }
+            else if (operation < 5)
+            {
+                long weight = random.nextInt(1000) - 500;
+                weights.put(element, weight);
+                for (HierarchyRollup<Integer, Long> rollup : rollups)
+                {
+                    rollup.setWeight(element, weight);
+                }
+            }
+            else if (operation < 7)
+            {
+                hierarchy.remove(element);
+                elements.remove(element);
+            }
+            else if (operation < 9)
+            {
+                Integer target = elements.get(random.nextInt(elements.size()));
+                if (!hierarchy.isInSubtree(target, element))
+                {
+                    hierarchy.move(element, target);
+                }
+            }
+            else if (hierarchy.subtreeSize(element) < 10)
+            {
+                List<Integer> gone = new ArrayList<>();
+                gone.add(element);
+                hierarchy.descendants(element).forEach(gone::add);
+                hierarchy.removeSubtree(element);
+                elements.removeAll(gone);
+            }
+
+            if (elements.size() < 2)
+            {
+                break;
+            }
+            if (step % 50 == 0)
+            {
+                for (Integer checked : elements)
+                {
+                    for (int i = 0; i < monoids.size(); i++)
+                    {
+                        Assert.assertEquals(expected(hierarchy, monoids.get(i), weights, checked), (long) rollups.get(i).aggregate(checked));
+                    }
+                    Assert.assertEquals(hierarchy.subtreeSize(checked), (long) count.aggregate(checked));
+                }
+            }
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Move_ToAncestorOfOldParent_ShouldCountSubtreeOnce()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(1);
+        hierarchy.add(1, 2);
+        hierarchy.add(2, 3);
+        HierarchyRollup<Integer, Long> product = hierarchy.addRollup(PRODUCT, element -> (long) element);
+
+        hierarchy.move(3, 1);
+        Assert.assertEquals(Long.valueOf(6), product.aggregate(1));
+        Assert.assertEquals(Long.valueOf(2), product.aggregate(2));
+
+        hierarchy.move(3, 2);
+        Assert.assertEquals(Long.valueOf(6), product.aggregate(1));
+        Assert.assertEquals(Long.valueOf(6), product.aggregate(2));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Aggregate_WithProductAndRandomChanges_ShouldMatchTraversals()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        Random random = new Random(480);
+        List<Integer> elements = new ArrayList<>();
+        Map<Integer, Long> weights = new HashMap<>();
+        elements.add(DefaultRootValue);
+        weights.put(DefaultRootValue, 2L);
+        for (int i = 0; i < 300; i++)
+        {
+            hierarchy.add(elements.get(random.nextInt(elements.size())), 100 + i);
+            elements.add(100 + i);
+            weights.put(100 + i, 2L + i % 7);
+        }
+        HierarchyRollup<Integer, Long> product = hierarchy.addRollup(PRODUCT, weights::get);
+
+        for (int step = 0; step < 3000; step++)
+        {
+            Integer element = elements.get(1 + random.nextInt(elements.size() - 1));
+            int operation = random.nextInt(10);
+            if (operation < 2)
+            {
+                int child = 1000 + step;
+                weights.put(child, 2L + step % 5);
+                hierarchy.add(elements.get(random.nextInt(elements.size())), child);
+                elements.add(child);
+            }
+            else if (operation < 4)
+            {
+                long weight = 2 + random.nextInt(50);
+                weights.put(element, weight);
+                product.setWeight(element, weight);
+            }
+            else if (operation < 5 && elements.size() > 50)
+            {
+                hierarchy.remove(element);
+                elements.remove(element);
+            }
+            else
+            {
+                // Mostly up or down the element's own ancestor path, where the two paths overlap.
+                Integer target = random.nextBoolean()
+                        ? hierarchy.kthAncestor(element, 1 + random.nextInt(hierarchy.depth(element)))
+                        : elements.get(random.nextInt(elements.size()));
+                if (!hierarchy.isInSubtree(target, element))
+                {
+                    hierarchy.move(element, target);
+                }
+            }
+
+            if (step % 100 == 0)
+            {
+                for (Integer checked : elements)
+                {
+                    Assert.assertEquals(expected(hierarchy, PRODUCT, weights, checked), (long) product.aggregate(checked));
+                }
+            }
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalStateException.class)
+    public void Aggregate_AfterRemoveRollup_ShouldThrowException()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        HierarchyRollup<Integer, Long> rollup = hierarchy.addRollup(RollupMonoid.LONG_SUM, element -> 1L);
+        hierarchy.removeRollup(rollup);
+        hierarchy.add(DefaultRootValue, 10);
+        rollup.aggregate(DefaultRootValue);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void Aggregate_WithMissingElement_ShouldThrowException()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        hierarchy.addRollup(RollupMonoid.LONG_SUM, element -> 1L).aggregate(42);
+    }
+}
@@ -0,0 +1,102 @@
+package test.correctness;
+
+import main.MyNode;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.types.CorrectnessTests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+
+public class Siblings {
+
+    private static List<Integer> forwards(MyNode<Integer> parent)
+    {
+        List<Integer> values = new ArrayList<>();
+        for (MyNode<Integer> child = parent.getFirstChild(); child != null; child = child.getNextSibling())
+        {
+            values.add(child.getValue());
+        }
+        return values;
+    }
+
+    private static List<Integer> backwards(MyNode<Integer> parent)
+    {
+        List<Integer> values = new ArrayList<>();
+        for (MyNode<Integer> child = parent.getLastChild(); child != null; child = child.getPreviousSibling())
+        {
+            values.add(0, child.getValue());
+        }
+        return values;
+    }
+
+    private static void assertChildren(MyNode<Integer> parent, Integer... expected)
+    {
+        Assert.assertEquals(Arrays.asList(expected), forwards(parent));
+        Assert.assertEquals(Arrays.asList(expected), backwards(parent));
+        Assert.assertEquals(expected.length, parent.getChildCount());
+
+        List<Integer> reversed = new ArrayList<>();
+        ListIterator<MyNode<Integer>> iterator = parent.getChildren().listIterator(expected.length);
+        while (iterator.hasPrevious())
+        {
+            reversed.add(0, iterator.previous().getValue());
+        }
+        Assert.assertEquals(Arrays.asList(expected), reversed);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void AddChildAndRemoveChild_ShouldKeepBothDirectionsLinked()
+    {
+        MyNode<Integer> parent = new MyNode<>(0);
+        List<MyNode<Integer>> children = new ArrayList<>();
+        for (int i = 1; i <= 4; i++)
+        {
+            children.add(new MyNode<>(i));
+            parent.addChild(children.get(i - 1));
+        }
+        assertChildren(parent, 1, 2, 3, 4);
+        Assert.assertNull(children.get(0).getPreviousSibling());
+
+        parent.removeChild(children.get(3));
+        assertChildren(parent, 1, 2, 3);
+        parent.removeChild(children.get(0));
+        assertChildren(parent, 2, 3);
+        parent.removeChild(children.get(1));
+        assertChildren(parent, 3);
+        Assert.assertNull(children.get(2).getPreviousSibling());
+        parent.removeChild(children.get(2));
+        assertChildren(parent);
+        Assert.assertNull(parent.getLastChild());
+
+        parent.addChild(children.get(1));
+        assertChildren(parent, 2);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void AppendChildrenOf_ShouldKeepBothDirectionsLinked()
+    {
+        MyNode<Integer> first = new MyNode<>(0);
+        MyNode<Integer> second = new MyNode<>(10);
+        MyNode<Integer> empty = new MyNode<>(20);
+        for (int i = 1; i <= 3; i++)
+        {
+            first.addChild(new MyNode<>(i));
+            second.addChild(new MyNode<>(10 + i));
+        }
+
+        first.appendChildrenOf(second);
+        assertChildren(first, 1, 2, 3, 11, 12, 13);
+        assertChildren(second);
+
+        empty.appendChildrenOf(first);
+        assertChildren(empty, 1, 2, 3, 11, 12, 13);
+        empty.addChild(new MyNode<>(4));
+        assertChildren(empty, 1, 2, 3, 11, 12, 13, 4);
+    }
+}
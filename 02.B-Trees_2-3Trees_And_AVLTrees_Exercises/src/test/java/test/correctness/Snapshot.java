@@ -0,0 +1,159 @@
+package test.correctness;
+
+import main.Hierarchy;
+import main.HierarchySnapshot;
+import main.KeyCodec;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import test.helpers.IterableExtensions;
+import test.types.CorrectnessTests;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class Snapshot {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // A snapshot header for count nodes followed by body, which holds the nodes.
+    private Path writeRaw(int count, int... body) throws IOException
+    {
+        Path file = this.folder.newFile().toPath();
+        ByteBuffer buffer = ByteBuffer.allocate(12 + body.length);
+        buffer.putInt(0x48534E50).putInt(1).putInt(count);
+        for (int b : body)
+        {
+            buffer.put((byte) b);
+        }
+        Files.write(file, buffer.array());
+        return file;
+    }
+
+    private static <T> void assertSameHierarchy(Hierarchy<T> expected, Hierarchy<T> actual)
+    {
+        Assert.assertEquals(expected.getCount(), actual.getCount());
+        Assert.assertEquals(IterableExtensions.toList(expected.preOrder()), IterableExtensions.toList(actual.preOrder()));
+        for (T element : expected)
+        {
+            Assert.assertEquals(expected.getParent(element), actual.getParent(element));
+            Assert.assertEquals(IterableExtensions.toList(expected.getChildren(element)),
+                    IterableExtensions.toList(actual.getChildren(element)));
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Snapshot_WithRandomHierarchyAfterRemovals_ShouldRestoreSameLinks() throws IOException
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        Random random = new Random(44);
+        for (int i = 1; i < 20000; i++)
+        {
+            hierarchy.add(random.nextInt(4) == 0 ? random.nextInt(i) : i - 1, i);
+        }
+        for (int i = 0; i < 1000; i++)
+        {
+            int element = 1 + random.nextInt(19999);
+            if (hierarchy.contains(element))
+            {
+                hierarchy.remove(element);
+            }
+        }
+
+        Path file = this.folder.newFile().toPath();
+        HierarchySnapshot.write(hierarchy, file, KeyCodec.INTEGER);
+        Hierarchy<Integer> restored = HierarchySnapshot.read(file, KeyCodec.INTEGER);
+
+        assertSameHierarchy(hierarchy, restored);
+        Assert.assertEquals(hierarchy.depth(19999), restored.depth(19999));
+        restored.add(19999, 20000);
+        Assert.assertEquals(19999, (int) restored.getParent(20000));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Snapshot_WithStringKeysAndWideNode_ShouldRestoreSameLinks() throws IOException
+    {
+        Hierarchy<String> hierarchy = new Hierarchy<>("root");
+        for (int i = 0; i < 300; i++)
+        {
+            hierarchy.add("root", "child \u00e9" + i);
+        }
+        hierarchy.add("child \u00e90", "");
+
+        Path file = this.folder.newFile().toPath();
+        HierarchySnapshot.write(hierarchy, file, KeyCodec.STRING);
+
+        assertSameHierarchy(hierarchy, HierarchySnapshot.read(file, KeyCodec.STRING));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Snapshot_WithOnlyRoot_ShouldRestoreRoot() throws IOException
+    {
+        Path file = this.folder.newFile().toPath();
+        HierarchySnapshot.write(new Hierarchy<>(7L), file, KeyCodec.LONG);
+
+        Hierarchy<Long> restored = HierarchySnapshot.read(file, KeyCodec.LONG);
+        Assert.assertEquals(Arrays.asList(7L), IterableExtensions.toList(restored));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void Read_WithTruncatedSnapshot_ShouldThrowException() throws IOException
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        hierarchy.add(0, 1);
+        hierarchy.add(1, 2);
+        Path file = this.folder.newFile().toPath();
+        HierarchySnapshot.write(hierarchy, file, KeyCodec.INTEGER);
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+        HierarchySnapshot.read(file, KeyCodec.INTEGER);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void Read_WithOtherFile_ShouldThrowException() throws IOException
+    {
+        Path file = this.folder.newFile().toPath();
+        Files.write(file, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        HierarchySnapshot.read(file, KeyCodec.INTEGER);
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Read_WithCorruptStringLength_ShouldThrowException() throws IOException
+    {
+        int[][] lengths = { {0xFF, 0xFF, 0xFF, 0xFF}, {0x7F, 0xFF, 0xFF, 0xFF}, {0, 0, 0, 2} };
+        for (int[] length : lengths)
+        {
+            Path file = writeRaw(1, length[0], length[1], length[2], length[3], 'a', 0);
+            try
+            {
+                HierarchySnapshot.read(file, KeyCodec.STRING);
+                Assert.fail();
+            }
+            catch (IllegalArgumentException expected)
+            {
+            }
+        }
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test(expected = IllegalArgumentException.class)
+    public void Read_WithChildCountBeyondIntRange_ShouldThrowException() throws IOException
+    {
+        // A root whose child count varint encodes 2^31.
+        HierarchySnapshot.read(writeRaw(1, 0, 0, 0, 0, 0x80, 0x80, 0x80, 0x80, 0x08), KeyCodec.INTEGER);
+    }
+}
@@ -0,0 +1,122 @@
+package test.correctness;
+
+import main.Hierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BaseTest;
+import test.helpers.IterableExtensions;
+import test.types.CorrectnessTests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+public class Traverse extends BaseTest {
+
+    private Hierarchy<Integer> buildSample()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        hierarchy.add(DefaultRootValue, -10);
+        hierarchy.add(DefaultRootValue, 10);
+        hierarchy.add(-10, -11);
+        hierarchy.add(-10, -12);
+        hierarchy.add(10, 11);
+        hierarchy.add(10, 12);
+        hierarchy.add(-11, -13);
+        hierarchy.add(-11, -14);
+        hierarchy.add(11, 13);
+        return hierarchy;
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void PreOrder_WithMultipleElements_ShouldVisitParentsBeforeChildren()
+    {
+        Hierarchy<Integer> hierarchy = buildSample();
+
+        Assert.assertEquals(Arrays.asList(DefaultRootValue, -10, -11, -13, -14, -12, 10, 11, 13, 12),
+                IterableExtensions.toList(hierarchy.preOrder()));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void PostOrder_WithMultipleElements_ShouldVisitChildrenBeforeParents()
+    {
+        Hierarchy<Integer> hierarchy = buildSample();
+
+        Assert.assertEquals(Arrays.asList(-13, -14, -11, -12, -10, 13, 11, 12, 10, DefaultRootValue),
+                IterableExtensions.toList(hierarchy.postOrder()));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void BreadthFirst_WithMultipleElements_ShouldMatchIterator()
+    {
+        Hierarchy<Integer> hierarchy = buildSample();
+
+        Assert.assertEquals(Arrays.asList(DefaultRootValue, -10, 10, -11, -12, 11, 12, -13, -14, 13),
+                IterableExtensions.toList(hierarchy.breadthFirst()));
+        Assert.assertEquals(IterableExtensions.toList(hierarchy), IterableExtensions.toList(hierarchy.breadthFirst()));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Traversals_WithOnlyRoot_ShouldReturnOnlyRoot()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+
+        Assert.assertEquals(Arrays.asList(DefaultRootValue), IterableExtensions.toList(hierarchy.preOrder()));
+        Assert.assertEquals(Arrays.asList(DefaultRootValue), IterableExtensions.toList(hierarchy.postOrder()));
+        Assert.assertEquals(Arrays.asList(DefaultRootValue), hierarchy.parallelStream().collect(Collectors.toList()));
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void ParallelStream_WithRandomHierarchy_ShouldKeepPreOrder()
+    {
+        Hierarchy<Integer> hierarchy = (Hierarchy<Integer>) this.Hierarchy;
+        Random random = new Random(12);
+        for (int i = 0; i < 20000; i++)
+        {
+            int parent = i == 0 || random.nextInt(10) == 0 ? DefaultRootValue : 100 + random.nextInt(i);
+            hierarchy.add(parent, 100 + i);
+        }
+
+        List<Integer> expected = IterableExtensions.toList(hierarchy.preOrder());
+        Assert.assertEquals(hierarchy.getCount(), expected.size());
+        Assert.assertEquals(expected, hierarchy.stream().collect(Collectors.toList()));
+        Assert.assertEquals(expected, hierarchy.parallelStream().collect(Collectors.toList()));
+        Assert.assertEquals(expected.stream().mapToLong(Integer::longValue).sum(),
+                hierarchy.parallelStream().mapToLong(Integer::longValue).sum());
+    }
+
+    @Category(CorrectnessTests.class)
+    @Test
+    public void Spliterator_SplitRepeatedly_ShouldPartitionPreOrderIntoPrefixes()
+    {
+        Hierarchy<Integer> hierarchy = buildSample();
+        List<Integer> expected = IterableExtensions.toList(hierarchy.preOrder());
+
+        List<Integer> actual = new ArrayList<>();
+        collectSplitting(hierarchy.spliterator(), actual);
+
+        Assert.assertEquals(expected, actual);
+    }
+
+    private static void collectSplitting(Spliterator<Integer> spliterator, List<Integer> result)
+    {
+        spliterator.tryAdvance(result::add);
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        if (prefix != null)
+        {
+            collectSplitting(prefix, result);
+            collectSplitting(spliterator, result);
+            return;
+        }
+        spliterator.forEachRemaining(result::add);
+    }
+}
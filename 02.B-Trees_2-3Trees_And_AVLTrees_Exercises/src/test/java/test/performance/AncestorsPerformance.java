@@ -0,0 +1,58 @@
+package test.performance;
+
+import main.Hierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BasePerformanceTest;
+import test.types.PerformanceTests;
+
+public class AncestorsPerformance extends BasePerformanceTest {
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceAncestors_With20000LcaQueriesOnTwoDeepChains()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        hierarchy.add(0, 1);
+        hierarchy.add(0, 2);
+        for (int i = 3; i < 100000; i++)
+        {
+            hierarchy.add(i - 2, i);
+        }
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 20000; i++)
+        {
+            int first = 1 + this.random.nextInt(99999);
+            int second = 1 + this.random.nextInt(99999);
+            Integer expected = first % 2 == second % 2 ? Integer.valueOf(Math.min(first, second)) : Integer.valueOf(0);
+            Assert.assertEquals(expected, hierarchy.lca(first, second));
+            Assert.assertEquals((first + 1) / 2, hierarchy.depth(first));
+        }
+        long end = System.currentTimeMillis();
+        Assert.assertTrue(end - start < 200);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceAncestors_WithRebuildAfterRemoveOnDeepChain()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        for (int i = 1; i < 100000; i++)
+        {
+            hierarchy.add(i - 1, i);
+        }
+
+        long start = System.currentTimeMillis();
+        hierarchy.remove(50000);
+        for (int i = 0; i < 20000; i++)
+        {
+            int element = 52000 + this.random.nextInt(47999);
+            Assert.assertTrue(hierarchy.isAncestor(49999, element));
+            Assert.assertEquals(Integer.valueOf(element - 1000), hierarchy.kthAncestor(element, 1000));
+        }
+        long end = System.currentTimeMillis();
+        Assert.assertTrue(end - start < 200);
+    }
+}
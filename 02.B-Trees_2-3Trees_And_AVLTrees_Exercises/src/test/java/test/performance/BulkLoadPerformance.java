@@ -0,0 +1,45 @@
+package test.performance;
+
+import main.Hierarchy;
+import main.HierarchyBulkLoader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import test.helpers.BasePerformanceTest;
+import test.types.PerformanceTests;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class BulkLoadPerformance extends BasePerformanceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceLoadEdgeList_With50000EdgesChildrenFirst() throws IOException
+    {
+        Path file = this.folder.newFile().toPath();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII))
+        {
+            for (int i = 50000; i > 0; i--)
+            {
+                writer.write(this.random.nextInt(i) + " " + i + "\n");
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        Hierarchy<Long> hierarchy = HierarchyBulkLoader.loadEdgeList(file);
+        long end = System.currentTimeMillis();
+
+        Assert.assertEquals(50001, hierarchy.getCount());
+        Assert.assertNull(hierarchy.getParent(0L));
+        Assert.assertTrue(end - start < 200);
+    }
+}
@@ -0,0 +1,54 @@
+package test.performance;
+
+import main.IntHierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BasePerformanceTest;
+import test.types.PerformanceTests;
+
+public class CompactHierarchyPerformance extends BasePerformanceTest {
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceIntHierarchy_With1000000ElementsShouldCompactBelow24BytesPerElement()
+    {
+        IntHierarchy hierarchy = new IntHierarchy(0);
+        for (int i = 1; i < 1000000; i++)
+        {
+            hierarchy.add(this.random.nextInt(i), i);
+        }
+        hierarchy.compact();
+
+        Assert.assertTrue(hierarchy.footprintBytes() < 24L * hierarchy.getCount());
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 100000; i++)
+        {
+            int element = 1 + this.random.nextInt(999999);
+            Assert.assertTrue(hierarchy.parentOf(element) < element);
+        }
+        long end = System.currentTimeMillis();
+        Assert.assertTrue(end - start < 200);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceGetChildren_WithCompacted1ElementWith100000Children()
+    {
+        IntHierarchy hierarchy = new IntHierarchy(-17);
+        for (int i = 100000; i > 0; i--)
+        {
+            hierarchy.add(-17, i);
+        }
+        hierarchy.compact();
+
+        long start = System.currentTimeMillis();
+        long[] sum = new long[1];
+        hierarchy.forEachChild(-17, child -> sum[0] += child);
+        long end = System.currentTimeMillis();
+
+        Assert.assertEquals(100000L * 100001 / 2, sum[0]);
+        Assert.assertTrue(end - start < 200);
+    }
+}
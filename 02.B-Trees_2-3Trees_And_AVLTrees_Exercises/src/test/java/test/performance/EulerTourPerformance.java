@@ -0,0 +1,102 @@
+package test.performance;
+
+import main.Hierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BasePerformanceTest;
+import test.types.PerformanceTests;
+
+public class EulerTourPerformance extends BasePerformanceTest {
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceIsInSubtree_With100000QueriesOnDeepChain()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        for (int i = 1; i < 100000; i++)
+        {
+            hierarchy.add(i - 1, i);
+        }
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 100000; i++)
+        {
+            int first = this.random.nextInt(100000);
+            int second = this.random.nextInt(100000);
+            Assert.assertEquals(first >= second, hierarchy.isInSubtree(first, second));
+        }
+        long end = System.currentTimeMillis();
+        Assert.assertTrue(end - start < 200);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceSubtreeSize_With100000QueriesAfterRemove()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        for (int i = 1; i < 100000; i++)
+        {
+            hierarchy.add(i - 1, i);
+        }
+
+        long start = System.currentTimeMillis();
+        hierarchy.remove(50000);
+        for (int i = 0; i < 100000; i++)
+        {
+            int element = 50001 + this.random.nextInt(49999);
+            Assert.assertEquals(100000 - element, hierarchy.subtreeSize(element));
+        }
+        Assert.assertEquals(99999, hierarchy.subtreeSize(0));
+        long end = System.currentTimeMillis();
+        Assert.assertTrue(end - start < 200);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceDescendants_WithSubtreeOfHalfTheElements()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        hierarchy.add(0, 1);
+        hierarchy.add(0, 2);
+        for (int i = 3; i < 100000; i++)
+        {
+            hierarchy.add(i - 2, i);
+        }
+
+        long start = System.currentTimeMillis();
+        long count = 0;
+        for (Integer ignored : hierarchy.descendants(1))
+        {
+            count++;
+        }
+        long end = System.currentTimeMillis();
+        Assert.assertEquals(49999, count);
+        Assert.assertEquals(50000, hierarchy.subtreeSize(1));
+        Assert.assertTrue(end - start < 200);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceSubtreeSize_With10000QueriesBetweenAddsAndRemoves()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        for (int i = 1; i < 100000; i++)
+        {
+            hierarchy.add(this.random.nextInt(i), i);
+        }
+        hierarchy.subtreeSize(0);
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 10000; i++)
+        {
+            hierarchy.add(this.random.nextInt(100000), 100000 + i);
+            Assert.assertEquals(100001, hierarchy.subtreeSize(0));
+            hierarchy.remove(100000 + i);
+            hierarchy.subtreeSize(1 + this.random.nextInt(99999));
+        }
+        long end = System.currentTimeMillis();
+        Assert.assertEquals(100000, hierarchy.subtreeSize(0));
+        Assert.assertTrue(end - start < 200);
+    }
+}
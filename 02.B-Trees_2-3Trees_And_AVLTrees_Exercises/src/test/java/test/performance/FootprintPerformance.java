@@ -0,0 +1,50 @@
+package test.performance;
+
+import main.Hierarchy;
+import main.MyNode;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.openjdk.jol.info.GraphLayout;
+import test.helpers.BasePerformanceTest;
+import test.types.PerformanceTests;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+public class FootprintPerformance extends BasePerformanceTest {
+
+    private static final int COUNT = 100000;
+
+    // Every manager has 4 to 10 reports, which leaves about six in seven elements as leaves.
+    private Hierarchy<Integer> orgChart()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        Deque<Integer> managers = new ArrayDeque<>();
+        managers.offer(0);
+        int next = 1;
+        while (next < COUNT)
+        {
+            Integer manager = managers.poll();
+            for (int reports = 4 + this.random.nextInt(7); reports > 0 && next < COUNT; reports--, next++)
+            {
+                hierarchy.add(manager, next);
+                managers.offer(next);
+            }
+        }
+        return hierarchy;
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceFootprint_WithOrgChartOf100000Elements()
+    {
+        Hierarchy<Integer> hierarchy = orgChart();
+        // Elements and their jump tables, which every add fills in.
+
+        GraphLayout layout = GraphLayout.parseInstance(hierarchy);
+        long nodeBytes = layout.getClassSizes().count(MyNode.class) + layout.getClassSizes().count(MyNode[].class);
+        Assert.assertEquals(COUNT, layout.getClassCounts().count(MyNode.class));
+        Assert.assertTrue(nodeBytes <= 96L * COUNT);
+    }
+}
@@ -65,4 +65,48 @@ public class GetCommonElementsPerformance extends BasePerformanceTest {
         long end = System.currentTimeMillis();
         Assert.assertTrue(end - start < 200);
     }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceGetCommonElements_WithHugeHierarchyAndTinyOther()
+    {
+        Hierarchy<Integer> huge = new Hierarchy<>(0);
+        Hierarchy<Integer> tiny = new Hierarchy<>(-1);
+        for (int i = 1; i <= 500000; i++)
+        {
+            huge.add(i / 10, i);
+        }
+        for (int i = 1; i <= 10; i++)
+        {
+            tiny.add(-1, i * 1000);
+        }
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 1000; i++)
+        {
+            Assert.assertEquals(10, IterableExtensions.getCount(huge.getCommonElements(tiny)));
+        }
+        long end = System.currentTimeMillis();
+        Assert.assertTrue(end - start < 200);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceGetCommonElements_WithTwoHalfOverlappingLargeHierarchies()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        Hierarchy<Integer> hierarchy2 = new Hierarchy<>(-1);
+        for (int i = 1; i <= 200000; i++)
+        {
+            hierarchy.add(i / 10, i);
+            hierarchy2.add(i == 1 ? -1 : i - 1 + 100000, i + 100000);
+        }
+
+        long start = System.currentTimeMillis();
+        long count = IterableExtensions.getCount(hierarchy.getCommonElements(hierarchy2));
+        long end = System.currentTimeMillis();
+
+        Assert.assertEquals(100000, count);
+        Assert.assertTrue(end - start < 200);
+    }
 }
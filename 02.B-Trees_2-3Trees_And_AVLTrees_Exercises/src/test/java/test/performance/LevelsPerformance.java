@@ -0,0 +1,41 @@
+package test.performance;
+
+import main.Hierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BasePerformanceTest;
+import test.types.PerformanceTests;
+
+public class LevelsPerformance extends BasePerformanceTest {
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceDepth_With100000QueriesWhileRemovingLeafParents()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        for (int i = 1; i <= 1000; i++)
+        {
+            hierarchy.add(0, i);
+        }
+        for (int i = 1001; i < 101000; i++)
+        {
+            hierarchy.add(i - 1000, i);
+        }
+
+        long start = System.currentTimeMillis();
+        for (int i = 1; i <= 1000; i++)
+        {
+            hierarchy.remove(i);
+            for (int j = 0; j < 100; j++)
+            {
+                int element = 1001 + this.random.nextInt(100000 - 1);
+                hierarchy.depth(element);
+            }
+        }
+        Assert.assertEquals(1, hierarchy.depth(1001));
+        Assert.assertEquals(1000, hierarchy.getElementsAtDepth(1).size());
+        long end = System.currentTimeMillis();
+        Assert.assertTrue(end - start < 200);
+    }
+}
@@ -0,0 +1,37 @@
+package test.performance;
+
+import main.Hierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BasePerformanceTest;
+import test.types.PerformanceTests;
+
+public class MerkleDiffPerformance extends BasePerformanceTest {
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceDiff_With500SmallChangesOn100000Elements()
+    {
+        Hierarchy<Integer> original = new Hierarchy<>(0);
+        Hierarchy<Integer> changed = new Hierarchy<>(0);
+        for (int i = 1; i < 100000; i++)
+        {
+            int parent = this.random.nextInt(i);
+            original.add(parent, i);
+            changed.add(parent, i);
+        }
+        Assert.assertTrue(original.contentEquals(changed));
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 500; i++)
+        {
+            changed.add(this.random.nextInt(100000), 100000 + i);
+            Assert.assertEquals(1, original.diff(changed).size());
+            changed.removeSubtree(100000 + i);
+            Assert.assertTrue(original.contentEquals(changed));
+        }
+        long end = System.currentTimeMillis();
+        Assert.assertTrue(end - start < 200);
+    }
+}
@@ -0,0 +1,85 @@
+package test.performance;
+
+import main.Hierarchy;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BasePerformanceTest;
+import test.types.PerformanceTests;
+
+public class MoveSubtreePerformance extends BasePerformanceTest {
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceMove_With20000LeavesBetween100Parents()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        for (int i = 1; i <= 100; i++)
+        {
+            hierarchy.add(0, i);
+        }
+        for (int i = 1000; i < 21000; i++)
+        {
+            hierarchy.add(1 + this.random.nextInt(100), i);
+        }
+        Assert.assertEquals(20101, hierarchy.subtreeSize(0));
+
+        long start = System.currentTimeMillis();
+        for (int i = 1000; i < 21000; i++)
+        {
+            hierarchy.move(i, 1 + this.random.nextInt(100));
+        }
+        long end = System.currentTimeMillis();
+
+        Assert.assertEquals(20101, hierarchy.subtreeSize(0));
+        Assert.assertTrue(end - start < 200);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceMove_With100000ElementSubtreeAndNoSubtreeQueries()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        hierarchy.add(0, 1);
+        hierarchy.add(0, 2);
+        hierarchy.add(1, 3);
+        for (int i = 4; i < 100004; i++)
+        {
+            hierarchy.add(3 + this.random.nextInt(i - 3), i);
+        }
+
+        // Nothing has asked for the Euler tour, so moves must not build it and then re-thread
+        // the whole subtree through it each time.
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 10000; i++)
+        {
+            hierarchy.move(3, 1 + i % 2);
+            hierarchy.add(3, 200000 + i);
+        }
+        long end = System.currentTimeMillis();
+
+        Assert.assertEquals(2, (int) hierarchy.getParent(3));
+        Assert.assertEquals(110004, hierarchy.getCount());
+        Assert.assertTrue(end - start < 200);
+    }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceRemoveSubtree_With100000ElementsUnderOneChild()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        hierarchy.add(0, 1);
+        for (int i = 2; i < 100002; i++)
+        {
+            hierarchy.add(1 + this.random.nextInt(i - 1), i);
+        }
+
+        long start = System.currentTimeMillis();
+        int removed = hierarchy.removeSubtree(1);
+        long end = System.currentTimeMillis();
+
+        Assert.assertEquals(100001, removed);
+        Assert.assertEquals(1, hierarchy.getCount());
+        Assert.assertTrue(end - start < 200);
+    }
+}
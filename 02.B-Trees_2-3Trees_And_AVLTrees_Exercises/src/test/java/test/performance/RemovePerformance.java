@@ -8,7 +8,10 @@ import test.helpers.BasePerformanceTest;
 import test.helpers.IterableExtensions;
 import test.types.PerformanceTests;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public class RemovePerformance extends BasePerformanceTest {
 
@@ -105,4 +108,31 @@ public class RemovePerformance extends BasePerformanceTest {
         Assert.assertEquals(Arrays.asList(22000), IterableExtensions.toList(hierarchy.getChildren(27001)));
         Assert.assertEquals(Arrays.asList(31000), IterableExtensions.toList(hierarchy.getChildren(36001)));
     }
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceRemove_With100000ChildrenOfOneParentInShuffledOrder()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(-3);
+        List<Integer> children = new ArrayList<>();
+        for (int i = 0; i < 100000; i++)
+        {
+            hierarchy.add(-3, i);
+            children.add(i);
+        }
+        Collections.shuffle(children, this.random);
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 99000; i++)
+        {
+            hierarchy.remove(children.get(i));
+        }
+        long end = System.currentTimeMillis();
+        Assert.assertTrue(end - start < 200);
+
+        List<Integer> remaining = children.subList(99000, 100000);
+        Collections.sort(remaining);
+        Assert.assertEquals(1001, hierarchy.getCount());
+        Assert.assertEquals(remaining, IterableExtensions.toList(hierarchy.getChildren(-3)));
+    }
 }
@@ -0,0 +1,35 @@
+package test.performance;
+
+import main.Hierarchy;
+import main.HierarchyRollup;
+import main.RollupMonoid;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import test.helpers.BasePerformanceTest;
+import test.types.PerformanceTests;
+
+public class RollupsPerformance extends BasePerformanceTest {
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceSetWeight_With100000UpdatesAndQueries()
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        for (int i = 1; i < 100000; i++)
+        {
+            hierarchy.add(this.random.nextInt(i), i);
+        }
+        HierarchyRollup<Integer, Long> rollup = hierarchy.addRollup(RollupMonoid.LONG_SUM, element -> 1L);
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 100000; i++)
+        {
+            rollup.setWeight(this.random.nextInt(100000), 2L);
+            rollup.aggregate(this.random.nextInt(100000));
+        }
+        long end = System.currentTimeMillis();
+        Assert.assertTrue(rollup.aggregate(0) > 100000);
+        Assert.assertTrue(end - start < 200);
+    }
+}
@@ -0,0 +1,42 @@
+package test.performance;
+
+import main.Hierarchy;
+import main.HierarchySnapshot;
+import main.KeyCodec;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import test.helpers.BasePerformanceTest;
+import test.types.PerformanceTests;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class SnapshotPerformance extends BasePerformanceTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Category(PerformanceTests.class)
+    @Test
+    public void PerformanceSnapshot_WriteAndRestore50000Elements() throws IOException
+    {
+        Hierarchy<Integer> hierarchy = new Hierarchy<>(0);
+        for (int i = 1; i < 50000; i++)
+        {
+            hierarchy.add(this.random.nextInt(i), i);
+        }
+        Path file = this.folder.newFile().toPath();
+
+        long start = System.currentTimeMillis();
+        HierarchySnapshot.write(hierarchy, file, KeyCodec.INTEGER);
+        Hierarchy<Integer> restored = HierarchySnapshot.read(file, KeyCodec.INTEGER);
+        long end = System.currentTimeMillis();
+
+        Assert.assertEquals(50000, restored.getCount());
+        Assert.assertEquals(hierarchy.getParent(49999), restored.getParent(49999));
+        Assert.assertTrue(end - start < 200);
+    }
+}